@@ -2,6 +2,7 @@ plugins {
     java
     id("org.springframework.boot") version "3.4.5"
     id("io.spring.dependency-management") version "1.1.7"
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "de.clickism"
@@ -24,16 +25,53 @@ dependencies {
     implementation("org.springframework.session:spring-session-jdbc")
     implementation("org.springframework.boot:spring-boot-starter-security")
     implementation("org.springframework.boot:spring-boot-starter-actuator")
+    implementation("org.flywaydb:flyway-core")
+    implementation("org.flywaydb:flyway-database-postgresql")
     compileOnly("org.projectlombok:lombok")
     annotationProcessor("org.projectlombok:lombok")
     runtimeOnly("org.postgresql:postgresql")
+    runtimeOnly("io.micrometer:micrometer-registry-prometheus")
     implementation("me.paulschwarz:spring-dotenv:4.0.0")
 
-//    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
-//    testImplementation("org.springframework.boot:spring-boot-starter-test")
-//    testImplementation("org.springframework.security:spring-security-test")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+    testImplementation("org.springframework.boot:spring-boot-starter-test")
+    testImplementation("org.springframework.security:spring-security-test")
+}
+
+// Load test harness in src/loadtest, see docs/load-testing.md
+sourceSets {
+    create("loadtest") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+}
+
+val loadtestImplementation: Configuration by configurations.getting {
+    extendsFrom(configurations.implementation.get())
+}
+val loadtestRuntimeOnly: Configuration by configurations.getting {
+    extendsFrom(configurations.runtimeOnly.get())
+}
+
+tasks.register<JavaExec>("loadTest") {
+    description = "Boots the app against a local database and simulates the weekly booking rush."
+    group = "verification"
+    classpath = sourceSets["loadtest"].runtimeClasspath
+    mainClass = "de.clickism.guckelsberg.loadtest.LoadTest"
+    args = providers.gradleProperty("loadTestArgs").map { it.split(" ") }.getOrElse(listOf())
 }
 
 tasks.withType<Test> {
     useJUnitPlatform()
 }
+
+// Microbenchmarks of the booking hot paths in src/jmh, run with ./gradlew jmh
+jmh {
+    jmhVersion = "1.37"
+    profilers = listOf("gc")
+    resultFormat = "JSON"
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    includes = providers.gradleProperty("jmhIncludes").map { listOf(it) }.orElse(listOf())
+}
@@ -0,0 +1,90 @@
+package de.clickism.guckelsberg;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.clickism.guckelsberg.dashboard.DashboardSummaryDto;
+import de.clickism.guckelsberg.laundry.LaundryBooking;
+import de.clickism.guckelsberg.laundry.LaundryMachine;
+import de.clickism.guckelsberg.rooftop.RooftopBookingRequest;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of the responses polled most often, with the same object mapper defaults as
+ * Spring Boot. A week of bookings on all machines is a few hundred entries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializationBenchmark {
+
+    @Param({"50", "500"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private List<LaundryBooking.Dto> bookings;
+    private List<RooftopBookingRequest.Dto> rooftopRequests;
+    private DashboardSummaryDto dashboardSummary;
+
+    @Setup
+    public void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        LocalDate today = LocalDate.now();
+        Date now = new Date();
+
+        LaundryMachine.Dto[] machines = {
+                new LaundryMachine.Dto("Washer 1", LaundryMachine.MachineType.WASHER, 90),
+                new LaundryMachine.Dto("Washer 2", LaundryMachine.MachineType.WASHER, 90),
+                new LaundryMachine.Dto("Dryer 1", LaundryMachine.MachineType.DRYER, 180),
+        };
+        bookings = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            bookings.add(new LaundryBooking.Dto((long) i, String.valueOf(100 + i % 200),
+                    machines[i % machines.length], today.plusDays(i % 7), (i % 16) * 90, now));
+        }
+
+        rooftopRequests = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            rooftopRequests.add(new RooftopBookingRequest.Dto((long) i, String.valueOf(100 + i % 200),
+                    today.plusDays(i % 60), now, "Birthday party with friends from the floor",
+                    "+49 170 1234567", RooftopBookingRequest.Status.values()[i % 4], "001", now,
+                    i % 4 == 2 ? "Already booked" : null, "18:00 - 22:00"));
+        }
+
+        dashboardSummary = new DashboardSummaryDto(
+                new DashboardSummaryDto.LaundrySummaryDto(
+                        new DashboardSummaryDto.LaundrySummaryDto.NextLaundryBookingDto(
+                                "Washer 1", today, 540, today.atStartOfDay().plusMinutes(540)),
+                        new DashboardSummaryDto.LaundrySummaryDto.QuotaDto(180, 540),
+                        new DashboardSummaryDto.LaundrySummaryDto.QuotaDto(360, 1080),
+                        3
+                ),
+                new DashboardSummaryDto.RooftopSummaryDto(
+                        new DashboardSummaryDto.RooftopSummaryDto.NextRooftopBookingDto(today.plusDays(4), "Birthday"),
+                        1
+                ),
+                new DashboardSummaryDto.AdminSummaryDto(4L, 37L, 2L)
+        );
+    }
+
+    @Benchmark
+    public byte[] laundryBookings() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(bookings);
+    }
+
+    @Benchmark
+    public byte[] rooftopRequests() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(rooftopRequests);
+    }
+
+    @Benchmark
+    public byte[] dashboardSummary() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(dashboardSummary);
+    }
+}
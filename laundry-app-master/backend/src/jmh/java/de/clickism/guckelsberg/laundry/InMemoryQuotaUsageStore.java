@@ -0,0 +1,69 @@
+package de.clickism.guckelsberg.laundry;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps quota rows in a map, so {@link LaundryQuotaLedger} can be benchmarked without a database.
+ * New rows start empty, as there are no stored bookings to seed them from.
+ */
+class InMemoryQuotaUsageStore implements LaundryQuotaUsageStore {
+
+    private final Map<Key, LaundryQuotaUsage> rows = new ConcurrentHashMap<>();
+
+    @Override
+    public Optional<LaundryQuotaUsage> findByRoomNumberAndWeekStartAndMachineType(
+            String roomNumber, LocalDate weekStart, LaundryMachine.MachineType machineType) {
+        return Optional.ofNullable(rows.get(new Key(roomNumber, weekStart, machineType)));
+    }
+
+    @Override
+    public List<LaundryQuotaUsage> findByRoomNumberAndWeekStart(String roomNumber, LocalDate weekStart) {
+        return findByRoomNumberAndWeekStartIn(roomNumber, List.of(weekStart));
+    }
+
+    @Override
+    public List<LaundryQuotaUsage> findByRoomNumberAndWeekStartIn(String roomNumber, Collection<LocalDate> weekStarts) {
+        return rows.values().stream()
+                .filter(usage -> usage.getRoomNumber().equals(roomNumber) && weekStarts.contains(usage.getWeekStart()))
+                .toList();
+    }
+
+    @Override
+    public void initialize(String roomNumber, LocalDate weekStart, LocalDate weekEnd, String machineType) {
+        LaundryMachine.MachineType type = LaundryMachine.MachineType.valueOf(machineType);
+        rows.computeIfAbsent(new Key(roomNumber, weekStart, type), key -> {
+            LaundryQuotaUsage usage = new LaundryQuotaUsage();
+            usage.setRoomNumber(roomNumber);
+            usage.setWeekStart(weekStart);
+            usage.setMachineType(type);
+            return usage;
+        });
+    }
+
+    @Override
+    public int tryAdd(String roomNumber, LocalDate weekStart, LaundryMachine.MachineType machineType,
+                      long minutes, long maxMinutes) {
+        LaundryQuotaUsage usage = rows.get(new Key(roomNumber, weekStart, machineType));
+        if (usage == null || usage.getUsedMinutes() + minutes > maxMinutes) {
+            return 0;
+        }
+        usage.setUsedMinutes(usage.getUsedMinutes() + minutes);
+        return 1;
+    }
+
+    @Override
+    public void subtract(String roomNumber, LocalDate weekStart, LaundryMachine.MachineType machineType, long minutes) {
+        LaundryQuotaUsage usage = rows.get(new Key(roomNumber, weekStart, machineType));
+        if (usage != null) {
+            usage.setUsedMinutes(usage.getUsedMinutes() - minutes);
+        }
+    }
+
+    private record Key(String roomNumber, LocalDate weekStart, LaundryMachine.MachineType machineType) {
+    }
+}
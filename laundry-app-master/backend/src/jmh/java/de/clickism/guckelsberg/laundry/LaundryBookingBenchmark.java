@@ -0,0 +1,84 @@
+package de.clickism.guckelsberg.laundry;
+
+import de.clickism.guckelsberg.user.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Slot arithmetic run for every booking, availability and overlap check.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LaundryBookingBenchmark {
+
+    private LaundryBooking booking;
+    private LaundryBooking overlapping;
+    private LaundryBooking otherMachine;
+    private LaundrySlotOverride partialOverride;
+    private LaundrySlotOverride wholeDayOverride;
+    private int slot;
+
+    @Setup
+    public void setup() {
+        User user = new User();
+        user.setRoomNumber("101");
+        LaundryMachine washer = new LaundryMachine("Washer 1", LaundryMachine.MachineType.WASHER, 90);
+        LaundryMachine dryer = new LaundryMachine("Dryer 1", LaundryMachine.MachineType.DRYER, 180);
+        LocalDate date = LocalDate.now().plusDays(1);
+        booking = new LaundryBooking(1L, user, washer, date, new Date(), 540);
+        overlapping = new LaundryBooking(2L, user, washer, date, new Date(), 585);
+        otherMachine = new LaundryBooking(3L, user, dryer, date, new Date(), 540);
+
+        partialOverride = new LaundrySlotOverride();
+        partialOverride.setMachine(washer);
+        partialOverride.setStartSlot(360);
+        partialOverride.setEndSlot(720);
+        wholeDayOverride = new LaundrySlotOverride();
+        wholeDayOverride.setMachine(washer);
+        slot = 540;
+    }
+
+    @Benchmark
+    public boolean isOverlapping() {
+        return booking.isOverlapping(overlapping);
+    }
+
+    @Benchmark
+    public boolean isOverlappingOtherMachine() {
+        return booking.isOverlapping(otherMachine);
+    }
+
+    @Benchmark
+    public boolean isInPast() {
+        return booking.isInPast();
+    }
+
+    @Benchmark
+    public Object getSlotStartTime() {
+        return booking.getSlotStartTime();
+    }
+
+    @Benchmark
+    public boolean overrideAppliesTo() {
+        return partialOverride.appliesTo(slot);
+    }
+
+    @Benchmark
+    public boolean wholeDayOverrideAppliesTo() {
+        return wholeDayOverride.appliesTo(slot);
+    }
+
+    @Benchmark
+    public String formatSlot() {
+        return LaundryUtils.formatSlot(slot);
+    }
+
+    @Benchmark
+    public String formatSlotWithDate() {
+        return LaundryUtils.formatSlot(slot, booking.getDate());
+    }
+}
@@ -0,0 +1,79 @@
+package de.clickism.guckelsberg.laundry;
+
+import de.clickism.guckelsberg.metrics.StageMetrics;
+import de.clickism.guckelsberg.user.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limit checks of a booking request, backed by an in-memory quota ledger so only the checks themselves
+ * and their stage metrics are measured. Rejections are benchmarked separately since they build an
+ * exception and its message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LimitsCheckerBenchmark {
+
+    private LimitsChecker limitsChecker;
+    private LaundryBooking withinQuota;
+    private LaundryBooking quotaExceeded;
+    private LaundryBooking tooFarAhead;
+
+    @Setup
+    public void setup() {
+        LaundryQuotaLedger ledger = new LaundryQuotaLedger(new InMemoryQuotaUsageStore(), null);
+        limitsChecker = new LimitsChecker(ledger, new StageMetrics(new SimpleMeterRegistry()));
+        LaundryMachine washer = new LaundryMachine("Washer 1", LaundryMachine.MachineType.WASHER, 90);
+        LocalDate date = LocalDate.now().plusDays(1);
+
+        // Never runs out of quota, so every invocation takes the accepting path
+        User unlimited = user("101", Long.MAX_VALUE);
+        withinQuota = new LaundryBooking(1L, unlimited, washer, date, new Date(), 540);
+
+        User exhausted = user("102", LimitsChecker.DEFAULT_MAX_WASHER_MINUTES_PER_USER_PER_WEEK);
+        quotaExceeded = new LaundryBooking(2L, exhausted, washer, date, new Date(), 540);
+        while (ledger.tryReserve(quotaExceeded, LimitsChecker.DEFAULT_MAX_WASHER_MINUTES_PER_USER_PER_WEEK)) {
+            // Book the week full
+        }
+
+        tooFarAhead = new LaundryBooking(3L, unlimited, washer,
+                date.plusDays(LimitsChecker.MAX_BOOKING_DAYS_AHEAD + 1), new Date(), 540);
+    }
+
+    @Benchmark
+    public LaundryBooking accepted() {
+        limitsChecker.checkLimits(withinQuota);
+        return withinQuota;
+    }
+
+    @Benchmark
+    public Object rejectedByQuota() {
+        return check(quotaExceeded);
+    }
+
+    @Benchmark
+    public Object rejectedByDate() {
+        return check(tooFarAhead);
+    }
+
+    private Object check(LaundryBooking booking) {
+        try {
+            limitsChecker.checkLimits(booking);
+            return booking;
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    private static User user(String roomNumber, long maxWasherMinutesPerWeek) {
+        User user = new User();
+        user.setRoomNumber(roomNumber);
+        user.setMaxWasherMinutesPerWeek(maxWasherMinutesPerWeek);
+        return user;
+    }
+}
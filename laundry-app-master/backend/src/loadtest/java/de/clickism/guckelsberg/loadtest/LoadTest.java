@@ -0,0 +1,196 @@
+package de.clickism.guckelsberg.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.clickism.guckelsberg.GuckelsbergApplication;
+import de.clickism.guckelsberg.laundry.LaundryBooking;
+import de.clickism.guckelsberg.laundry.LaundryMachine;
+import de.clickism.guckelsberg.laundry.LimitsChecker;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates the weekly booking rush against the whole stack: boots the application against a local
+ * database, seeds residents and a week of bookings, and lets every resident log in, load the
+ * dashboard, poll the bookings and race for the evening slots of the day that just opened.
+ * <p>
+ * Every resident runs on its own virtual thread. Latencies, statuses and connection pool saturation
+ * are reported per endpoint at the end. See docs/load-testing.md for the options.
+ */
+public class LoadTest {
+
+    private final LoadTestOptions options;
+    private final Metrics metrics = new Metrics();
+
+    private LoadTest(LoadTestOptions options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadTest(LoadTestOptions.parse(args)).run();
+    }
+
+    private void run() throws Exception {
+        try (ConfigurableApplicationContext app = boot()) {
+            LocalDate today = LocalDate.now();
+            List<String> roomNumbers = new Seeder(app.getBean(JdbcTemplate.class), app.getBean(PasswordEncoder.class),
+                    options.seed()).seed(options.residents(), today);
+            URI baseUri = URI.create("http://localhost:" + app.getEnvironment().getProperty("local.server.port"));
+            ObjectMapper objectMapper = app.getBean(ObjectMapper.class);
+
+            System.out.printf("Running %s with %d residents for %s%n",
+                    options.scenario(), options.residents(), options.duration());
+            Instant start = Instant.now();
+            try (PoolSampler poolSampler = new PoolSampler(app.getBean(MeterRegistry.class), metrics);
+                 HttpClient httpClient = HttpClient.newBuilder()
+                         .version(HttpClient.Version.HTTP_1_1)
+                         .connectTimeout(Duration.ofSeconds(5))
+                         .build();
+                 ExecutorService residents = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < roomNumbers.size(); i++) {
+                    Resident resident = new Resident(roomNumbers.get(i), httpClient, baseUri, objectMapper, metrics);
+                    Random random = new Random(options.seed() + i);
+                    residents.submit(() -> {
+                        simulate(resident, random, start, today);
+                        return null;
+                    });
+                }
+                residents.shutdown();
+                // Leaves time for requests still in flight when the run ends
+                if (!residents.awaitTermination(options.duration().plusMinutes(1).toMillis(), TimeUnit.MILLISECONDS)) {
+                    residents.shutdownNow();
+                }
+                System.out.println();
+                metrics.print(System.out, Duration.between(start, Instant.now()), poolSampler);
+            }
+        }
+    }
+
+    private ConfigurableApplicationContext boot() {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        // Metrics are read in-process, so the management port would only get in the way of a running instance
+        properties.put("management.server.port", "-1");
+        properties.put("spring.datasource.url", options.databaseUrl());
+        // Credentials of the compose service, read from backend/.env
+        properties.put("spring.datasource.username", "${DB_USER:postgres}");
+        properties.put("spring.datasource.password", "${DB_PASSWORD:postgres}");
+        // Sessions are sent back over plain http
+        properties.put("server.servlet.session.cookie.secure", "false");
+        // All residents log in from the load generator's address
+        properties.put("app.rate-limit.login.address-limit", String.valueOf(Integer.MAX_VALUE));
+        properties.putAll(options.appProperties());
+        String[] args = properties.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(GuckelsbergApplication.class).run(args);
+    }
+
+    private void simulate(Resident resident, Random random, Instant start, LocalDate today) throws InterruptedException {
+        Instant rushAt = start.plus(options.rampUp());
+        Instant end = start.plus(options.duration());
+        // Residents arrive spread over the ramp up, so most are logged in when the window opens
+        sleepUntil(start.plusMillis((long) (random.nextDouble() * options.rampUp().toMillis())));
+        if (!resident.login() || options.scenario() == LoadTestOptions.Scenario.LOGIN) {
+            return;
+        }
+        resident.loadDashboard();
+        boolean racing = options.scenario() == LoadTestOptions.Scenario.RUSH;
+        while (Instant.now().isBefore(end) && !Thread.currentThread().isInterrupted()) {
+            if (racing && !Instant.now().isBefore(rushAt)) {
+                race(resident, random, today.plusDays(LimitsChecker.MAX_BOOKING_DAYS_AHEAD), end);
+                resident.loadDashboard();
+                racing = false;
+            }
+            resident.pollToday();
+            Instant next = Instant.now().plusMillis((long) (options.pollInterval().toMillis() * (0.8 + 0.4 * random.nextDouble())));
+            sleepUntil(racing && rushAt.isBefore(next) ? rushAt : next.isBefore(end) ? next : end);
+        }
+    }
+
+    /**
+     * Tries the evening slots of the opened day in random order until one booking succeeds. Some
+     * residents book a dryer right after the washer in the same batch.
+     * <p>
+     * A throttled attempt is repeated after the advertised {@code Retry-After} and does not count
+     * towards the attempts, unless the run ends first.
+     */
+    private void race(Resident resident, Random random, LocalDate date, Instant end) throws InterruptedException {
+        List<LaundryBooking.CreateDto> washerSlots = new ArrayList<>();
+        List<LaundryMachine> dryers = new ArrayList<>();
+        for (LaundryMachine machine : Seeder.MACHINES) {
+            if (machine.getType() == LaundryMachine.MachineType.DRYER) {
+                dryers.add(machine);
+                continue;
+            }
+            for (int slot : Seeder.EVENING_SLOTS) {
+                washerSlots.add(new LaundryBooking.CreateDto(machine.getName(), date, slot));
+            }
+        }
+        Collections.shuffle(washerSlots, random);
+        boolean batch = random.nextDouble() < options.batchShare();
+        int attempts = Math.min(options.attempts(), washerSlots.size());
+        int conflicts = 0;
+        int throttles = 0;
+        Duration waited = Duration.ZERO;
+        int attempt = 0;
+        while (attempt < attempts) {
+            LaundryBooking.CreateDto washer = washerSlots.get(attempt);
+            Resident.BookingResponse response;
+            if (batch) {
+                LaundryMachine dryer = dryers.get(random.nextInt(dryers.size()));
+                LaundryBooking.CreateDto dryerSlot = new LaundryBooking.CreateDto(dryer.getName(), date, washer.slotStart() + 90);
+                response = resident.bookBatch(List.of(washer, dryerSlot));
+            } else {
+                response = resident.book(washer);
+            }
+            if (response.isThrottled()) {
+                throttles++;
+                if (!Instant.now().plus(response.retryAfter()).isBefore(end)) {
+                    metrics.recordRace(Metrics.RaceOutcome.THROTTLED, conflicts, throttles, waited);
+                    return;
+                }
+                Thread.sleep(response.retryAfter());
+                waited = waited.plus(response.retryAfter());
+                continue;
+            }
+            // Only a lost race or a fully rejected batch is worth another slot
+            if (response.status() != 409 && response.status() != 400) {
+                Metrics.RaceOutcome outcome = response.status() >= 200 && response.status() < 300
+                        ? Metrics.RaceOutcome.BOOKED
+                        : Metrics.RaceOutcome.FAILED;
+                metrics.recordRace(outcome, conflicts, throttles, waited);
+                return;
+            }
+            if (response.status() == 409) {
+                conflicts++;
+            }
+            attempt++;
+        }
+        metrics.recordRace(Metrics.RaceOutcome.LOST, conflicts, throttles, waited);
+    }
+
+    private static void sleepUntil(Instant time) throws InterruptedException {
+        Duration remaining = Duration.between(Instant.now(), time);
+        if (remaining.isPositive()) {
+            Thread.sleep(remaining);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package de.clickism.guckelsberg.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Options of a load test run, given as {@code --name=value} arguments. Arguments containing a dot,
+ * such as {@code --spring.threads.virtual.enabled=true}, are passed on to the application.
+ *
+ * @param scenario       what each resident does
+ * @param residents      number of simulated residents, each with its own session
+ * @param duration       how long residents keep polling, measured from the start of the run
+ * @param rampUp         residents arrive spread over this time, the booking window opens at its end
+ * @param pollInterval   mean time between two polls of the bookings of today and later
+ * @param batchShare     share of residents booking a washer and a dryer in one batch request
+ * @param attempts       slots a resident tries during the rush before giving up
+ * @param databaseUrl    JDBC url of the database to seed and run against, must be local
+ * @param seed           seed of the random choices, runs with the same seed make the same choices
+ * @param appProperties  properties passed on to the application
+ */
+record LoadTestOptions(
+        Scenario scenario,
+        int residents,
+        Duration duration,
+        Duration rampUp,
+        Duration pollInterval,
+        double batchShare,
+        int attempts,
+        String databaseUrl,
+        long seed,
+        Map<String, String> appProperties
+) {
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        Map<String, String> appProperties = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (arg.isBlank()) {
+                continue;
+            }
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            String name = arg.substring(2, separator);
+            String value = arg.substring(separator + 1);
+            (name.contains(".") ? appProperties : values).put(name, value);
+        }
+        LoadTestOptions options = new LoadTestOptions(
+                Scenario.valueOf(take(values, "scenario", "rush").toUpperCase(Locale.ROOT)),
+                Integer.parseInt(take(values, "residents", "200")),
+                DurationStyle.detectAndParse(take(values, "duration", "2m")),
+                DurationStyle.detectAndParse(take(values, "ramp-up", "30s")),
+                DurationStyle.detectAndParse(take(values, "poll-interval", "5s")),
+                Double.parseDouble(take(values, "batch-share", "0.25")),
+                Integer.parseInt(take(values, "attempts", "3")),
+                take(values, "database-url", "jdbc:postgresql://localhost:5433/guckelsberg"),
+                Long.parseLong(take(values, "seed", "42")),
+                appProperties
+        );
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options: " + values.keySet());
+        }
+        options.validate();
+        return options;
+    }
+
+    private static String take(Map<String, String> values, String name, String defaultValue) {
+        String value = values.remove(name);
+        return value != null ? value : defaultValue;
+    }
+
+    private void validate() {
+        if (residents < 1 || attempts < 1) {
+            throw new IllegalArgumentException("Residents and attempts must be positive.");
+        }
+        if (batchShare < 0 || batchShare > 1) {
+            throw new IllegalArgumentException("Batch share must be between 0 and 1.");
+        }
+        if (rampUp.compareTo(duration) > 0) {
+            throw new IllegalArgumentException("Ramp up must not be longer than the duration.");
+        }
+        // The run seeds and deletes data, so never point it at a shared database
+        String host = URI.create(databaseUrl.substring("jdbc:".length())).getHost();
+        if (!"localhost".equals(host) && !"127.0.0.1".equals(host)) {
+            throw new IllegalArgumentException("Load tests only run against a local database, not: " + host);
+        }
+    }
+
+    enum Scenario {
+        /**
+         * Residents only log in, which measures the login bulkhead.
+         */
+        LOGIN,
+        /**
+         * Residents log in, load the dashboard and poll the bookings until the run ends.
+         */
+        BROWSE,
+        /**
+         * Like {@link #BROWSE}, but all residents race for the evening slots of the day that becomes
+         * bookable once the ramp up is over.
+         */
+        RUSH
+    }
+}
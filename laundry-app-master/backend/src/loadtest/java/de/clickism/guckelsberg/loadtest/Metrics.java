@@ -0,0 +1,193 @@
+package de.clickism.guckelsberg.loadtest;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and response statuses recorded per endpoint, and how the residents' booking races ended.
+ */
+class Metrics {
+    /**
+     * Status recorded for requests that failed without a response, e.g. because of a timeout.
+     */
+    static final int NO_RESPONSE = -1;
+    private static final Set<Integer> REPORTED_STATUSES = Set.of(304, 400, 409, 429, 503);
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final Map<RaceOutcome, LongAdder> raceOutcomes = new ConcurrentHashMap<>();
+    private final LongAdder raceConflicts = new LongAdder();
+    private final LongAdder raceThrottles = new LongAdder();
+    private final LongAdder raceWaitMillis = new LongAdder();
+
+    Endpoint endpoint(String name) {
+        return endpoints.computeIfAbsent(name, Endpoint::new);
+    }
+
+    Collection<Endpoint> endpoints() {
+        return endpoints.values();
+    }
+
+    /**
+     * Records the end of a resident's booking race.
+     *
+     * @param conflicts responses that lost the slot to another resident ({@code 409})
+     * @param throttles responses of the rate limit or load shedding ({@code 429}, {@code 503})
+     * @param waited    time spent waiting for the advertised {@code Retry-After}
+     */
+    void recordRace(RaceOutcome outcome, int conflicts, int throttles, Duration waited) {
+        raceOutcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+        raceConflicts.add(conflicts);
+        raceThrottles.add(throttles);
+        raceWaitMillis.add(waited.toMillis());
+    }
+
+    void print(PrintStream out, Duration elapsed, PoolSampler pool) {
+        double seconds = elapsed.toMillis() / 1000.0;
+        String format = "%-36s %8s %8s %8s %8s %8s %8s %7s %6s %6s %6s %6s %6s %6s %10s%n";
+        out.printf(format, "Endpoint", "Requests", "Req/s", "p50 ms", "p95 ms", "p99 ms", "Max ms",
+                "2xx", "304", "400", "409", "429", "503", "Other", "Pool sat.");
+        endpoints.values().stream()
+                .sorted((a, b) -> a.name.compareTo(b.name))
+                .forEach(endpoint -> {
+                    long[] latencies = endpoint.sortedLatencies();
+                    out.printf(format,
+                            endpoint.name,
+                            latencies.length,
+                            "%.1f".formatted(latencies.length / seconds),
+                            millis(percentile(latencies, 0.50)),
+                            millis(percentile(latencies, 0.95)),
+                            millis(percentile(latencies, 0.99)),
+                            millis(latencies.length > 0 ? latencies[latencies.length - 1] : 0),
+                            endpoint.successes.sum(),
+                            endpoint.count(304),
+                            endpoint.count(400),
+                            endpoint.count(409),
+                            endpoint.count(429),
+                            endpoint.count(503),
+                            endpoint.others(),
+                            endpoint.poolSamples.get() > 0
+                                    ? "%.0f%%".formatted(100.0 * endpoint.saturatedSamples.get() / endpoint.poolSamples.get())
+                                    : "-");
+                });
+        out.println();
+        if (!raceOutcomes.isEmpty()) {
+            out.printf("Race: %d booked, %d lost every attempt, %d still throttled at the end, %d failed%n",
+                    raceCount(RaceOutcome.BOOKED), raceCount(RaceOutcome.LOST),
+                    raceCount(RaceOutcome.THROTTLED), raceCount(RaceOutcome.FAILED));
+            out.printf("      %d conflicts (409), %d throttled (429/503), %.1f s waited for Retry-After%n",
+                    raceConflicts.sum(), raceThrottles.sum(), raceWaitMillis.sum() / 1000.0);
+            out.println();
+        }
+        out.println("Pool sat. is the share of pool samples taken while the endpoint had requests in flight");
+        out.println("during which threads were waiting for a database connection.");
+        out.println(pool.summary());
+    }
+
+    private long raceCount(RaceOutcome outcome) {
+        LongAdder count = raceOutcomes.get(outcome);
+        return count != null ? count.sum() : 0;
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+
+    private static String millis(long nanos) {
+        return "%.1f".formatted(nanos / 1_000_000.0);
+    }
+
+    static class Endpoint {
+        private final String name;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final LongAdder successes = new LongAdder();
+        private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        private final AtomicLong poolSamples = new AtomicLong();
+        private final AtomicLong saturatedSamples = new AtomicLong();
+        private long[] latencies = new long[1024];
+        private int size;
+
+        private Endpoint(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Marks a request as in flight and returns its start time, to be passed to {@link #record}.
+         */
+        long start() {
+            inFlight.incrementAndGet();
+            return System.nanoTime();
+        }
+
+        void record(long startNanos, int status) {
+            long latency = System.nanoTime() - startNanos;
+            inFlight.decrementAndGet();
+            if (status >= 200 && status < 300) {
+                successes.increment();
+            } else {
+                statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+            }
+            synchronized (this) {
+                if (size == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, size * 2);
+                }
+                latencies[size++] = latency;
+            }
+        }
+
+        void samplePool(boolean saturated) {
+            if (inFlight.get() == 0) {
+                return;
+            }
+            poolSamples.incrementAndGet();
+            if (saturated) {
+                saturatedSamples.incrementAndGet();
+            }
+        }
+
+        private long count(int status) {
+            LongAdder count = statuses.get(status);
+            return count != null ? count.sum() : 0;
+        }
+
+        private long others() {
+            return statuses.entrySet().stream()
+                    .filter(entry -> !REPORTED_STATUSES.contains(entry.getKey()))
+                    .mapToLong(entry -> entry.getValue().sum())
+                    .sum();
+        }
+
+        private synchronized long[] sortedLatencies() {
+            long[] sorted = Arrays.copyOf(latencies, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+
+    enum RaceOutcome {
+        BOOKED,
+        /**
+         * Every attempted slot was taken or rejected.
+         */
+        LOST,
+        /**
+         * The run ended while the resident was waiting to retry.
+         */
+        THROTTLED,
+        /**
+         * Any other status, or no response.
+         */
+        FAILED
+    }
+}
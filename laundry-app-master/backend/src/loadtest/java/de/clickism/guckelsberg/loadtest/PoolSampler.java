@@ -0,0 +1,80 @@
+package de.clickism.guckelsberg.loadtest;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+
+/**
+ * Samples the connection pool gauges of the application while the load test runs, and attributes
+ * saturation to the endpoints with requests in flight at the time.
+ * <p>
+ * In virtual thread mode, threads waiting for a borrowing permit are counted as waiting as well,
+ * see {@code ConnectionLimitingDataSource}.
+ */
+class PoolSampler implements AutoCloseable {
+    private static final Duration INTERVAL = Duration.ofMillis(50);
+
+    private final Gauge active;
+    private final Gauge pending;
+    private final Gauge max;
+    private final Gauge borrowersWaiting;
+    private final Metrics metrics;
+    private final Thread thread;
+
+    private long samples;
+    private long saturatedSamples;
+    private double activeSum;
+    private double maxPending;
+
+    PoolSampler(MeterRegistry meterRegistry, Metrics metrics) {
+        this.active = meterRegistry.find("hikaricp.connections.active").gauge();
+        this.pending = meterRegistry.find("hikaricp.connections.pending").gauge();
+        this.max = meterRegistry.find("hikaricp.connections.max").gauge();
+        this.borrowersWaiting = meterRegistry.find("app.datasource.borrowers.waiting").gauge();
+        this.metrics = metrics;
+        this.thread = Thread.ofPlatform()
+                .name("load-test-pool-sampler")
+                .daemon()
+                .start(this::run);
+    }
+
+    private void run() {
+        if (active == null || pending == null) {
+            return;
+        }
+        while (!Thread.currentThread().isInterrupted()) {
+            double waiting = pending.value() + (borrowersWaiting != null ? borrowersWaiting.value() : 0);
+            boolean saturated = waiting > 0;
+            synchronized (this) {
+                samples++;
+                activeSum += active.value();
+                maxPending = Math.max(maxPending, waiting);
+                if (saturated) {
+                    saturatedSamples++;
+                }
+            }
+            metrics.endpoints().forEach(endpoint -> endpoint.samplePool(saturated));
+            try {
+                Thread.sleep(INTERVAL);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    synchronized String summary() {
+        if (samples == 0) {
+            return "Connection pool metrics are not available.";
+        }
+        return "Connection pool: %.1f of %.0f connections active on average, threads waiting in %.0f%% of samples, at most %.0f at once"
+                .formatted(activeSum / samples, max != null ? max.value() : Double.NaN,
+                        100.0 * saturatedSamples / samples, maxPending);
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        thread.interrupt();
+        thread.join();
+    }
+}
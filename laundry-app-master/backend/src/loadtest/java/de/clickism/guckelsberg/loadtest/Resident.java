@@ -0,0 +1,162 @@
+package de.clickism.guckelsberg.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.clickism.guckelsberg.auth.AuthController;
+import de.clickism.guckelsberg.laundry.LaundryBooking;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * A resident using the app through its own session, like the frontend does.
+ */
+class Resident {
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final int MAX_LOGIN_ATTEMPTS = 3;
+
+    private final String roomNumber;
+    private final HttpClient httpClient;
+    private final URI baseUri;
+    private final ObjectMapper objectMapper;
+    private final Metrics metrics;
+
+    private String sessionCookie;
+    private String todayEtag;
+
+    Resident(String roomNumber, HttpClient httpClient, URI baseUri, ObjectMapper objectMapper, Metrics metrics) {
+        this.roomNumber = roomNumber;
+        this.httpClient = httpClient;
+        this.baseUri = baseUri;
+        this.objectMapper = objectMapper;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Logs in, retrying after the advertised delay while logins are shed.
+     *
+     * @return true if the resident is logged in
+     */
+    boolean login() throws InterruptedException {
+        String body = json(new AuthController.LoginRequest(roomNumber, Seeder.PASSWORD));
+        for (int attempt = 1; attempt <= MAX_LOGIN_ATTEMPTS; attempt++) {
+            HttpResponse<Void> response = send("POST /auth/login", post("/auth/login", body));
+            if (response == null) {
+                return false;
+            }
+            if (response.statusCode() == 200) {
+                sessionCookie = response.headers().allValues("Set-Cookie").stream()
+                        .map(cookie -> cookie.split(";", 2)[0])
+                        .collect(Collectors.joining("; "));
+                return !sessionCookie.isEmpty();
+            }
+            if (response.statusCode() != 503 && response.statusCode() != 429) {
+                return false;
+            }
+            Thread.sleep(retryAfter(response));
+        }
+        return false;
+    }
+
+    void loadDashboard() {
+        send("GET /api/dashboard/summary", get("/api/dashboard/summary"));
+    }
+
+    /**
+     * Polls the bookings of today and later, revalidating the previous response like the browser does.
+     */
+    void pollToday() {
+        HttpRequest.Builder request = get("/api/laundry/bookings/today");
+        if (todayEtag != null) {
+            request.header("If-None-Match", todayEtag);
+        }
+        HttpResponse<Void> response = send("GET /api/laundry/bookings/today", request);
+        if (response != null && response.statusCode() == 200) {
+            todayEtag = response.headers().firstValue("ETag").orElse(null);
+        }
+    }
+
+    BookingResponse book(LaundryBooking.CreateDto booking) {
+        return bookingResponse(send("POST /api/laundry/bookings", post("/api/laundry/bookings", json(booking))));
+    }
+
+    BookingResponse bookBatch(List<LaundryBooking.CreateDto> bookings) {
+        return bookingResponse(send("POST /api/laundry/bookings/batch", post("/api/laundry/bookings/batch", json(bookings))));
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return request(path).GET();
+    }
+
+    private HttpRequest.Builder post(String path, String body) {
+        return request(path)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+    }
+
+    private HttpRequest.Builder request(String path) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(baseUri.resolve(path)).timeout(REQUEST_TIMEOUT);
+        if (sessionCookie != null) {
+            request.header("Cookie", sessionCookie);
+        }
+        return request;
+    }
+
+    private HttpResponse<Void> send(String endpointName, HttpRequest.Builder request) {
+        Metrics.Endpoint endpoint = metrics.endpoint(endpointName);
+        long start = endpoint.start();
+        try {
+            HttpResponse<Void> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.discarding());
+            endpoint.record(start, response.statusCode());
+            return response;
+        } catch (IOException e) {
+            endpoint.record(start, Metrics.NO_RESPONSE);
+            return null;
+        } catch (InterruptedException e) {
+            endpoint.record(start, Metrics.NO_RESPONSE);
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static BookingResponse bookingResponse(HttpResponse<Void> response) {
+        if (response == null) {
+            return new BookingResponse(Metrics.NO_RESPONSE, Duration.ZERO);
+        }
+        return new BookingResponse(response.statusCode(), retryAfter(response));
+    }
+
+    private static Duration retryAfter(HttpResponse<Void> response) {
+        Optional<String> retryAfter = response.headers().firstValue("Retry-After");
+        return Duration.ofSeconds(retryAfter.map(Long::parseLong).orElse(1L));
+    }
+
+    private String json(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param status     the response status, or {@link Metrics#NO_RESPONSE}
+     * @param retryAfter the advertised delay, or one second if none was sent
+     */
+    record BookingResponse(int status, Duration retryAfter) {
+
+        /**
+         * Whether the request was turned away by the rate limit or load shedding and may be repeated.
+         */
+        boolean isThrottled() {
+            return status == 429 || status == 503;
+        }
+    }
+}
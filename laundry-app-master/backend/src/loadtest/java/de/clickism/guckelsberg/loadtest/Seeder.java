@@ -0,0 +1,124 @@
+package de.clickism.guckelsberg.loadtest;
+
+import de.clickism.guckelsberg.laundry.LaundryMachine;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Seeds residents and machines of the load test, and a week of bookings that fills most evening
+ * slots like during the semester. Everything seeded is prefixed, so data of other runs is replaced
+ * and other data in the database is left alone.
+ * <p>
+ * Must run before the first request, since the occupancy index and quota ledger load days lazily
+ * and would not notice bookings inserted afterwards.
+ */
+class Seeder {
+    static final String ROOM_PREFIX = "LT-";
+    static final String PASSWORD = "load-test";
+    static final List<LaundryMachine> MACHINES = List.of(
+            new LaundryMachine("LT Washer 1", LaundryMachine.MachineType.WASHER, 90),
+            new LaundryMachine("LT Washer 2", LaundryMachine.MachineType.WASHER, 90),
+            new LaundryMachine("LT Washer 3", LaundryMachine.MachineType.WASHER, 90),
+            new LaundryMachine("LT Dryer 1", LaundryMachine.MachineType.DRYER, 180),
+            new LaundryMachine("LT Dryer 2", LaundryMachine.MachineType.DRYER, 180)
+    );
+    /**
+     * Slots residents race for once a new day opens.
+     */
+    static final List<Integer> EVENING_SLOTS = List.of(1080, 1170, 1260);
+
+    // Stays clear of the weekly quota, which is checked per ISO week
+    private static final int MAX_SEEDED_BOOKINGS_PER_TYPE = 3;
+    private static final int FIRST_SLOT = 360;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final Random random;
+
+    Seeder(JdbcTemplate jdbcTemplate, PasswordEncoder passwordEncoder, long seed) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Seeds the given number of residents and the bookings of today and the following six days.
+     * The day after is left empty, it opens for bookings during the run.
+     *
+     * @return the room numbers of the residents
+     */
+    List<String> seed(int residents, LocalDate today) {
+        deletePreviousRuns();
+        for (LaundryMachine machine : MACHINES) {
+            jdbcTemplate.update("INSERT INTO laundry_machine (name, type, slot_duration) VALUES (?, ?, ?) " +
+                            "ON CONFLICT (name) DO UPDATE SET type = EXCLUDED.type, slot_duration = EXCLUDED.slot_duration",
+                    machine.getName(), machine.getType().name(), machine.getSlotDuration());
+        }
+
+        // All residents share a password, so it is hashed once
+        String passwordHash = passwordEncoder.encode(PASSWORD);
+        List<String> roomNumbers = new ArrayList<>();
+        for (int i = 1; i <= residents; i++) {
+            roomNumbers.add(ROOM_PREFIX + "%04d".formatted(i));
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (room_number, password_hash, role) VALUES (?, ?, 'USER') " +
+                        "ON CONFLICT (room_number) DO UPDATE SET password_hash = EXCLUDED.password_hash",
+                roomNumbers, 500, (ps, roomNumber) -> {
+                    ps.setString(1, roomNumber);
+                    ps.setString(2, passwordHash);
+                });
+
+        List<Object[]> bookings = backgroundBookings(roomNumbers, today);
+        jdbcTemplate.batchUpdate("INSERT INTO laundry_booking " +
+                "(booker_room_number, machine_name, date, created_at, slot_start, slot_end) VALUES (?, ?, ?, ?, ?, ?)",
+                bookings);
+        System.out.printf("Seeded %d residents, %d machines and %d bookings%n",
+                residents, MACHINES.size(), bookings.size());
+        return roomNumbers;
+    }
+
+    private void deletePreviousRuns() {
+        String rooms = ROOM_PREFIX + "%";
+        jdbcTemplate.update("DELETE FROM laundry_booking WHERE booker_room_number LIKE ?", rooms);
+        jdbcTemplate.update("DELETE FROM laundry_booking_archive WHERE booker_room_number LIKE ?", rooms);
+        jdbcTemplate.update("DELETE FROM laundry_quota_usage WHERE room_number LIKE ?", rooms);
+        jdbcTemplate.update("DELETE FROM laundry_monthly_usage WHERE room_number LIKE ?", rooms);
+    }
+
+    /**
+     * Books most evening slots and some daytime slots, each by a random resident with quota left.
+     */
+    private List<Object[]> backgroundBookings(List<String> roomNumbers, LocalDate today) {
+        Map<String, Integer> bookingsPerResidentAndType = new HashMap<>();
+        Timestamp createdAt = new Timestamp(System.currentTimeMillis());
+        List<Object[]> bookings = new ArrayList<>();
+        for (int day = 0; day < 7; day++) {
+            LocalDate date = today.plusDays(day);
+            for (LaundryMachine machine : MACHINES) {
+                for (int slot = FIRST_SLOT; slot + machine.getSlotDuration() <= 1440; slot += machine.getSlotDuration()) {
+                    double occupancy = EVENING_SLOTS.contains(slot) ? 0.9 : 0.4;
+                    if (random.nextDouble() >= occupancy) {
+                        continue;
+                    }
+                    String roomNumber = roomNumbers.get(random.nextInt(roomNumbers.size()));
+                    int booked = bookingsPerResidentAndType.merge(roomNumber + machine.getType(), 1, Integer::sum);
+                    if (booked > MAX_SEEDED_BOOKINGS_PER_TYPE) {
+                        continue;
+                    }
+                    bookings.add(new Object[]{roomNumber, machine.getName(), Date.valueOf(date), createdAt,
+                            slot, slot + machine.getSlotDuration()});
+                }
+            }
+        }
+        return bookings;
+    }
+}
@@ -0,0 +1,200 @@
+package de.clickism.guckelsberg.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded concurrency limiter with a short FIFO queue and a limit that adapts to observed latency.
+ * <p>
+ * The limit grows by about one per round of requests while they are as fast as the best latency seen
+ * recently, and is cut by a fraction once they get noticeably slower, i.e. when the database starts
+ * to queue. The maximum limit is kept well below the connection pool size, so admitted requests can never take
+ * all connections away from unrelated traffic.
+ * <p>
+ * Only successful requests are sampled, as rejected ones often return before doing any real work. The
+ * best latency is the minimum of the current and the previous {@code app.admission.baseline-window},
+ * so a fast outlier is forgotten after two windows.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final double TOLERATED_SLOWDOWN = 2.0;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueueSize;
+    private final long maxWaitNanos;
+    private final long baselineWindowNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private final Deque<Object> queue = new ArrayDeque<>();
+    private double limit;
+    private int inFlight;
+    private long windowStartNanos = System.nanoTime();
+    private long windowMinNanos = Long.MAX_VALUE;
+    private long previousWindowMinNanos = Long.MAX_VALUE;
+
+    private final Timer waitTimer;
+    private final Counter queueFullRejections;
+    private final Counter timeoutRejections;
+
+    public AdaptiveConcurrencyLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${app.admission.initial-limit:4}") int initialLimit,
+            @Value("${app.admission.min-limit:1}") int minLimit,
+            @Value("${app.admission.max-limit:8}") int maxLimit,
+            @Value("${app.admission.queue-size:32}") int maxQueueSize,
+            @Value("${app.admission.max-wait:1s}") Duration maxWait,
+            @Value("${app.admission.baseline-window:30s}") Duration baselineWindow
+    ) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueueSize = maxQueueSize;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.baselineWindowNanos = baselineWindow.toNanos();
+        this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+        Gauge.builder("app.admission.queue", this, AdaptiveConcurrencyLimiter::getQueueDepth)
+                .description("Requests waiting for admission")
+                .register(meterRegistry);
+        Gauge.builder("app.admission.in-flight", this, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Admitted requests currently running")
+                .register(meterRegistry);
+        Gauge.builder("app.admission.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("app.admission.wait")
+                .description("Time admitted requests waited in the queue")
+                .register(meterRegistry);
+        this.queueFullRejections = Counter.builder("app.admission.rejected")
+                .tag("reason", "queue_full")
+                .description("Requests rejected by admission control")
+                .register(meterRegistry);
+        this.timeoutRejections = Counter.builder("app.admission.rejected")
+                .tag("reason", "timeout")
+                .description("Requests rejected by admission control")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Waits for a permit in FIFO order.
+     *
+     * @return false if the queue is full or no permit became available in time
+     */
+    public boolean tryAcquire() {
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            if (queue.isEmpty() && inFlight < (int) limit) {
+                inFlight++;
+                waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return true;
+            }
+            if (queue.size() >= maxQueueSize) {
+                queueFullRejections.increment();
+                return false;
+            }
+            Object ticket = new Object();
+            queue.addLast(ticket);
+            long remaining = maxWaitNanos;
+            try {
+                while (queue.peekFirst() != ticket || inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        timeoutRejections.increment();
+                        return false;
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                if (queue.remove(ticket)) {
+                    // The next ticket may be admissible now that this one left the head of the queue
+                    released.signalAll();
+                }
+            }
+            inFlight++;
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a permit and, if the request that held it succeeded, adapts the limit to its latency.
+     */
+    public void release(long latencyNanos, boolean successful) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (successful) {
+                adapt(latencyNanos);
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void adapt(long latencyNanos) {
+        long baselineNanos = updateBaseline(latencyNanos, System.nanoTime());
+        if (latencyNanos > baselineNanos * TOLERATED_SLOWDOWN) {
+            limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+        } else if (inFlight + 1 >= (int) limit) {
+            // Only grow while the limit is actually the bottleneck
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    private long updateBaseline(long latencyNanos, long now) {
+        long elapsed = now - windowStartNanos;
+        if (elapsed >= baselineWindowNanos) {
+            // After a whole window without samples, the previous minimum is just as stale
+            previousWindowMinNanos = elapsed < 2 * baselineWindowNanos ? windowMinNanos : Long.MAX_VALUE;
+            windowMinNanos = Long.MAX_VALUE;
+            windowStartNanos = now;
+        }
+        windowMinNanos = Math.min(windowMinNanos, latencyNanos);
+        return Math.min(windowMinNanos, previousWindowMinNanos);
+    }
+}
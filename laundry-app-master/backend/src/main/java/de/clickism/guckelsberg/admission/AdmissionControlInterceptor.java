@@ -0,0 +1,60 @@
+package de.clickism.guckelsberg.admission;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Admits mutating requests through the {@link AdaptiveConcurrencyLimiter} and answers with
+ * 429 Too Many Requests if they could not be admitted in time. Reads are never limited.
+ */
+@Component
+@RequiredArgsConstructor
+public class AdmissionControlInterceptor implements HandlerInterceptor {
+    private static final String ADMITTED_AT = AdmissionControlInterceptor.class.getName() + ".admittedAt";
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    @Value("${app.admission.retry-after:2s}")
+    private Duration retryAfter;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        if (!isMutation(request)) {
+            return true;
+        }
+        if (!limiter.tryAcquire()) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter.toSeconds()));
+            response.getWriter().write("Too many booking requests right now, please try again in a moment.");
+            return false;
+        }
+        request.setAttribute(ADMITTED_AT, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(ADMITTED_AT) instanceof Long admittedAt) {
+            request.removeAttribute(ADMITTED_AT);
+            boolean successful = ex == null && response.getStatus() >= 200 && response.getStatus() < 300;
+            limiter.release(System.nanoTime() - admittedAt, successful);
+        }
+    }
+
+    private static boolean isMutation(HttpServletRequest request) {
+        return switch (request.getMethod()) {
+            case "POST", "PUT", "PATCH", "DELETE" -> true;
+            default -> false;
+        };
+    }
+}
@@ -1,16 +1,19 @@
 package de.clickism.guckelsberg.auth;
 
+import de.clickism.guckelsberg.ratelimit.RateLimitInterceptor;
 import de.clickism.guckelsberg.user.User;
-import de.clickism.guckelsberg.user.UserRepository;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
@@ -24,34 +27,48 @@ public class AuthController {
     public static final String USERNAME_KEY = "roomNumber";
 
     private final AuthenticationManager authenticationManager;
-    private final UserRepository userRepository;
+    private final LoginBulkhead loginBulkhead;
+    private final RateLimitInterceptor rateLimitInterceptor;
 
     @PostMapping("login")
     public ResponseEntity<?> login(
             @RequestBody LoginRequest request,
+            HttpServletRequest httpRequest,
             HttpSession session
     ) {
+        long retryAfterSeconds = rateLimitInterceptor.tryAcquireLogin(request.roomNumber(), httpRequest);
+        if (retryAfterSeconds > 0) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                    .body(rateLimitInterceptor.rejectionMessage(RateLimitInterceptor.Group.LOGIN, retryAfterSeconds));
+        }
         try {
             UsernamePasswordAuthenticationToken authToken =
                     new UsernamePasswordAuthenticationToken(request.roomNumber(), request.password());
-            Authentication auth = authenticationManager.authenticate(authToken);
-            SecurityContextHolder.getContext().setAuthentication(auth);
-            session.setAttribute("SPRING_SECURITY_CONTEXT", SecurityContextHolder.getContext());
+            Authentication auth = loginBulkhead.authenticate(() -> authenticationManager.authenticate(authToken));
+            // A new context, the current one may be shared with concurrent requests of the session
+            SecurityContext context = SecurityContextHolder.createEmptyContext();
+            context.setAuthentication(auth);
+            SecurityContextHolder.setContext(context);
+            session.setAttribute("SPRING_SECURITY_CONTEXT", context);
             session.setAttribute(USERNAME_KEY, request.roomNumber());
             return ResponseEntity.ok().build();
         } catch (AuthenticationException e) {
             return ResponseEntity.status(HttpServletResponse.SC_UNAUTHORIZED).body("Wrong room number or password");
+        } catch (LoginRejectedException e) {
+            return ResponseEntity.status(HttpServletResponse.SC_SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(loginBulkhead.getRetryAfter().toSeconds()))
+                    .body(e.getMessage());
         }
     }
 
     @GetMapping("status")
     public ResponseEntity<?> getStatus(
             HttpServletRequest request,
-            Authentication auth
+            @CurrentUser User user
     ) {
         HttpSession session = request.getSession(false);
-        if (session != null && auth != null && auth.isAuthenticated()) {
-            User user = userRepository.findById(auth.getName()).orElseThrow();
+        if (session != null && user != null) {
             return ResponseEntity.ok().body(Map.of(
                     "status", "AUTHENTICATED",
                     "roomNumber", session.getAttribute(USERNAME_KEY),
@@ -0,0 +1,17 @@
+package de.clickism.guckelsberg.auth;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Injects the authenticated {@link de.clickism.guckelsberg.user.User} into a controller method,
+ * or null if the request is not authenticated or the user no longer exists.
+ *
+ * @see CurrentUserArgumentResolver
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CurrentUser {
+}
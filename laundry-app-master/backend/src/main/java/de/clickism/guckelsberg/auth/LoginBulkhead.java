@@ -0,0 +1,125 @@
+package de.clickism.guckelsberg.auth;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs password checks on a small dedicated pool with a bounded queue, so a login storm can only
+ * ever occupy that pool instead of every request thread.
+ * <p>
+ * Logins that find the queue full, or that are not done within the maximum wait, are rejected with
+ * a {@link LoginRejectedException} right away, which degrades logins while the API stays responsive.
+ */
+@Component
+public class LoginBulkhead {
+    private final ThreadPoolExecutor executor;
+    private final long maxWaitNanos;
+    private final Duration retryAfter;
+
+    private final MeterRegistry meterRegistry;
+    private final Counter queueFullRejections;
+    private final Counter timeoutRejections;
+
+    public LoginBulkhead(
+            MeterRegistry meterRegistry,
+            @Value("${app.login.threads:0}") int threads,
+            @Value("${app.login.queue-size:32}") int queueSize,
+            @Value("${app.login.max-wait:3s}") Duration maxWait,
+            @Value("${app.login.retry-after:2s}") Duration retryAfter
+    ) {
+        // Hashing is CPU bound, more threads than half the cores would only slow down everything else
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                Thread.ofPlatform().name("login-", 0).daemon().factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.maxWaitNanos = maxWait.toNanos();
+        this.retryAfter = retryAfter;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("app.login.queue", executor, e -> e.getQueue().size())
+                .description("Logins waiting for a hashing thread")
+                .register(meterRegistry);
+        Gauge.builder("app.login.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Logins currently checking a password")
+                .register(meterRegistry);
+        this.queueFullRejections = Counter.builder("app.login.rejected")
+                .tag("reason", "queue_full")
+                .description("Logins rejected by the login bulkhead")
+                .register(meterRegistry);
+        this.timeoutRejections = Counter.builder("app.login.rejected")
+                .tag("reason", "timeout")
+                .description("Logins rejected by the login bulkhead")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the authentication on the login pool and waits for its result.
+     *
+     * @throws AuthenticationException if the authentication failed
+     * @throws LoginRejectedException  if the login could not be run in time
+     */
+    public Authentication authenticate(Supplier<Authentication> authentication)
+            throws AuthenticationException, LoginRejectedException {
+        long start = System.nanoTime();
+        Future<Authentication> future;
+        try {
+            future = executor.submit(authentication::get);
+        } catch (RejectedExecutionException e) {
+            queueFullRejections.increment();
+            throw new LoginRejectedException("Too many logins right now, please try again in a moment.");
+        }
+        String outcome = "failure";
+        try {
+            Authentication result = future.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+            outcome = "success";
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timeoutRejections.increment();
+            outcome = "rejected";
+            throw new LoginRejectedException("Logging in takes longer than usual, please try again in a moment.");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            outcome = "rejected";
+            throw new LoginRejectedException("Login was interrupted.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            Timer.builder("app.login.duration")
+                    .tag("outcome", outcome)
+                    .description("Login latency including the wait for a hashing thread")
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
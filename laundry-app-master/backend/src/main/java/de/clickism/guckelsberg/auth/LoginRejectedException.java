@@ -0,0 +1,11 @@
+package de.clickism.guckelsberg.auth;
+
+/**
+ * Thrown if the {@link LoginBulkhead} could not check a login in time. Answered with
+ * 503 Service Unavailable, as the credentials were never looked at.
+ */
+public class LoginRejectedException extends RuntimeException {
+    public LoginRejectedException(String message) {
+        super(message);
+    }
+}
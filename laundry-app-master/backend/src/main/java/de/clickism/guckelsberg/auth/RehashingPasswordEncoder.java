@@ -0,0 +1,37 @@
+package de.clickism.guckelsberg.auth;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * BCrypt encoder that asks for an upgrade of every hash whose cost differs from the configured one,
+ * so lowering the cost is applied on login just like raising it.
+ */
+public class RehashingPasswordEncoder extends BCryptPasswordEncoder {
+    private final int strength;
+
+    public RehashingPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        Integer cost = costOf(encodedPassword);
+        return cost != null && cost != strength;
+    }
+
+    /**
+     * Gets the cost of a hash in the modular crypt format, e.g. {@code $2a$10$...}, or null if it is not one.
+     */
+    private static Integer costOf(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$'
+            || encodedPassword.charAt(3) != '$' || encodedPassword.charAt(6) != '$') {
+            return null;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package de.clickism.guckelsberg.auth;
+
+import de.clickism.guckelsberg.events.DomainEvent;
+import de.clickism.guckelsberg.events.DomainEventPublisher;
+import de.clickism.guckelsberg.user.UserRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stores the new hash of a password that was rehashed on login, because its cost differed from the
+ * configured one, see {@link RehashingPasswordEncoder}.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserPasswordUpgrader implements UserDetailsPasswordService {
+
+    private final UserRepository userRepository;
+    private final DomainEventPublisher events;
+
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.findById(user.getUsername()).ifPresent(existing -> {
+            existing.setPasswordHash(newPassword);
+            userRepository.save(existing);
+            events.publish(new DomainEvent.UserChanged(existing.getRoomNumber()));
+        });
+        return User.withUserDetails(user).password(newPassword).build();
+    }
+}
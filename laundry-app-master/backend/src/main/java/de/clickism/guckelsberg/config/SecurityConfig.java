@@ -1,5 +1,7 @@
 package de.clickism.guckelsberg.config;
 
+import de.clickism.guckelsberg.auth.RehashingPasswordEncoder;
+import de.clickism.guckelsberg.auth.UserPasswordUpgrader;
 import de.clickism.guckelsberg.user.User;
 import de.clickism.guckelsberg.user.UserRepository;
 import org.springframework.beans.factory.annotation.Value;
@@ -16,7 +18,6 @@ import org.springframework.security.config.annotation.web.configurers.AbstractHt
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.web.cors.CorsConfiguration;
@@ -32,12 +33,18 @@ import java.util.List;
 public class SecurityConfig {
 
     private final UserRepository userRepository;
+    private final UserPasswordUpgrader passwordUpgrader;
     private final String allowedOrigins;
+    private final int bcryptStrength;
 
     public SecurityConfig(UserRepository userRepository,
-                          @Value("${app.security.cors.allowed-origins:http://localhost:5173,http://192.168.0.23:5173}") String allowedOrigins) {
+                          UserPasswordUpgrader passwordUpgrader,
+                          @Value("${app.security.cors.allowed-origins:http://localhost:5173,http://192.168.0.23:5173}") String allowedOrigins,
+                          @Value("${app.security.bcrypt.strength:10}") int bcryptStrength) {
         this.userRepository = userRepository;
+        this.passwordUpgrader = passwordUpgrader;
         this.allowedOrigins = allowedOrigins;
+        this.bcryptStrength = bcryptStrength;
     }
 
     @Bean
@@ -64,7 +71,8 @@ public class SecurityConfig {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        // Hashes with a different cost are rehashed on the next successful login
+        return new RehashingPasswordEncoder(bcryptStrength);
     }
 
     @Bean
@@ -76,6 +84,7 @@ public class SecurityConfig {
     @Bean
     public DaoAuthenticationProvider authProvider() {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
+        // Loaded from the table, so a changed password or role takes effect at the next login
         authProvider.setUserDetailsService((roomNumber) -> {
             User user = userRepository.findUserByRoomNumber(roomNumber)
                     .orElseThrow(() -> new UsernameNotFoundException("User not found with room number: " + roomNumber));
@@ -86,6 +95,7 @@ public class SecurityConfig {
             );
         });
         authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setUserDetailsPasswordService(passwordUpgrader);
         return authProvider;
     }
 
@@ -0,0 +1,42 @@
+package de.clickism.guckelsberg.config;
+
+import de.clickism.guckelsberg.admission.AdmissionControlInterceptor;
+import de.clickism.guckelsberg.auth.CurrentUserArgumentResolver;
+import de.clickism.guckelsberg.ratelimit.RateLimitInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final RateLimitInterceptor rateLimitInterceptor;
+    private final AdmissionControlInterceptor admissionControlInterceptor;
+    private final CurrentUserArgumentResolver currentUserArgumentResolver;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Rate limiting comes first, so rejected requests never queue for admission
+        registry.addInterceptor(rateLimitInterceptor)
+                .addPathPatterns("/api/**");
+        // Only booking mutations go through admission control, everything else must stay responsive during the rush
+        registry.addInterceptor(admissionControlInterceptor)
+                .addPathPatterns(
+                        "/api/laundry/bookings",
+                        "/api/laundry/bookings/batch",
+                        "/api/rooftop/bookings",
+                        "/api/rooftop/bookings/requests",
+                        "/api/rooftop/bookings/requests/**"
+                );
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(currentUserArgumentResolver);
+    }
+}
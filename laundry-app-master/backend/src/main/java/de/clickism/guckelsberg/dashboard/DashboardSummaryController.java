@@ -1,12 +1,16 @@
 package de.clickism.guckelsberg.dashboard;
 
+import de.clickism.guckelsberg.auth.CurrentUser;
+import de.clickism.guckelsberg.user.User;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import static jakarta.servlet.http.HttpServletResponse.SC_UNAUTHORIZED;
+
 @RestController
 @RequestMapping("/api/dashboard")
 @RequiredArgsConstructor
@@ -16,7 +20,10 @@ public class DashboardSummaryController {
 
     @GetMapping("/summary")
     @PreAuthorize("isAuthenticated()")
-    public DashboardSummaryDto getSummary(Authentication authentication) {
-        return dashboardSummaryService.buildSummary(authentication.getName());
+    public ResponseEntity<DashboardSummaryDto> getSummary(@CurrentUser User user) {
+        if (user == null) {
+            return ResponseEntity.status(SC_UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(dashboardSummaryService.buildSummary(user));
     }
 }
\ No newline at end of file
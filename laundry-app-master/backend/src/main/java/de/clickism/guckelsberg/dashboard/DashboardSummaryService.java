@@ -6,146 +6,205 @@ import de.clickism.guckelsberg.dashboard.DashboardSummaryDto.LaundrySummaryDto.N
 import de.clickism.guckelsberg.dashboard.DashboardSummaryDto.LaundrySummaryDto.QuotaDto;
 import de.clickism.guckelsberg.dashboard.DashboardSummaryDto.RooftopSummaryDto;
 import de.clickism.guckelsberg.dashboard.DashboardSummaryDto.RooftopSummaryDto.NextRooftopBookingDto;
-import de.clickism.guckelsberg.laundry.LaundryBooking;
+import de.clickism.guckelsberg.etag.AggregateVersions;
 import de.clickism.guckelsberg.laundry.LaundryBookingRepository;
+import de.clickism.guckelsberg.laundry.LaundryBookingView;
 import de.clickism.guckelsberg.laundry.LaundryMachine;
+import de.clickism.guckelsberg.laundry.LaundryQuotaLedger;
 import de.clickism.guckelsberg.laundry.LimitsChecker;
-import de.clickism.guckelsberg.rooftop.RooftopBooking;
+import de.clickism.guckelsberg.metrics.StageMetrics;
 import de.clickism.guckelsberg.rooftop.RooftopBookingRepository;
 import de.clickism.guckelsberg.rooftop.RooftopBookingRequest;
 import de.clickism.guckelsberg.rooftop.RooftopBookingRequestRepository;
 import de.clickism.guckelsberg.user.User;
-import de.clickism.guckelsberg.user.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.temporal.TemporalAdjusters;
-import java.util.Comparator;
-import java.util.List;
-import java.util.Optional;
-
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static de.clickism.guckelsberg.laundry.LaundryUtils.nextSlotBoundary;
+
+/**
+ * Builds the dashboard summary from aggregate queries and caches it per room number.
+ * <p>
+ * A cached summary is used while the room's {@link AggregateVersions#room version} is unchanged,
+ * i.e. until one of the resident's bookings, requests or quotas changes, and at most until the next
+ * slot boundary, at which bookings turn into past ones. The admin counts are shared by all admins
+ * and cached the same way against the versions of all bookings and requests.
+ */
 @Service
 @RequiredArgsConstructor
 public class DashboardSummaryService {
+    private static final String METRICS = "dashboard.summary";
 
-    private final UserRepository userRepository;
     private final LaundryBookingRepository laundryBookingRepository;
     private final RooftopBookingRepository rooftopBookingRepository;
     private final RooftopBookingRequestRepository requestRepository;
-
-    public DashboardSummaryDto buildSummary(String roomNumber) {
-        User user = userRepository.findUserByRoomNumber(roomNumber)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-
-        LocalDate today = LocalDate.now();
-        LocalDate weekStart = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
-        LocalDate weekEnd = today.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY));
-
-        LaundrySummaryDto laundrySummary = buildLaundrySummary(user, today, weekStart, weekEnd);
-        RooftopSummaryDto rooftopSummary = buildRooftopSummary(user, today);
-        AdminSummaryDto adminSummary = buildAdminSummary(user, today);
-
-        return new DashboardSummaryDto(laundrySummary, rooftopSummary, adminSummary);
+    private final LaundryQuotaLedger quotaLedger;
+    private final AggregateVersions versions;
+    private final StageMetrics stageMetrics;
+
+    private final Map<String, CachedSummary> summaries = new ConcurrentHashMap<>();
+    private volatile CachedAdminCounts adminCounts;
+
+    public DashboardSummaryDto buildSummary(User user) {
+        String roomNumber = user.getRoomNumber();
+        LocalDateTime now = LocalDateTime.now();
+        // Read the version before querying, so a change committed in between is never cached as current
+        long version = versions.version(AggregateVersions.room(roomNumber));
+        CachedSummary cached = summaries.get(roomNumber);
+        boolean hit = cached != null && cached.isValid(version, now);
+        stageMetrics.cache(METRICS, hit);
+        if (!hit) {
+            cached = computeSummary(user, version, now);
+            summaries.put(roomNumber, cached);
+        }
+        User.Role role = cached.role();
+        AdminSummaryDto adminSummary = stageMetrics.time(METRICS, "admin", () -> buildAdminSummary(role, now));
+        return new DashboardSummaryDto(cached.laundry(), cached.rooftop(), adminSummary);
     }
 
-    private LaundrySummaryDto buildLaundrySummary(User user, LocalDate today, LocalDate weekStart, LocalDate weekEnd) {
-        List<LaundryBooking> upcomingBookings = laundryBookingRepository
-                .findByBookerAndDateGreaterThanEqualOrderByDateAscSlotStartAsc(user, today)
-                .stream()
-                .filter(booking -> !booking.isInPast())
-                .toList();
+    @Scheduled(cron = "0 0 3 * * *")
+    public void evictExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        summaries.values().removeIf(summary -> !summary.validUntil().isAfter(now));
+    }
 
-        LaundryBooking nextBooking = upcomingBookings.stream()
-                .min(Comparator.comparing(LaundryBooking::getDate)
-                        .thenComparing(LaundryBooking::getSlotStart))
-                .orElse(null);
+    private CachedSummary computeSummary(User user, long version, LocalDateTime now) {
+        String roomNumber = user.getRoomNumber();
+        LocalDate today = now.toLocalDate();
+        int minuteOfDay = now.getHour() * 60 + now.getMinute();
 
-        long washerUsed = laundryBookingRepository
-                .findByBookerAndDateBetweenAndMachine_Type(user, weekStart, weekEnd, LaundryMachine.MachineType.WASHER)
+        LaundryBookingView nextBooking = stageMetrics.time(METRICS, "next-booking", () -> laundryBookingRepository
+                .findUpcomingViewsByBooker(roomNumber, today, minuteOfDay, Limit.of(1))
                 .stream()
-                .mapToLong(b -> Optional.ofNullable(b.getMachine().getSlotDuration()).orElse(LaundryMachine.BASE_SLOT_DURATION))
-                .sum();
-        long washerQuota = Optional.ofNullable(user.getMaxWasherMinutesPerWeek())
-                .orElse(LimitsChecker.DEFAULT_MAX_WASHER_MINUTES_PER_USER_PER_WEEK);
+                .findFirst()
+                .orElse(null));
+        LaundrySummaryDto laundrySummary = stageMetrics.time(METRICS, "laundry",
+                () -> buildLaundrySummary(user, nextBooking, today, minuteOfDay));
+        RooftopSummaryDto rooftopSummary = stageMetrics.time(METRICS, "rooftop",
+                () -> buildRooftopSummary(roomNumber, today));
+
+        LocalDateTime validUntil = nextSlotBoundary(now);
+        if (nextBooking != null) {
+            // Machines may have slots shorter than the base slot, the next booking can end before the boundary
+            LocalDateTime nextBookingEnd = slotStartTime(nextBooking)
+                    .plusMinutes(nextBooking.getSlotDuration())
+                    .plusMinutes(1);
+            if (nextBookingEnd.isBefore(validUntil)) {
+                validUntil = nextBookingEnd;
+            }
+        }
+        return new CachedSummary(version, validUntil, user.getRole(), laundrySummary, rooftopSummary);
+    }
 
-        long dryerUsed = laundryBookingRepository
-                .findByBookerAndDateBetweenAndMachine_Type(user, weekStart, weekEnd, LaundryMachine.MachineType.DRYER)
-                .stream()
-                .mapToLong(b -> Optional.ofNullable(b.getMachine().getSlotDuration()).orElse(LaundryMachine.BASE_SLOT_DURATION))
-                .sum();
-        long dryerQuota = Optional.ofNullable(user.getMaxDryerMinutesPerWeek())
-                .orElse(LimitsChecker.DEFAULT_MAX_DRYER_MINUTES_PER_USER_PER_WEEK);
+    private LaundrySummaryDto buildLaundrySummary(User user, LaundryBookingView nextBooking,
+                                                  LocalDate today, int minuteOfDay) {
+        Map<LaundryMachine.MachineType, Long> usedMinutes = quotaLedger.getUsedMinutesPerType(user, today);
+        long washerQuota = LimitsChecker.getMaxMinutesPerWeek(user, LaundryMachine.MachineType.WASHER);
+        long dryerQuota = LimitsChecker.getMaxMinutesPerWeek(user, LaundryMachine.MachineType.DRYER);
 
-        long upcomingCount = upcomingBookings.stream()
-                .filter(booking -> !booking.getDate().isAfter(today.plusDays(7)))
-                .count();
+        long upcomingCount = laundryBookingRepository.countUpcomingByBooker(
+                user.getRoomNumber(), today, minuteOfDay, today.plusDays(7));
 
         NextLaundryBookingDto next = null;
         if (nextBooking != null) {
-            LocalDateTime start = nextBooking.getSlotStartTime();
             next = new NextLaundryBookingDto(
-                    nextBooking.getMachine().getName(),
+                    nextBooking.getMachineName(),
                     nextBooking.getDate(),
                     nextBooking.getSlotStart(),
-                    start
+                    slotStartTime(nextBooking)
             );
         }
 
         return new LaundrySummaryDto(
                 next,
-                new QuotaDto(washerUsed, washerQuota),
-                new QuotaDto(dryerUsed, dryerQuota),
+                new QuotaDto(usedMinutes.get(LaundryMachine.MachineType.WASHER), washerQuota),
+                new QuotaDto(usedMinutes.get(LaundryMachine.MachineType.DRYER), dryerQuota),
                 upcomingCount
         );
     }
 
-    private RooftopSummaryDto buildRooftopSummary(User user, LocalDate today) {
-        RooftopBooking nextBooking = rooftopBookingRepository.findByBookerOrderByDateDesc(user)
-                .stream()
-                .filter(booking -> !booking.getDate().isBefore(today))
-                .min(Comparator.comparing(RooftopBooking::getDate))
+    private RooftopSummaryDto buildRooftopSummary(String roomNumber, LocalDate today) {
+        NextRooftopBookingDto next = rooftopBookingRepository
+                .findFirstByBooker_RoomNumberAndDateGreaterThanEqualOrderByDateAsc(roomNumber, today)
+                .map(booking -> new NextRooftopBookingDto(booking.getDate(), booking.getReason()))
                 .orElse(null);
 
-        long pendingRequests = requestRepository.search(user, RooftopBookingRequest.Status.REQUESTED, today, null)
-                .size();
-
-        NextRooftopBookingDto next = null;
-        if (nextBooking != null) {
-            next = new NextRooftopBookingDto(
-                    nextBooking.getDate(),
-                    nextBooking.getReason()
-            );
-        }
+        long pendingRequests = requestRepository.countByBooker_RoomNumberAndStatusAndDateGreaterThanEqual(
+                roomNumber, RooftopBookingRequest.Status.REQUESTED, today);
 
         return new RooftopSummaryDto(next, pendingRequests);
     }
 
-    private AdminSummaryDto buildAdminSummary(User user, LocalDate today) {
-        boolean isLaundryAdmin = user.getRole() == User.Role.LAUNDRY_ADMIN || user.getRole() == User.Role.MASTER_ADMIN;
-        boolean isRooftopAdmin = user.getRole() == User.Role.ROOFTOP_ADMIN || user.getRole() == User.Role.MASTER_ADMIN;
-
-        Long pendingRequests = null;
-        if (isRooftopAdmin) {
-            pendingRequests = (long) requestRepository.search(null, RooftopBookingRequest.Status.REQUESTED, today, null).size();
+    private AdminSummaryDto buildAdminSummary(User.Role role, LocalDateTime now) {
+        boolean isLaundryAdmin = role == User.Role.LAUNDRY_ADMIN || role == User.Role.MASTER_ADMIN;
+        boolean isRooftopAdmin = role == User.Role.ROOFTOP_ADMIN || role == User.Role.MASTER_ADMIN;
+        if (!isLaundryAdmin && !isRooftopAdmin) {
+            return null;
         }
 
-        Long todaysLaundryBookings = null;
-        if (isLaundryAdmin) {
-            todaysLaundryBookings = (long) laundryBookingRepository.findByDate(today).size();
+        long version = versions.version(
+                AggregateVersions.LAUNDRY_BOOKINGS,
+                AggregateVersions.ROOFTOP_BOOKINGS,
+                AggregateVersions.ROOFTOP_REQUESTS
+        );
+        CachedAdminCounts counts = adminCounts;
+        boolean hit = counts != null && counts.isValid(version, now);
+        stageMetrics.cache(METRICS + ".admin", hit);
+        if (!hit) {
+            counts = computeAdminCounts(version, now);
+            adminCounts = counts;
         }
 
-        Long upcomingEvents = null;
-        if (isRooftopAdmin) {
-            upcomingEvents = (long) rooftopBookingRepository.findByDateBetween(today, today.plusDays(7)).size();
-        }
+        return new AdminSummaryDto(
+                isRooftopAdmin ? counts.pendingRooftopRequests() : null,
+                isLaundryAdmin ? counts.todaysLaundryBookings() : null,
+                isRooftopAdmin ? counts.upcomingRooftopEvents() : null
+        );
+    }
 
-        if (pendingRequests == null && todaysLaundryBookings == null && upcomingEvents == null) {
-            return null;
+    private CachedAdminCounts computeAdminCounts(long version, LocalDateTime now) {
+        LocalDate today = now.toLocalDate();
+        return new CachedAdminCounts(
+                version,
+                today.plusDays(1).atStartOfDay(),
+                requestRepository.countByStatusAndDateGreaterThanEqual(RooftopBookingRequest.Status.REQUESTED, today),
+                laundryBookingRepository.countByDate(today),
+                rooftopBookingRepository.countByDateBetween(today, today.plusDays(7))
+        );
+    }
+
+    private static LocalDateTime slotStartTime(LaundryBookingView booking) {
+        return booking.getDate().atStartOfDay().plusMinutes(booking.getSlotStart());
+    }
+
+    private record CachedSummary(
+            long version,
+            LocalDateTime validUntil,
+            User.Role role,
+            LaundrySummaryDto laundry,
+            RooftopSummaryDto rooftop
+    ) {
+        boolean isValid(long currentVersion, LocalDateTime now) {
+            return version == currentVersion && now.isBefore(validUntil);
         }
+    }
 
-        return new AdminSummaryDto(pendingRequests, todaysLaundryBookings, upcomingEvents);
+    private record CachedAdminCounts(
+            long version,
+            LocalDateTime validUntil,
+            long pendingRooftopRequests,
+            long todaysLaundryBookings,
+            long upcomingRooftopEvents
+    ) {
+        boolean isValid(long currentVersion, LocalDateTime now) {
+            return version == currentVersion && now.isBefore(validUntil);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,153 @@
+package de.clickism.guckelsberg.etag;
+
+import de.clickism.guckelsberg.events.AfterCommit;
+import de.clickism.guckelsberg.events.DomainEvent;
+import de.clickism.guckelsberg.events.DomainEventOrder;
+import de.clickism.guckelsberg.laundry.LaundryBooking;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version counters of the aggregates behind polled read endpoints, used to derive their ETags.
+ * Versions are bumped by committed {@link DomainEvent}s, or explicitly for aggregates without events.
+ * <p>
+ * Every bump takes the next value of one global sequence, so the highest version of a set of aggregates
+ * changes whenever any of them changes. Aggregates without a recorded version share a floor version,
+ * which is raised whenever versions are dropped, so a dropped counter can never repeat an earlier ETag.
+ * ETags also contain the startup time, since versions are not persisted.
+ */
+@Component
+public class AggregateVersions {
+    public static final String LAUNDRY_BOOKINGS = "laundry-bookings";
+    public static final String LAUNDRY_MACHINES = "laundry-machines";
+    public static final String LAUNDRY_OVERRIDES = "laundry-overrides";
+    public static final String ROOFTOP_BOOKINGS = "rooftop-bookings";
+    public static final String ROOFTOP_REQUESTS = "rooftop-requests";
+    public static final String PRESIDIUM = "presidium";
+
+    private static final String LAUNDRY_DAY_PREFIX = "laundry-day:";
+    private static final String ROOFTOP_MONTH_PREFIX = "rooftop-month:";
+    private static final String ROOM_PREFIX = "room:";
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+    private volatile long floor;
+
+    public static String laundryDay(LocalDate date) {
+        return LAUNDRY_DAY_PREFIX + date;
+    }
+
+    public static String rooftopMonth(LocalDate date) {
+        return ROOFTOP_MONTH_PREFIX + YearMonth.from(date);
+    }
+
+    /**
+     * Everything about a single resident: their account, bookings, requests and quota.
+     */
+    public static String room(String roomNumber) {
+        return ROOM_PREFIX + roomNumber;
+    }
+
+    /**
+     * Gets the highest version of the given aggregates, which changes whenever any of them changes.
+     */
+    public long version(String... keys) {
+        long base = floor;
+        long version = base;
+        for (String key : keys) {
+            version = Math.max(version, versions.getOrDefault(key, base));
+        }
+        return version;
+    }
+
+    /**
+     * Gets the strong ETag of a response built from the given aggregates.
+     */
+    public String etag(String... keys) {
+        return etag(null, keys);
+    }
+
+    /**
+     * Gets the strong ETag of a response built from the given aggregates.
+     *
+     * @param variant anything else the response depends on, e.g. the current date
+     */
+    public String etag(@Nullable Object variant, String... keys) {
+        return "\"" + epoch + "-" + version(keys) + (variant != null ? "-" + variant : "") + "\"";
+    }
+
+    /**
+     * Bumps the versions of the given aggregates once the current transaction commits, so a new
+     * version is never handed out before the data it stands for is visible.
+     */
+    public void bump(String... keys) {
+        AfterCommit.run(() -> increment(keys));
+    }
+
+    @Order(DomainEventOrder.VERSIONS)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDomainEvent(DomainEvent event) {
+        increment(keysOf(event));
+    }
+
+    /**
+     * Changes every ETag, for changes that cannot be attributed to single aggregates.
+     */
+    public void bumpAll() {
+        floor = sequence.incrementAndGet();
+    }
+
+    private void increment(String... keys) {
+        for (String key : keys) {
+            versions.put(key, sequence.incrementAndGet());
+        }
+    }
+
+    private static String[] keysOf(DomainEvent event) {
+        return switch (event) {
+            case DomainEvent.BookingCreated created -> laundryBookingKeys(created.booking());
+            case DomainEvent.BookingDeleted deleted -> laundryBookingKeys(deleted.booking());
+            case DomainEvent.OverrideChanged ignored -> new String[]{LAUNDRY_OVERRIDES};
+            case DomainEvent.MachineChanged ignored -> new String[]{LAUNDRY_MACHINES};
+            case DomainEvent.RooftopBookingChanged changed -> new String[]{
+                    ROOFTOP_BOOKINGS,
+                    rooftopMonth(changed.booking().getDate()),
+                    room(changed.booking().getBooker().getRoomNumber())
+            };
+            case DomainEvent.RooftopRequestChanged changed -> new String[]{
+                    ROOFTOP_REQUESTS,
+                    room(changed.request().getBooker().getRoomNumber())
+            };
+            case DomainEvent.UserChanged changed -> new String[]{room(changed.roomNumber())};
+        };
+    }
+
+    private static String[] laundryBookingKeys(LaundryBooking booking) {
+        return new String[]{
+                LAUNDRY_BOOKINGS,
+                laundryDay(booking.getDate()),
+                room(booking.getBooker().getRoomNumber())
+        };
+    }
+
+    @Scheduled(cron = "0 0 3 * * *")
+    public void evictPast() {
+        String yesterday = laundryDay(LocalDate.now().minusDays(1));
+        String lastMonth = rooftopMonth(LocalDate.now().minusMonths(1));
+        // Raise the floor first, so an evicted aggregate never falls back to a version it had before
+        bumpAll();
+        versions.keySet().removeIf(key ->
+                (key.startsWith(LAUNDRY_DAY_PREFIX) && key.compareTo(yesterday) < 0)
+                || (key.startsWith(ROOFTOP_MONTH_PREFIX) && key.compareTo(lastMonth) < 0));
+    }
+}
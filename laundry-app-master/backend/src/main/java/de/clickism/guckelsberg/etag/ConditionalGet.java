@@ -0,0 +1,31 @@
+package de.clickism.guckelsberg.etag;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+import static jakarta.servlet.http.HttpServletResponse.SC_NOT_MODIFIED;
+
+public class ConditionalGet {
+
+    /**
+     * Answers a matching {@code If-None-Match} with 304 without building the body,
+     * otherwise responds with the body supplied.
+     */
+    public static <T> ResponseEntity<T> respond(WebRequest request, String etag, CacheControl cacheControl,
+                                                Supplier<T> body) {
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(SC_NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).body(body.get());
+    }
+
+    /**
+     * Lets clients keep the response, but only after revalidating it.
+     */
+    public static CacheControl revalidate() {
+        return CacheControl.noCache().cachePrivate();
+    }
+}
@@ -0,0 +1,157 @@
+package de.clickism.guckelsberg.events;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import de.clickism.guckelsberg.laundry.LaundryBooking;
+import de.clickism.guckelsberg.laundry.LaundrySlotOverride;
+import de.clickism.guckelsberg.rooftop.RooftopBooking;
+import de.clickism.guckelsberg.rooftop.RooftopBookingRequest;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Notification pushed to subscribed clients whenever availability data changed.
+ * Clients are expected to refetch the affected data rather than apply the event themselves.
+ * <p>
+ * Rooftop request events are only sent to the requester and to rooftop admins, see {@link #isVisibleTo}.
+ *
+ * @param machineName the affected machine, null for rooftop events
+ * @param startDate   first affected date
+ * @param endDate     last affected date (inclusive)
+ * @param status      the new status of a rooftop request, null otherwise
+ * @param own         whether the recipient is the booker or requester, see {@link #forRecipient}
+ * @param roomNumber  the booker or requester, never sent to clients
+ */
+public record AvailabilityEvent(
+        Type type,
+        Long id,
+        String machineName,
+        LocalDate startDate,
+        LocalDate endDate,
+        String status,
+        boolean own,
+        @JsonIgnore String roomNumber
+) {
+
+    /**
+     * Gets the events clients need to be notified of for the domain event.
+     */
+    public static List<AvailabilityEvent> of(DomainEvent event) {
+        return switch (event) {
+            case DomainEvent.BookingCreated created -> List.of(bookingCreated(created.booking()));
+            case DomainEvent.BookingDeleted deleted -> List.of(bookingDeleted(deleted.booking()));
+            case DomainEvent.OverrideChanged changed -> changed.previousStartDate() == null
+                    ? List.of(overrideChanged(changed.override()))
+                    // The update may have moved the override away from its old range
+                    : List.of(overrideChanged(changed.override(), changed.previousStartDate(), changed.previousEndDate()),
+                    overrideChanged(changed.override()));
+            case DomainEvent.RooftopBookingChanged changed -> List.of(rooftopBookingChanged(changed.booking()));
+            case DomainEvent.RooftopRequestChanged changed -> List.of(rooftopRequestChanged(changed.request()));
+            case DomainEvent.MachineChanged ignored -> List.of();
+            case DomainEvent.UserChanged ignored -> List.of();
+        };
+    }
+
+    /**
+     * Checks whether a subscriber may see the event at all.
+     */
+    public boolean isVisibleTo(String recipientRoomNumber, boolean rooftopAdmin) {
+        return type != Type.ROOFTOP_REQUEST_CHANGED || rooftopAdmin || recipientRoomNumber.equals(roomNumber);
+    }
+
+    /**
+     * Gets the event as sent to the given subscriber, which tells it whether the change was its own.
+     */
+    public AvailabilityEvent forRecipient(String recipientRoomNumber) {
+        return new AvailabilityEvent(type, id, machineName, startDate, endDate, status,
+                recipientRoomNumber.equals(roomNumber), roomNumber);
+    }
+
+    public static AvailabilityEvent bookingCreated(LaundryBooking booking) {
+        return laundryBooking(Type.BOOKING_CREATED, booking);
+    }
+
+    public static AvailabilityEvent bookingDeleted(LaundryBooking booking) {
+        return laundryBooking(Type.BOOKING_DELETED, booking);
+    }
+
+    public static AvailabilityEvent overrideChanged(LaundrySlotOverride override) {
+        return overrideChanged(override, override.getStartDate(), override.getEndDate());
+    }
+
+    private static AvailabilityEvent overrideChanged(LaundrySlotOverride override, LocalDate startDate, LocalDate endDate) {
+        return new AvailabilityEvent(
+                Type.OVERRIDE_CHANGED,
+                override.getId(),
+                override.getMachine().getName(),
+                startDate,
+                endDate,
+                null,
+                false,
+                null
+        );
+    }
+
+    public static AvailabilityEvent rooftopBookingChanged(RooftopBooking booking) {
+        return new AvailabilityEvent(
+                Type.ROOFTOP_BOOKING_CHANGED,
+                booking.getId(),
+                null,
+                booking.getDate(),
+                booking.getDate(),
+                null,
+                false,
+                booking.getBooker().getRoomNumber()
+        );
+    }
+
+    public static AvailabilityEvent rooftopRequestChanged(RooftopBookingRequest request) {
+        return new AvailabilityEvent(
+                Type.ROOFTOP_REQUEST_CHANGED,
+                request.getId(),
+                null,
+                request.getDate(),
+                request.getDate(),
+                request.getStatus().name(),
+                false,
+                request.getBooker().getRoomNumber()
+        );
+    }
+
+    private static AvailabilityEvent laundryBooking(Type type, LaundryBooking booking) {
+        // A booking running past midnight also changes the availability of the next day
+        return new AvailabilityEvent(
+                type,
+                booking.getId(),
+                booking.getMachine().getName(),
+                booking.getDate(),
+                booking.getDate().plusDays(1),
+                null,
+                false,
+                booking.getBooker().getRoomNumber()
+        );
+    }
+
+    public enum Type {
+        BOOKING_CREATED(Topic.LAUNDRY),
+        BOOKING_DELETED(Topic.LAUNDRY),
+        OVERRIDE_CHANGED(Topic.LAUNDRY),
+        ROOFTOP_BOOKING_CHANGED(Topic.ROOFTOP),
+        ROOFTOP_REQUEST_CHANGED(Topic.ROOFTOP);
+
+        private final Topic topic;
+
+        Type(Topic topic) {
+            this.topic = topic;
+        }
+
+        public Topic getTopic() {
+            return topic;
+        }
+    }
+
+    public enum Topic {
+        LAUNDRY,
+        ROOFTOP
+    }
+}
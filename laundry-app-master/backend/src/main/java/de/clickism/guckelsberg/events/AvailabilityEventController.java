@@ -0,0 +1,39 @@
+package de.clickism.guckelsberg.events;
+
+import de.clickism.guckelsberg.auth.CurrentUser;
+import de.clickism.guckelsberg.user.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+import static jakarta.servlet.http.HttpServletResponse.SC_UNAUTHORIZED;
+
+@RestController
+@RequestMapping("/api/events")
+@RequiredArgsConstructor
+public class AvailabilityEventController {
+
+    private final AvailabilityEventService eventService;
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribe(
+            @CurrentUser User user,
+            @RequestParam(required = false) Set<AvailabilityEvent.Topic> topics,
+            @RequestParam(required = false) String machineName,
+            @RequestParam(required = false) LocalDate from,
+            @RequestParam(required = false) LocalDate to
+    ) {
+        if (user == null) {
+            return ResponseEntity.status(SC_UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(eventService.subscribe(user, topics, machineName, from, to));
+    }
+}
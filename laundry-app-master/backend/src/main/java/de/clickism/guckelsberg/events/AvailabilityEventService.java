@@ -0,0 +1,163 @@
+package de.clickism.guckelsberg.events;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import de.clickism.guckelsberg.user.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps track of clients subscribed to {@link AvailabilityEvent}s and pushes events to them.
+ * <p>
+ * Emitters are backed by asynchronous requests, so idle subscribers do not occupy a request thread.
+ * Events are derived from committed {@link DomainEvent}s and are sent from virtual threads,
+ * so a slow client never delays the request that caused the event.
+ */
+@Slf4j
+@Service
+public class AvailabilityEventService {
+
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final ExecutorService dispatcher = Executors.newVirtualThreadPerTaskExecutor();
+    private final Counter sentEvents;
+    private final long timeoutMillis;
+
+    public AvailabilityEventService(
+            MeterRegistry meterRegistry,
+            @Value("${app.events.timeout:30m}") Duration timeout
+    ) {
+        this.timeoutMillis = timeout.toMillis();
+        Gauge.builder("app.events.connections", subscriptions, Set::size)
+                .description("Open availability event subscriptions")
+                .register(meterRegistry);
+        this.sentEvents = Counter.builder("app.events.sent")
+                .description("Availability events sent to subscribers")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a new subscription for the user. All filters are optional, a null filter matches every
+     * event the user may see.
+     */
+    public SseEmitter subscribe(
+            User user,
+            @Nullable Set<AvailabilityEvent.Topic> topics,
+            @Nullable String machineName,
+            @Nullable LocalDate from,
+            @Nullable LocalDate to
+    ) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        User.Role role = user.getRole();
+        boolean rooftopAdmin = role == User.Role.ROOFTOP_ADMIN || role == User.Role.MASTER_ADMIN;
+        Subscription subscription = new Subscription(emitter, user.getRoomNumber(), rooftopAdmin, topics, machineName, from, to);
+        emitter.onCompletion(() -> subscriptions.remove(subscription));
+        emitter.onTimeout(() -> subscriptions.remove(subscription));
+        emitter.onError(e -> subscriptions.remove(subscription));
+        subscriptions.add(subscription);
+        return emitter;
+    }
+
+    /**
+     * Pushes the availability events of committed domain events to all matching subscribers.
+     * Identical events within a batch are only sent once.
+     */
+    @EventListener
+    public void onDomainEvents(DomainEventBatch batch) {
+        if (subscriptions.isEmpty()) return;
+        List<AvailabilityEvent> events = batch.events().stream()
+                .flatMap(event -> AvailabilityEvent.of(event).stream())
+                .distinct()
+                .toList();
+        dispatcher.execute(() -> events.forEach(this::dispatch));
+    }
+
+    /**
+     * Keeps idle connections open through proxies and detects clients that went away.
+     */
+    @Scheduled(fixedRateString = "${app.events.heartbeat-interval:PT25S}")
+    public void sendHeartbeats() {
+        if (subscriptions.isEmpty()) return;
+        dispatcher.execute(() -> subscriptions.forEach(subscription ->
+                send(subscription, SseEmitter.event().comment("heartbeat"))));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        subscriptions.forEach(subscription -> subscription.emitter().complete());
+    }
+
+    private void dispatch(AvailabilityEvent event) {
+        for (Subscription subscription : subscriptions) {
+            if (subscription.matches(event)) {
+                send(subscription, SseEmitter.event()
+                        .name(event.type().name())
+                        .data(event.forRecipient(subscription.roomNumber())));
+                sentEvents.increment();
+            }
+        }
+    }
+
+    private void send(Subscription subscription, SseEmitter.SseEventBuilder event) {
+        try {
+            subscription.emitter().send(event);
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping availability event subscription: {}", e.getMessage());
+            subscriptions.remove(subscription);
+            subscription.emitter().complete();
+        }
+    }
+
+    private record Subscription(
+            SseEmitter emitter,
+            String roomNumber,
+            boolean rooftopAdmin,
+            Set<AvailabilityEvent.Topic> topics,
+            String machineName,
+            LocalDate from,
+            LocalDate to
+    ) {
+        boolean matches(AvailabilityEvent event) {
+            if (!event.isVisibleTo(roomNumber, rooftopAdmin)) {
+                return false;
+            }
+            if (topics != null && !topics.isEmpty() && !topics.contains(event.type().getTopic())) {
+                return false;
+            }
+            if (machineName != null && event.machineName() != null && !machineName.equals(event.machineName())) {
+                return false;
+            }
+            if (from != null && event.endDate().isBefore(from)) {
+                return false;
+            }
+            return to == null || !event.startDate().isAfter(to);
+        }
+
+        // Identity semantics, the same filters may be used by many clients
+        @Override
+        public boolean equals(Object o) {
+            return this == o;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this);
+        }
+    }
+}
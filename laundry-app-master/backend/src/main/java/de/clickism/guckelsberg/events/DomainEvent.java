@@ -0,0 +1,69 @@
+package de.clickism.guckelsberg.events;
+
+import de.clickism.guckelsberg.laundry.LaundryBooking;
+import de.clickism.guckelsberg.laundry.LaundrySlotOverride;
+import de.clickism.guckelsberg.rooftop.RooftopBooking;
+import de.clickism.guckelsberg.rooftop.RooftopBookingRequest;
+import org.springframework.lang.Nullable;
+
+import java.time.LocalDate;
+
+/**
+ * Something that changed in the domain, published with {@link DomainEventPublisher}.
+ * <p>
+ * Listeners receive events only after the mutating transaction committed. Derived state that booking
+ * validation relies on listens with ordered {@code @TransactionalEventListener}s, everything else with
+ * {@code @EventListener}s for {@link DomainEventBatch}es, which are dispatched off the request thread.
+ * Events reference the mutated entities, which must not be modified once the event is published.
+ */
+public sealed interface DomainEvent {
+
+    record BookingCreated(LaundryBooking booking) implements DomainEvent {
+    }
+
+    record BookingDeleted(LaundryBooking booking) implements DomainEvent {
+    }
+
+    /**
+     * @param previousStartDate the start date before an update, null if the override is new or unchanged
+     * @param previousEndDate   the end date before an update, null if the override is new or unchanged
+     * @param deleted           whether the override was deleted
+     */
+    record OverrideChanged(
+            LaundrySlotOverride override,
+            @Nullable LocalDate previousStartDate,
+            @Nullable LocalDate previousEndDate,
+            boolean deleted
+    ) implements DomainEvent {
+        public static OverrideChanged created(LaundrySlotOverride override) {
+            return new OverrideChanged(override, null, null, false);
+        }
+
+        public static OverrideChanged updated(LaundrySlotOverride override, LocalDate previousStartDate,
+                                              LocalDate previousEndDate) {
+            return new OverrideChanged(override, previousStartDate, previousEndDate, false);
+        }
+
+        public static OverrideChanged deleted(LaundrySlotOverride override) {
+            return new OverrideChanged(override, null, null, true);
+        }
+    }
+
+    record MachineChanged(String machineName, boolean deleted) implements DomainEvent {
+    }
+
+    record RooftopBookingChanged(RooftopBooking booking) implements DomainEvent {
+    }
+
+    /**
+     * A request was submitted, approved, rejected or cancelled.
+     */
+    record RooftopRequestChanged(RooftopBookingRequest request) implements DomainEvent {
+    }
+
+    /**
+     * A user account was created, updated or deleted.
+     */
+    record UserChanged(String roomNumber) implements DomainEvent {
+    }
+}
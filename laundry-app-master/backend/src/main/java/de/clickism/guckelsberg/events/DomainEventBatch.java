@@ -0,0 +1,10 @@
+package de.clickism.guckelsberg.events;
+
+import java.util.List;
+
+/**
+ * Committed {@link DomainEvent}s in commit order, dispatched together by {@link DomainEventPublisher}
+ * so bursts such as batch bookings reach asynchronous listeners at once.
+ */
+public record DomainEventBatch(List<DomainEvent> events) {
+}
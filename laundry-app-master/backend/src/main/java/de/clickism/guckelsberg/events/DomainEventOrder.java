@@ -0,0 +1,14 @@
+package de.clickism.guckelsberg.events;
+
+/**
+ * Order of the after-commit listeners of {@link DomainEvent}s.
+ * <p>
+ * Caches computed from the indexes are invalidated only after the indexes were updated, otherwise
+ * a concurrent request could recompute them from a stale index. Versions are bumped last, so a new
+ * version is never handed out for stale data.
+ */
+public class DomainEventOrder {
+    public static final int INDEXES = 0;
+    public static final int CACHES = 100;
+    public static final int VERSIONS = 200;
+}
@@ -0,0 +1,116 @@
+package de.clickism.guckelsberg.events;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes {@link DomainEvent}s to after-commit listeners, and collects committed events into
+ * {@link DomainEventBatch}es for asynchronous listeners.
+ * <p>
+ * Batches are dispatched by a single dedicated thread, so asynchronous listeners see events in commit
+ * order and never delay the request that caused them. Events arriving within the batch window of the
+ * first one are dispatched with it. Derived state is rebuilt from the database on startup, so events
+ * are only kept in memory; if the queue ever fills up, events are dropped rather than blocking requests.
+ */
+@Slf4j
+@Component
+public class DomainEventPublisher {
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final BlockingQueue<DomainEvent> queue;
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("domain-events").daemon().factory());
+    private final int maxBatchSize;
+    private final long batchWindowNanos;
+    private final Counter droppedEvents;
+
+    public DomainEventPublisher(
+            ApplicationEventPublisher applicationEventPublisher,
+            MeterRegistry meterRegistry,
+            @Value("${app.events.queue-capacity:10000}") int queueCapacity,
+            @Value("${app.events.batch-size:256}") int maxBatchSize,
+            @Value("${app.events.batch-window:20ms}") Duration batchWindow
+    ) {
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.batchWindowNanos = batchWindow.toNanos();
+        Gauge.builder("app.events.domain.queue", queue, BlockingQueue::size)
+                .description("Committed domain events waiting for dispatch")
+                .register(meterRegistry);
+        this.droppedEvents = Counter.builder("app.events.domain.dropped")
+                .description("Domain events dropped because the dispatch queue was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Publishes the event. Listeners only receive it once the current transaction commits,
+     * or right away if there is none.
+     */
+    public void publish(DomainEvent event) {
+        applicationEventPublisher.publishEvent(event);
+    }
+
+    @PostConstruct
+    public void start() {
+        dispatcher.execute(this::dispatchLoop);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+    }
+
+    // Runs after all other after-commit listeners of the event
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void enqueue(DomainEvent event) {
+        if (!queue.offer(event)) {
+            droppedEvents.increment();
+            log.warn("Domain event queue is full, dropping {}.", event.getClass().getSimpleName());
+        }
+    }
+
+    private void dispatchLoop() {
+        List<DomainEvent> batch = new ArrayList<>();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + batchWindowNanos;
+                while (batch.size() < maxBatchSize) {
+                    DomainEvent next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                applicationEventPublisher.publishEvent(new DomainEventBatch(List.copyOf(batch)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("Dispatching domain events failed.", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package de.clickism.guckelsberg.laundry;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.Date;
+
+/**
+ * A past booking moved out of the live table by {@link LaundryBookingArchiver}. Keeps the id of the
+ * original booking and a copy of its machine, which may have been deleted since.
+ */
+@Getter
+@NoArgsConstructor
+@Entity
+@Table(name = "laundry_booking_archive")
+public class ArchivedLaundryBooking {
+    @Id
+    private Long id;
+
+    @Column(name = "booker_room_number", nullable = false)
+    private String bookerRoomNumber;
+
+    @Column(name = "machine_name", nullable = false)
+    private String machineName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "machine_type")
+    private LaundryMachine.MachineType machineType;
+
+    private Integer slotDuration;
+
+    @Column(nullable = false)
+    private LocalDate date;
+
+    @Column(nullable = false)
+    private Integer slotStart;
+
+    @Column(nullable = false)
+    private Date createdAt;
+}
@@ -0,0 +1,23 @@
+package de.clickism.guckelsberg.laundry;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface ArchivedLaundryBookingRepository extends Repository<ArchivedLaundryBooking, Long> {
+
+    /**
+     * Same as {@link LaundryBookingRepository#findViewsByBooker}, for archived bookings.
+     */
+    @Query("SELECT b.id AS id, b.bookerRoomNumber AS bookerRoomNumber, " +
+            "b.machineName AS machineName, b.machineType AS machineType, b.slotDuration AS slotDuration, " +
+            "b.date AS date, b.slotStart AS slotStart, b.createdAt AS createdAt " +
+            "FROM ArchivedLaundryBooking b WHERE b.bookerRoomNumber = :roomNumber " +
+            "AND (:afterDate IS NULL OR (b.date, b.slotStart, b.id) < (:afterDate, :afterSlotStart, :afterId)) " +
+            "ORDER BY b.date DESC, b.slotStart DESC, b.id DESC")
+    List<LaundryBookingView> findViewsByBooker(String roomNumber, LocalDate afterDate, Integer afterSlotStart,
+                                               Long afterId, Limit limit);
+}
@@ -0,0 +1,25 @@
+package de.clickism.guckelsberg.laundry;
+
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+
+/**
+ * Thrown if a booking lost against a concurrent or already existing booking of the same slot.
+ * Unlike {@link IllegalArgumentException}s, this is answered with 409 Conflict and rolls back
+ * the surrounding transaction.
+ */
+public class BookingConflictException extends RuntimeException {
+    public BookingConflictException(String message) {
+        super(message);
+    }
+
+    /**
+     * Checks whether the violation is a taken or overlapping slot, rather than e.g. a missing reference or a
+     * value that does not fit its column, which are bugs and must not be reported as conflicts.
+     */
+    public static boolean isSlotTaken(DataIntegrityViolationException e) {
+        String message = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+        return message != null && (message.contains(LaundryBooking.SLOT_CONSTRAINT)
+                                   || message.contains(LaundryBooking.OVERLAP_CONSTRAINT));
+    }
+}
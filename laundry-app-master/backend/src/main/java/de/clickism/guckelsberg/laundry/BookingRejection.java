@@ -0,0 +1,24 @@
+package de.clickism.guckelsberg.laundry;
+
+/**
+ * Reasons a laundry booking is rejected, counted as {@code app.laundry.booking.rejected}.
+ */
+public enum BookingRejection {
+    INCOMPLETE,
+    UNKNOWN_MACHINE,
+    INVALID_SLOT,
+    PAST,
+    BLOCKED,
+    OVERLAP,
+    TOO_FAR_AHEAD,
+    QUOTA,
+    /**
+     * Another booking of the room within the booking rate limit window.
+     */
+    COOLDOWN;
+
+    /**
+     * Operation name of the booking metrics, see {@link de.clickism.guckelsberg.metrics.StageMetrics}.
+     */
+    public static final String OPERATION = "laundry.booking";
+}
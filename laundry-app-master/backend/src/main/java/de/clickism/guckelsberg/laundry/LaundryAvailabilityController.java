@@ -0,0 +1,38 @@
+package de.clickism.guckelsberg.laundry;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+import static jakarta.servlet.http.HttpServletResponse.SC_BAD_REQUEST;
+
+@RestController
+@RequestMapping("/api/laundry/availability")
+@RequiredArgsConstructor
+public class LaundryAvailabilityController {
+
+    private final LaundryAvailabilityService availabilityService;
+
+    /**
+     * Gets the slot grid of every machine for each day between {@code from} and {@code to}.
+     * Defaults to today only.
+     */
+    @GetMapping
+    public ResponseEntity<?> getAvailability(
+            @RequestParam(required = false) LocalDate from,
+            @RequestParam(required = false) LocalDate to
+    ) {
+        LocalDate startDate = from != null ? from : LocalDate.now();
+        LocalDate endDate = to != null ? to : startDate;
+        try {
+            return ResponseEntity.ok(availabilityService.getAvailability(startDate, endDate));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(SC_BAD_REQUEST).body(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package de.clickism.guckelsberg.laundry;
+
+import de.clickism.guckelsberg.events.DomainEvent;
+import de.clickism.guckelsberg.events.DomainEventOrder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static de.clickism.guckelsberg.laundry.LaundryMachine.BASE_SLOT_DURATION;
+
+/**
+ * Computes and caches the availability grid of each machine and day.
+ * <p>
+ * A grid has one character per {@link LaundryMachine#BASE_SLOT_DURATION base slot} of the day, see
+ * {@link SlotState}. Grids only depend on the occupancy and override indexes, so they stay cached until
+ * a committed booking or override event touches their day. Those events are handled after the indexes
+ * were updated.
+ * <p>
+ * Whether a slot is in the past is left to the client.
+ */
+@Service
+@RequiredArgsConstructor
+public class LaundryAvailabilityService {
+    public static final int MAX_DAYS = 31;
+
+    private final LaundryMachineRepository machineRepository;
+    private final LaundrySlotOverrideIndex overrideIndex;
+    private final LaundryOccupancyIndex occupancyIndex;
+
+    private final Map<MachineDay, String> grids = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Gets the grids of all machines for every day between {@code from} and {@code to}, both inclusive.
+     *
+     * @throws IllegalArgumentException if the range is empty or longer than {@link #MAX_DAYS}
+     */
+    public List<DayAvailability> getAvailability(LocalDate from, LocalDate to) throws IllegalArgumentException {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("End date must be on or after start date.");
+        }
+        if (from.plusDays(MAX_DAYS).isBefore(to.plusDays(1))) {
+            throw new IllegalArgumentException("At most " + MAX_DAYS + " days can be requested at once.");
+        }
+        List<LaundryMachine> machines = machineRepository.findAll();
+        List<DayAvailability> result = new ArrayList<>();
+        boolean missing = machines.stream().anyMatch(machine ->
+                from.datesUntil(to.plusDays(1)).anyMatch(date ->
+                        !grids.containsKey(new MachineDay(machine.getName(), date))));
+        if (missing) {
+            // Load the bookings of all missing grids with one query instead of one per grid
+            occupancyIndex.preload(machines.stream().map(LaundryMachine::getName).toList(), from, to);
+        }
+        for (LaundryMachine machine : machines) {
+            for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+                String grid = getGrid(new MachineDay(machine.getName(), date));
+                result.add(new DayAvailability(machine.getName(), date, grid));
+            }
+        }
+        return result;
+    }
+
+    @Order(DomainEventOrder.CACHES)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingCreated(DomainEvent.BookingCreated event) {
+        invalidate(event.booking());
+    }
+
+    @Order(DomainEventOrder.CACHES)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingDeleted(DomainEvent.BookingDeleted event) {
+        invalidate(event.booking());
+    }
+
+    @Order(DomainEventOrder.CACHES)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOverrideChanged(DomainEvent.OverrideChanged event) {
+        LaundrySlotOverride override = event.override();
+        String machineName = override.getMachine().getName();
+        if (event.previousStartDate() != null) {
+            invalidate(machineName, event.previousStartDate(), event.previousEndDate());
+        }
+        invalidate(machineName, override.getStartDate(), override.getEndDate());
+    }
+
+    @Order(DomainEventOrder.CACHES)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMachineChanged(DomainEvent.MachineChanged event) {
+        if (event.deleted()) {
+            invalidate(event.machineName(), LocalDate.MIN, LocalDate.MAX);
+        }
+    }
+
+    /**
+     * Drops the cached grids of the given machine (or all machines if null) between {@code from} and {@code to}.
+     */
+    private void invalidate(@Nullable String machineName, LocalDate from, LocalDate to) {
+        invalidations.incrementAndGet();
+        grids.keySet().removeIf(key ->
+                (machineName == null || key.machineName().equals(machineName))
+                && !key.date().isBefore(from)
+                && !key.date().isAfter(to));
+    }
+
+    /**
+     * Drops the grids of a booking's day and of the following day, which it may extend into.
+     */
+    private void invalidate(LaundryBooking booking) {
+        invalidate(booking.getMachine().getName(), booking.getDate(), booking.getDate().plusDays(1));
+    }
+
+    @Scheduled(cron = "0 0 3 * * *")
+    public void evictPastDays() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        grids.keySet().removeIf(key -> key.date().isBefore(yesterday));
+    }
+
+    private String getGrid(MachineDay day) {
+        String cached = grids.get(day);
+        if (cached != null) {
+            return cached;
+        }
+        long invalidationsBefore = invalidations.get();
+        String grid = computeGrid(day);
+        String existing = grids.putIfAbsent(day, grid);
+        if (existing != null) {
+            return existing;
+        }
+        // An invalidation running while the grid was computed skips it, as it was not cached yet. The grid
+        // may then miss the index update before that invalidation, so it is served once but not kept.
+        if (invalidations.get() != invalidationsBefore) {
+            grids.remove(day, grid);
+        }
+        return grid;
+    }
+
+    private String computeGrid(MachineDay day) {
+        StringBuilder grid = new StringBuilder(1440 / BASE_SLOT_DURATION);
+        for (int slot = 0; slot < 1440; slot += BASE_SLOT_DURATION) {
+            grid.append(computeState(day.machineName(), day.date(), slot).getSymbol());
+        }
+        return grid.toString();
+    }
+
+    // Same precedence as the booking form: bookings over blocks over extensions
+    private SlotState computeState(String machineName, LocalDate date, int slot) {
+        if (occupancyIndex.isOccupied(machineName, date, slot, slot + BASE_SLOT_DURATION)) {
+            return SlotState.BOOKED;
+        }
+        if (overrideIndex.isBlocked(machineName, date, slot)) {
+            return SlotState.BLOCKED;
+        }
+        return overrideIndex.isExtended(machineName, date, slot) ? SlotState.EXTENDED : SlotState.FREE;
+    }
+
+    public enum SlotState {
+        FREE('F'),
+        BOOKED('B'),
+        BLOCKED('X'),
+        EXTENDED('E');
+
+        private final char symbol;
+
+        SlotState(char symbol) {
+            this.symbol = symbol;
+        }
+
+        public char getSymbol() {
+            return symbol;
+        }
+    }
+
+    public record DayAvailability(
+            String machineName,
+            LocalDate date,
+            String slots
+    ) {
+    }
+}
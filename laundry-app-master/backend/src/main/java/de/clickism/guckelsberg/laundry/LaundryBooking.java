@@ -4,7 +4,7 @@ import de.clickism.guckelsberg.user.User;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -13,15 +13,21 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Date;
 
-@AllArgsConstructor
 @NoArgsConstructor
 @Getter
 @Setter
 @Entity
 @Table(
-        uniqueConstraints = @UniqueConstraint(columnNames = {"date", "slot", "machine_id"})
+        uniqueConstraints = @UniqueConstraint(name = LaundryBooking.SLOT_CONSTRAINT, columnNames = {"date", "slot_start", "machine_name"})
 )
 public class LaundryBooking {
+    public static final String SLOT_CONSTRAINT = "uk_laundry_booking_slot";
+    /**
+     * Exclusion constraint on the slot ranges of a machine, which also rules out overlaps of bookings
+     * created by different instances.
+     */
+    public static final String OVERLAP_CONSTRAINT = "ex_laundry_booking_overlap";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -45,6 +51,30 @@ public class LaundryBooking {
     @Column(nullable = false)
     private Integer slotStart;
 
+    /**
+     * Minutes since the start of {@link #date}, past 1440 for slots running into the next day.
+     * Derived from the slot start and the machine's slot duration.
+     */
+    @Setter(AccessLevel.NONE)
+    @Column(nullable = false)
+    private Integer slotEnd;
+
+    public LaundryBooking(Long id, User booker, LaundryMachine machine, LocalDate date, Date createdAt, Integer slotStart) {
+        this.id = id;
+        this.booker = booker;
+        this.machine = machine;
+        this.date = date;
+        this.createdAt = createdAt;
+        this.slotStart = slotStart;
+        updateSlotEnd();
+    }
+
+    @PrePersist
+    @PreUpdate
+    void updateSlotEnd() {
+        slotEnd = slotStart + machine.getSlotDuration();
+    }
+
     public boolean isOngoing() {
         return !isInPast() && getSlotStartTime().isBefore(LocalDateTime.now());
     }
@@ -0,0 +1,96 @@
+package de.clickism.guckelsberg.laundry;
+
+import de.clickism.guckelsberg.etag.AggregateVersions;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.time.LocalDate;
+
+/**
+ * Moves bookings older than the retention period from {@code laundry_booking} into
+ * {@code laundry_booking_archive}, and adds them to the monthly usage rollup on the way.
+ * <p>
+ * Each batch is moved, archived and rolled up by a single statement, so a booking is always in
+ * exactly one of the two tables and counted in the rollup exactly once. The live table only keeps
+ * the bookings that availability, overlap and quota checks actually look at.
+ */
+@Slf4j
+@Component
+public class LaundryBookingArchiver {
+    // The current week must stay live for the quota fallback query
+    private static final int MIN_RETENTION_DAYS = 14;
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String ARCHIVE_BATCH_SQL = """
+            WITH moved AS (
+                DELETE FROM laundry_booking b
+                USING laundry_machine m
+                WHERE m.name = b.machine_name
+                  AND b.id IN (SELECT id FROM laundry_booking WHERE date < ? ORDER BY id LIMIT ?)
+                RETURNING b.id, b.booker_room_number, b.machine_name, m.type AS machine_type,
+                          m.slot_duration, b.date, b.slot_start, b.created_at
+            ), archived AS (
+                INSERT INTO laundry_booking_archive
+                    (id, booker_room_number, machine_name, machine_type, slot_duration, date, slot_start, created_at)
+                SELECT id, booker_room_number, machine_name, machine_type, slot_duration, date, slot_start, created_at
+                FROM moved
+            )
+            INSERT INTO laundry_monthly_usage (room_number, machine_name, machine_type, month, booking_count, used_minutes)
+            SELECT booker_room_number, machine_name, MAX(machine_type), CAST(date_trunc('month', date) AS DATE),
+                   COUNT(*), COALESCE(SUM(slot_duration), 0)
+            FROM moved
+            GROUP BY booker_room_number, machine_name, date_trunc('month', date)
+            ON CONFLICT (room_number, machine_name, month) DO UPDATE
+                SET booking_count = laundry_monthly_usage.booking_count + EXCLUDED.booking_count,
+                    used_minutes  = laundry_monthly_usage.used_minutes + EXCLUDED.used_minutes
+            """;
+
+    private static final String COUNT_PENDING_SQL = "SELECT COUNT(*) FROM laundry_booking WHERE date < ?";
+
+    private static final String DELETE_QUOTA_USAGE_SQL = "DELETE FROM laundry_quota_usage WHERE week_start < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AggregateVersions versions;
+    private final int retentionDays;
+
+    public LaundryBookingArchiver(JdbcTemplate jdbcTemplate,
+                                  AggregateVersions versions,
+                                  @Value("${app.bookings.archive-after-days:60}") int retentionDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.versions = versions;
+        this.retentionDays = Math.max(MIN_RETENTION_DAYS, retentionDays);
+    }
+
+    @Scheduled(cron = "${app.bookings.archive-cron:0 30 3 * * *}")
+    public void archive() {
+        Date cutoff = Date.valueOf(LocalDate.now().minusDays(retentionDays));
+        long pendingBefore = countPending(cutoff);
+        long pending = pendingBefore;
+        while (pending > 0) {
+            // Statements run outside a transaction, so each batch commits on its own and keeps locks short
+            jdbcTemplate.update(ARCHIVE_BATCH_SQL, cutoff, BATCH_SIZE);
+            long remaining = countPending(cutoff);
+            if (remaining >= pending) {
+                log.warn("Archiving laundry bookings made no progress, {} bookings before {} remain.", remaining, cutoff);
+                break;
+            }
+            pending = remaining;
+        }
+        // Weekly quota rows only matter for the current week, the monthly rollup covers the rest
+        jdbcTemplate.update(DELETE_QUOTA_USAGE_SQL, cutoff);
+        if (pendingBefore > pending) {
+            // Archived days disappear from the live booking endpoints
+            versions.bumpAll();
+            log.info("Archived {} laundry bookings before {}.", pendingBefore - pending, cutoff);
+        }
+    }
+
+    private long countPending(Date cutoff) {
+        Long count = jdbcTemplate.queryForObject(COUNT_PENDING_SQL, Long.class, cutoff);
+        return count != null ? count : 0;
+    }
+}
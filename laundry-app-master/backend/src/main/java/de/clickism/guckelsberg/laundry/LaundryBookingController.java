@@ -1,23 +1,23 @@
 package de.clickism.guckelsberg.laundry;
 
+import de.clickism.guckelsberg.auth.CurrentUser;
+import de.clickism.guckelsberg.etag.AggregateVersions;
+import de.clickism.guckelsberg.etag.ConditionalGet;
+import de.clickism.guckelsberg.paging.CursorPage;
 import de.clickism.guckelsberg.user.User;
-import de.clickism.guckelsberg.user.UserRepository;
 import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
-import org.springframework.transaction.interceptor.TransactionAspectSupport;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
-import java.util.Optional;
 
-import static de.clickism.guckelsberg.laundry.LaundryMachine.isValidSlotStart;
-import static de.clickism.guckelsberg.laundry.LaundryUtils.formatSlot;
+import static de.clickism.guckelsberg.etag.AggregateVersions.laundryDay;
+import static de.clickism.guckelsberg.laundry.LaundryUtils.cacheUntilNextSlot;
 import static de.clickism.guckelsberg.laundry.LaundryUtils.lastSlotOfDay;
 import static jakarta.servlet.http.HttpServletResponse.*;
 
@@ -27,26 +27,29 @@ import static jakarta.servlet.http.HttpServletResponse.*;
 public class LaundryBookingController {
 
     private final LaundryBookingRepository bookingRepository;
-    private final UserRepository userRepository;
-    private final LaundryMachineRepository machineRepository;
-
-    private final LimitsChecker limitsChecker;
-    private final LaundrySlotOverrideService overrideService;
+    private final LaundryBookingService bookingService;
+    private final LaundryBookingHistoryService historyService;
+    private final AggregateVersions versions;
 
     @GetMapping("today")
-    public @ResponseBody Object getBookingsAfterToday() {
-        return bookingRepository.findByDateGreaterThanEqual(LocalDate.now())
-                .stream()
-                .map(LaundryBooking::toDto)
-                .toList();
+    public ResponseEntity<List<LaundryBooking.Dto>> getBookingsAfterToday(WebRequest request) {
+        LocalDate today = LocalDate.now();
+        // Past days drop out of the response at midnight, so the date is part of the tag
+        String etag = versions.etag(today, AggregateVersions.LAUNDRY_BOOKINGS);
+        return ConditionalGet.respond(request, etag, cacheUntilNextSlot(), () ->
+                bookingRepository.findViewsFrom(today)
+                        .stream()
+                        .map(LaundryBookingView::toDto)
+                        .toList());
     }
 
     @GetMapping("future/me")
     public @ResponseBody Object getUserBookingsInTheFuture(
-            Authentication auth
+            @CurrentUser User user
     ) {
-        String roomNumber = auth.getName();
-        User user = userRepository.findUserByRoomNumber(roomNumber).orElseThrow();
+        if (user == null) {
+            return ResponseEntity.status(SC_UNAUTHORIZED).build();
+        }
         return bookingRepository
                 .findByBookerAndDateGreaterThanEqualOrderByDateAscSlotStartAsc(user, LocalDate.now())
                 .stream()
@@ -56,48 +59,45 @@ public class LaundryBookingController {
     }
 
     @GetMapping("all/me")
-    public @ResponseBody Object getAllUserBookings(
+    public ResponseEntity<?> getAllUserBookings(
             Authentication auth,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "20") int size
     ) {
-        String roomNumber = auth.getName();
-        User user = userRepository.findUserByRoomNumber(roomNumber).orElseThrow();
-        return bookingRepository
-                .findByBookerOrderByDateDescSlotStartDesc(user, PageRequest.of(page, size))
-                .stream()
-                .map(LaundryBooking::toDto)
-                .toList();
+        try {
+            return ResponseEntity.ok(historyService.findHistory(auth.getName(), cursor, CursorPage.clampSize(size)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(SC_BAD_REQUEST).body(e.getMessage());
+        }
     }
 
     @GetMapping("date/{date}")
-    public @ResponseBody Object getBookingsByDate(
+    public ResponseEntity<List<LaundryBooking.Dto>> getBookingsByDate(
             @PathVariable LocalDate date,
-            @RequestParam(defaultValue = "false") Boolean includeBuffer
+            @RequestParam(defaultValue = "false") Boolean includeBuffer,
+            WebRequest request
     ) {
-        var bookings = new ArrayList<>(bookingRepository.findByDate(date));
-        if (includeBuffer) {
-            bookings.addAll(bookingRepository.findByDateAndSlotStart(date.plusDays(1), 0));
-            bookings.addAll(bookingRepository.findByDateAndSlotStart(date.minusDays(1), lastSlotOfDay()));
-        }
-        return bookings.stream()
-                .map(LaundryBooking::toDto)
-                .toList();
+        String etag = includeBuffer
+                ? versions.etag(laundryDay(date.minusDays(1)), laundryDay(date), laundryDay(date.plusDays(1)))
+                : versions.etag(laundryDay(date));
+        return ConditionalGet.respond(request, etag, cacheUntilNextSlot(), () -> bookingRepository
+                .findViewsByDate(date, includeBuffer, date.minusDays(1), date.plusDays(1), lastSlotOfDay())
+                .stream()
+                .map(LaundryBookingView::toDto)
+                .toList());
     }
 
     @PostMapping
     @Transactional
     public ResponseEntity<?> createBooking(
             @RequestBody LaundryBooking.CreateDto dto,
-            Authentication auth
+            @CurrentUser User booker
     ) {
-        String roomNumber = auth.getName();
-        User booker = userRepository.findUserByRoomNumber(roomNumber).orElseThrow();
+        if (booker == null) {
+            return ResponseEntity.status(SC_UNAUTHORIZED).build();
+        }
         try {
-            LaundryBooking booking = createAndValidateFromDto(dto, booker);
-            booking = bookingRepository.save(booking);
-            booker.setLastBookingActivity(new Date());
-            userRepository.save(booker);
+            LaundryBooking booking = bookingService.createBooking(dto, booker);
             return ResponseEntity.status(SC_CREATED).body(booking.toDto());
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(SC_BAD_REQUEST)
@@ -109,95 +109,57 @@ public class LaundryBookingController {
     @Transactional
     public ResponseEntity<?> createBatchBooking(
             @RequestBody List<LaundryBooking.CreateDto> dtos,
-            Authentication auth
+            @CurrentUser User booker
     ) {
-        String roomNumber = auth.getName();
-        User booker = userRepository.findUserByRoomNumber(roomNumber).orElseThrow();
+        if (booker == null) {
+            return ResponseEntity.status(SC_UNAUTHORIZED).build();
+        }
         try {
-            for (LaundryBooking.CreateDto dto : dtos) {
-                LaundryBooking booking = createAndValidateFromDto(dto, booker);
-                bookingRepository.save(booking);
-            }
+            LaundryBookingService.BatchBookingResponse response = bookingService.createBatchBooking(dtos, booker);
+            boolean anyAccepted = response.accepted() > 0 || response.rejected() == 0;
+            return ResponseEntity.status(anyAccepted ? SC_CREATED : SC_BAD_REQUEST).body(response);
         } catch (IllegalArgumentException e) {
-            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
-            return ResponseEntity.status(SC_BAD_REQUEST)
-                    .body(e.getMessage());
+            return ResponseEntity.status(SC_BAD_REQUEST).body(e.getMessage());
         }
-        booker.setLastBookingActivity(new Date());
-        userRepository.save(booker);
-        return ResponseEntity.status(SC_CREATED).build();
     }
 
-    private LaundryBooking createAndValidateFromDto(LaundryBooking.CreateDto dto, User booker)
-            throws IllegalArgumentException {
-        LaundryMachine machine = machineRepository.findById(dto.machineName()).orElseThrow();
-        LaundryBooking booking = new LaundryBooking(null, booker, machine, dto.date(), new Date(), dto.slotStart());
-        validateBooking(booking);
-        return booking;
+    /**
+     * Conflicts are thrown out of the transactional methods, so the transaction is rolled back.
+     */
+    @ExceptionHandler(BookingConflictException.class)
+    public ResponseEntity<String> handleConflict(BookingConflictException e) {
+        return ResponseEntity.status(SC_CONFLICT).body(e.getMessage());
     }
 
-    private void validateBooking(LaundryBooking booking)
-            throws IllegalArgumentException {
-        List<LaundrySlotOverride> overrides = overrideService.findActiveOverrides(booking.getMachine(), booking.getDate());
-        boolean slotExtended = overrides.stream()
-                .filter(override -> override.getStatus() == LaundrySlotOverride.Status.EXTENDED)
-                .anyMatch(override -> override.appliesTo(booking.getSlotStart()));
-        if (!isValidSlotStart(booking.getSlotStart()) && !slotExtended) {
-            throw new IllegalArgumentException("Invalid slot start " + formatSlot(booking.getSlotStart())
-                                               + " for machine " + booking.getMachine().getName());
-        }
-        if (booking.isInPast()) {
-            throw new IllegalArgumentException("Cannot book a slot in the past: "
-                                               + formatSlot(booking.getSlotStart(), booking.getDate()));
-        }
-        boolean slotBlocked = overrides.stream()
-                .filter(override -> override.getStatus() == LaundrySlotOverride.Status.BLOCKED)
-                .anyMatch(override -> override.appliesTo(booking.getSlotStart()));
-        if (slotBlocked) {
-            throw new IllegalArgumentException("The selected time slot "
-                                               + formatSlot(booking.getSlotStart(), booking.getDate())
-                                               + " for machine " + booking.getMachine().getName()
-                                               + " is blocked.");
-        }
-        validateBookingDoesNotOverlap(booking);
-        limitsChecker.checkLimits(booking);
-    }
-
-    private void validateBookingDoesNotOverlap(LaundryBooking booking)
-            throws IllegalArgumentException {
-        Optional<LaundryBooking> overlappingBooking = bookingRepository
-                .findByMachineAndDateBetween(
-                        booking.getMachine(),
-                        booking.getDate().minusDays(1),
-                        booking.getDate().plusDays(1)
-                )
-                .stream()
-                .filter(booking::isOverlapping)
-                .findAny();
-        if (overlappingBooking.isPresent()) {
-            throw new IllegalArgumentException("The selected time slot "
-                                               + formatSlot(booking.getSlotStart(), booking.getDate())
-                                               + " for machine " + booking.getMachine().getName()
-                                               + " is already booked or is overlapping with another slot.");
+    /**
+     * Backstop for a duplicate slot that slipped past the booking locks, e.g. detected on commit.
+     * Any other violation is a bug and is rethrown, so it surfaces as 500.
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<String> handleDataIntegrityViolation(DataIntegrityViolationException e) {
+        if (!BookingConflictException.isSlotTaken(e)) {
+            throw e;
         }
+        return ResponseEntity.status(SC_CONFLICT).body("The selected time slot was booked concurrently.");
     }
 
     @DeleteMapping
     @Transactional
-    public ResponseEntity<?> deleteBooking(@RequestParam Long id, Authentication auth) {
-        String roomNumber = auth.getName();
-        User user = userRepository.findUserByRoomNumber(roomNumber).orElse(null);
+    public ResponseEntity<?> deleteBooking(@RequestParam Long id, @CurrentUser User user) {
+        if (user == null) {
+            return ResponseEntity.status(SC_UNAUTHORIZED).build();
+        }
         LaundryBooking booking = bookingRepository.findById(id).orElse(null);
         if (booking == null) {
             return ResponseEntity.status(SC_NOT_FOUND).build();
         }
-        if (!booking.getBooker().equals(user)) {
+        if (!booking.getBooker().getRoomNumber().equals(user.getRoomNumber())) {
             return ResponseEntity.status(SC_FORBIDDEN).build();
         }
         if (booking.isInPast() || booking.isOngoing()) {
             return ResponseEntity.status(SC_BAD_REQUEST).build();
         }
-        bookingRepository.delete(booking);
+        bookingService.deleteBooking(booking);
         return ResponseEntity.ok().build();
     }
 }
@@ -0,0 +1,63 @@
+package de.clickism.guckelsberg.laundry;
+
+import de.clickism.guckelsberg.paging.Cursor;
+import de.clickism.guckelsberg.paging.CursorPage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Pages through a resident's booking history across the live and the archive table, so clients
+ * never notice when bookings are archived.
+ */
+@Service
+@RequiredArgsConstructor
+public class LaundryBookingHistoryService {
+    private static final Comparator<LaundryBookingView> NEWEST_FIRST = Comparator
+            .comparing(LaundryBookingView::getDate)
+            .thenComparing(LaundryBookingView::getSlotStart)
+            .thenComparing(LaundryBookingView::getId)
+            .reversed();
+
+    private final LaundryBookingRepository bookingRepository;
+    private final ArchivedLaundryBookingRepository archiveRepository;
+
+    /**
+     * Gets the page of the booker's bookings after the given cursor, newest first.
+     *
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public CursorPage<LaundryBooking.Dto> findHistory(String roomNumber, @Nullable String cursor, int size)
+            throws IllegalArgumentException {
+        Cursor after = Cursor.decode(cursor, 3);
+        Limit limit = Limit.of(size + 1);
+        // Live first: a booking archived in between then shows up twice instead of not at all
+        List<LaundryBookingView> live = after == null
+                ? bookingRepository.findViewsByBooker(roomNumber, null, null, null, limit)
+                : bookingRepository.findViewsByBooker(roomNumber, after.getDate(0), after.getInt(1),
+                        after.getLong(2), limit);
+        List<LaundryBookingView> archived = after == null
+                ? archiveRepository.findViewsByBooker(roomNumber, null, null, null, limit)
+                : archiveRepository.findViewsByBooker(roomNumber, after.getDate(0), after.getInt(1),
+                        after.getLong(2), limit);
+        List<LaundryBookingView> rows = new ArrayList<>(live.size() + archived.size());
+        Set<Long> seen = new HashSet<>();
+        for (LaundryBookingView row : live) {
+            if (seen.add(row.getId())) rows.add(row);
+        }
+        for (LaundryBookingView row : archived) {
+            if (seen.add(row.getId())) rows.add(row);
+        }
+        rows.sort(NEWEST_FIRST);
+        return CursorPage.of(rows, size,
+                row -> Cursor.of(row.getDate(), row.getSlotStart(), row.getId()),
+                LaundryBookingView::toDto);
+    }
+}
@@ -0,0 +1,116 @@
+package de.clickism.guckelsberg.laundry;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per machine and day locks that serialize booking creation on the same machine-day, so the overlap
+ * check and the insert of a booking cannot interleave with another booking's.
+ * <p>
+ * Locks are held until the surrounding transaction completes, which is after the occupancy index
+ * has seen the commit. Bookings on different machines or days never wait for each other. Waiting is
+ * bounded, so losers fail fast with a {@link BookingConflictException} instead of queueing up.
+ * <p>
+ * The locks only serialize bookings within this instance. Across instances, overlaps are ruled out
+ * by {@link LaundryBooking#OVERLAP_CONSTRAINT}, which the losing insert reports as a conflict.
+ */
+@Component
+public class LaundryBookingLocks {
+    private static final Comparator<MachineDay> LOCK_ORDER = Comparator
+            .comparing(MachineDay::machineName)
+            .thenComparing(MachineDay::date);
+
+    private final Map<MachineDay, ReentrantLock> locks = new ConcurrentHashMap<>();
+    private final long timeoutMillis;
+
+    public LaundryBookingLocks(@Value("${app.bookings.lock-timeout:2s}") Duration timeout) {
+        this.timeoutMillis = timeout.toMillis();
+    }
+
+    /**
+     * Gets the machine-days a booking has to lock: its own day, and the next day if it runs past midnight.
+     */
+    public static List<MachineDay> daysOf(LaundryMachine machine, LocalDate date, int slotStart) {
+        MachineDay day = new MachineDay(machine.getName(), date);
+        if (slotStart + machine.getSlotDuration() > 1440) {
+            return List.of(day, new MachineDay(machine.getName(), date.plusDays(1)));
+        }
+        return List.of(day);
+    }
+
+    /**
+     * Locks all given machine-days until the current transaction completes.
+     *
+     * @throws BookingConflictException if a lock could not be acquired in time
+     * @throws IllegalStateException    if there is no active transaction
+     */
+    public void lockUntilCompletion(Collection<MachineDay> days) throws BookingConflictException {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Booking locks can only be acquired within a transaction.");
+        }
+        // A global lock order rules out deadlocks between bookings locking several days
+        List<MachineDay> ordered = days.stream().distinct().sorted(LOCK_ORDER).toList();
+        List<ReentrantLock> acquired = new ArrayList<>(ordered.size());
+        for (MachineDay day : ordered) {
+            ReentrantLock lock = locks.computeIfAbsent(day, key -> new ReentrantLock(true));
+            if (!tryLock(lock)) {
+                unlockAll(acquired);
+                throw new BookingConflictException("Too many concurrent bookings for machine " + day.machineName()
+                                                   + " on " + day.date() + ", please try again.");
+            }
+            acquired.add(lock);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            // After-commit event listeners also run on completion, the indexes they update must be
+            // current before the next booking of the day gets the lock
+            @Override
+            public int getOrder() {
+                return Ordered.LOWEST_PRECEDENCE;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                unlockAll(acquired);
+            }
+        });
+    }
+
+    /**
+     * Bookings in the past can not be created, so their locks are dropped nightly.
+     */
+    @Scheduled(cron = "0 0 3 * * *")
+    public void evictPastDays() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        locks.entrySet().removeIf(entry -> entry.getKey().date().isBefore(yesterday) && !entry.getValue().isLocked());
+    }
+
+    private boolean tryLock(ReentrantLock lock) {
+        try {
+            return lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void unlockAll(List<ReentrantLock> acquired) {
+        for (int i = acquired.size() - 1; i >= 0; i--) {
+            acquired.get(i).unlock();
+        }
+    }
+}
@@ -1,25 +1,70 @@
 package de.clickism.guckelsberg.laundry;
 
 import de.clickism.guckelsberg.user.User;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.ListCrudRepository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface LaundryBookingRepository extends ListCrudRepository<LaundryBooking, Long> {
+    String SELECT_VIEW = "SELECT b.id AS id, b.booker.roomNumber AS bookerRoomNumber, " +
+            "m.name AS machineName, m.type AS machineType, m.slotDuration AS slotDuration, " +
+            "b.date AS date, b.slotStart AS slotStart, b.createdAt AS createdAt " +
+            "FROM LaundryBooking b JOIN b.machine m ";
+
     List<LaundryBooking> findByDate(LocalDate date);
 
-    List<LaundryBooking> findByDateGreaterThanEqual(LocalDate dateIsGreaterThan);
+    long countByDate(LocalDate date);
+
+    @Query(SELECT_VIEW + "WHERE b.date >= :date ORDER BY b.date ASC, b.slotStart ASC")
+    List<LaundryBookingView> findViewsFrom(LocalDate date);
+
+    /**
+     * Finds the bookings of the given date, plus the last slot of the previous day and the first slot
+     * of the next day if {@code includeBuffer} is set.
+     */
+    @Query(SELECT_VIEW + "WHERE b.date = :date " +
+            "OR (:includeBuffer = TRUE AND ((b.date = :previousDate AND b.slotStart = :lastSlot) " +
+            "OR (b.date = :nextDate AND b.slotStart = 0)))")
+    List<LaundryBookingView> findViewsByDate(LocalDate date, boolean includeBuffer,
+                                             LocalDate previousDate, LocalDate nextDate, int lastSlot);
+
+    /**
+     * Finds a page of the booker's bookings, newest first, starting after the given keyset position.
+     * The first page is requested by passing null for all position values.
+     */
+    @Query(SELECT_VIEW + "WHERE b.booker.roomNumber = :roomNumber " +
+            "AND (:afterDate IS NULL OR (b.date, b.slotStart, b.id) < (:afterDate, :afterSlotStart, :afterId)) " +
+            "ORDER BY b.date DESC, b.slotStart DESC, b.id DESC")
+    List<LaundryBookingView> findViewsByBooker(String roomNumber, LocalDate afterDate, Integer afterSlotStart,
+                                               Long afterId, Limit limit);
+
+    /**
+     * Finds the booker's bookings that have not ended yet, in order. Pass a limit of 1 to get the next one.
+     */
+    @Query(SELECT_VIEW + "WHERE b.booker.roomNumber = :roomNumber " +
+            "AND (b.date > :today OR (b.date = :today AND b.slotStart + m.slotDuration >= :minuteOfDay)) " +
+            "ORDER BY b.date ASC, b.slotStart ASC")
+    List<LaundryBookingView> findUpcomingViewsByBooker(String roomNumber, LocalDate today, int minuteOfDay, Limit limit);
 
-    List<LaundryBooking> findByDateAndSlotStart(LocalDate date, Integer slotStart);
+    @Query("SELECT COUNT(b) FROM LaundryBooking b JOIN b.machine m " +
+            "WHERE b.booker.roomNumber = :roomNumber AND b.date <= :until " +
+            "AND (b.date > :today OR (b.date = :today AND b.slotStart + m.slotDuration >= :minuteOfDay))")
+    long countUpcomingByBooker(String roomNumber, LocalDate today, int minuteOfDay, LocalDate until);
 
     List<LaundryBooking> findByBookerAndDateGreaterThanEqualOrderByDateAscSlotStartAsc(User booker, LocalDate dateIsGreaterThan);
 
-    List<LaundryBooking> findByBookerAndDateBetweenAndMachine_Type(User booker, LocalDate dateAfter, LocalDate dateBefore, LaundryMachine.MachineType machineType);
+    @Query("SELECT COALESCE(SUM(b.machine.slotDuration), 0) FROM LaundryBooking b " +
+            "WHERE b.booker = :booker " +
+            "AND b.date BETWEEN :fromDate AND :toDate " +
+            "AND b.machine.type = :machineType")
+    long sumSlotMinutes(User booker, LocalDate fromDate, LocalDate toDate, LaundryMachine.MachineType machineType);
 
-    List<LaundryBooking> findByMachineAndDateBetween(LaundryMachine machine, LocalDate dateAfter, LocalDate dateBefore);
+    List<LaundryBooking> findByMachine_NameAndDateBetween(String machineName, LocalDate dateAfter, LocalDate dateBefore);
 
-    List<LaundryBooking> findByBookerOrderByDateDescSlotStartDesc(User booker, Pageable pageable);
+    List<LaundryBooking> findByMachine_NameInAndDateBetween(Collection<String> machineNames, LocalDate dateAfter, LocalDate dateBefore);
 }
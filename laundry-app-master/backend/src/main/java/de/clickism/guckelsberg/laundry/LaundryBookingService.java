@@ -0,0 +1,348 @@
+package de.clickism.guckelsberg.laundry;
+
+import de.clickism.guckelsberg.events.DomainEvent;
+import de.clickism.guckelsberg.events.DomainEventPublisher;
+import de.clickism.guckelsberg.metrics.StageMetrics;
+import de.clickism.guckelsberg.user.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static de.clickism.guckelsberg.laundry.LaundryMachine.isValidSlotStart;
+import static de.clickism.guckelsberg.laundry.LaundryUtils.formatSlot;
+
+/**
+ * Creates and deletes laundry bookings, keeping the quota ledger in sync and publishing
+ * {@link DomainEvent}s for everything derived from bookings. Callers are expected to run inside a transaction.
+ */
+@Service
+@RequiredArgsConstructor
+public class LaundryBookingService {
+    /**
+     * Most bookings a batch may contain, two weeks of the default washer and dryer quotas.
+     */
+    public static final int MAX_BATCH_SIZE = 24;
+
+    private static final String INSERT_BOOKING_SQL = "INSERT INTO laundry_booking " +
+            "(booker_room_number, machine_name, date, created_at, slot_start, slot_end) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final LaundryBookingRepository bookingRepository;
+    private final LaundryMachineRepository machineRepository;
+    private final LimitsChecker limitsChecker;
+    private final LaundrySlotOverrideService overrideService;
+    private final LaundryOccupancyIndex occupancyIndex;
+    private final LaundryBookingLocks bookingLocks;
+    private final LaundryQuotaLedger quotaLedger;
+    private final DomainEventPublisher events;
+    private final JdbcTemplate jdbcTemplate;
+    private final StageMetrics stageMetrics;
+
+    /**
+     * Validates and stores a single booking.
+     *
+     * @throws IllegalArgumentException if the booking is not allowed
+     * @throws BookingConflictException if the slot is taken or contended
+     */
+    public LaundryBooking createBooking(LaundryBooking.CreateDto dto, User booker) throws IllegalArgumentException {
+        LaundryMachine machine = stage("machine", () -> machineRepository.findById(dto.machineName()))
+                .orElseThrow(() -> rejected(BookingRejection.UNKNOWN_MACHINE,
+                        new IllegalArgumentException("Machine not found: " + dto.machineName())));
+        LaundryBooking booking = new LaundryBooking(null, booker, machine, dto.date(), new Date(), dto.slotStart());
+        limitsChecker.checkBookingDate(booking);
+        stage("slot", () -> validateSlot(booking));
+        stage("lock", () -> bookingLocks.lockUntilCompletion(
+                LaundryBookingLocks.daysOf(machine, booking.getDate(), booking.getSlotStart())));
+        stage("overlap", () -> validateDoesNotOverlap(booking, List.of()));
+        limitsChecker.checkHoursPerWeek(booking);
+        LaundryBooking saved = stage("insert", () -> {
+            try {
+                return bookingRepository.save(booking);
+            } catch (DataIntegrityViolationException e) {
+                if (!BookingConflictException.isSlotTaken(e)) {
+                    throw e;
+                }
+                throw rejected(BookingRejection.OVERLAP, conflict(booking));
+            }
+        });
+        onCreated(saved);
+        return saved;
+    }
+
+    /**
+     * Validates all bookings against data prefetched for the whole batch and stores the accepted ones
+     * with a single JDBC batch. Bookings are validated in order, so each one is checked against
+     * the ones accepted before it.
+     * <p>
+     * Items that are invalid on their own, such as past or too distant dates, are rejected before
+     * anything is locked or prefetched, so only days within the booking window are ever touched.
+     *
+     * @throws IllegalArgumentException if the batch has more than {@link #MAX_BATCH_SIZE} items
+     * @throws BookingConflictException if the machine-days of the batch are contended
+     */
+    public BatchBookingResponse createBatchBooking(List<LaundryBooking.CreateDto> dtos, User booker)
+            throws IllegalArgumentException {
+        if (dtos.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Can't book more than " + MAX_BATCH_SIZE + " slots at once.");
+        }
+        Set<String> machineNames = dtos.stream()
+                .map(LaundryBooking.CreateDto::machineName)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, LaundryMachine> machines = stage("machine", () -> machineRepository.findAllById(machineNames))
+                .stream()
+                .collect(Collectors.toMap(LaundryMachine::getName, machine -> machine));
+
+        LaundryBooking[] bookings = new LaundryBooking[dtos.size()];
+        String[] rejections = new String[dtos.size()];
+        for (int i = 0; i < dtos.size(); i++) {
+            try {
+                bookings[i] = toBatchItem(dtos.get(i), booker, machines);
+            } catch (IllegalArgumentException e) {
+                rejections[i] = e.getMessage();
+            }
+        }
+        List<LaundryBooking> candidates = Arrays.stream(bookings)
+                .filter(Objects::nonNull)
+                .toList();
+
+        Map<QuotaKey, LaundryQuotaUsage> quotas = candidates.isEmpty() ? Map.of() : lockAndPrefetch(candidates, booker);
+        List<LaundryBooking> accepted = new ArrayList<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            if (bookings[i] == null) {
+                continue;
+            }
+            try {
+                validateBatchItem(bookings[i], booker, accepted, quotas);
+                accepted.add(bookings[i]);
+            } catch (IllegalArgumentException | BookingConflictException e) {
+                bookings[i] = null;
+                rejections[i] = e.getMessage();
+            }
+        }
+
+        stage("insert", () -> insertAll(accepted));
+        accepted.forEach(this::onCreated);
+        List<BatchItemResult> results = new ArrayList<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            results.add(bookings[i] != null
+                    ? BatchItemResult.accepted(dtos.get(i), bookings[i].getId())
+                    : BatchItemResult.rejected(dtos.get(i), rejections[i]));
+        }
+        return BatchBookingResponse.of(results);
+    }
+
+    /**
+     * Deletes the booking. Permission checks are up to the caller.
+     */
+    public void deleteBooking(LaundryBooking booking) {
+        bookingRepository.delete(booking);
+        quotaLedger.release(booking);
+        events.publish(new DomainEvent.BookingDeleted(booking));
+    }
+
+    /**
+     * Checks everything about the item that does not depend on other bookings.
+     */
+    private LaundryBooking toBatchItem(LaundryBooking.CreateDto dto, User booker, Map<String, LaundryMachine> machines)
+            throws IllegalArgumentException {
+        if (dto.date() == null || dto.slotStart() == null) {
+            throw rejected(BookingRejection.INCOMPLETE, new IllegalArgumentException("Date and slot start are required."));
+        }
+        LaundryMachine machine = machines.get(dto.machineName());
+        if (machine == null) {
+            throw rejected(BookingRejection.UNKNOWN_MACHINE, new IllegalArgumentException("Machine not found: " + dto.machineName()));
+        }
+        LaundryBooking booking = new LaundryBooking(null, booker, machine, dto.date(), new Date(), dto.slotStart());
+        limitsChecker.checkBookingDate(booking);
+        stage("slot", () -> validateSlot(booking));
+        return booking;
+    }
+
+    private Map<QuotaKey, LaundryQuotaUsage> lockAndPrefetch(List<LaundryBooking> bookings, User booker) {
+        stage("lock", () -> bookingLocks.lockUntilCompletion(bookings.stream()
+                .flatMap(booking -> LaundryBookingLocks.daysOf(booking.getMachine(), booking.getDate(), booking.getSlotStart()).stream())
+                .toList()));
+        // All dates passed the date check, the clamp only guards the prefetch against future changes to it
+        LocalDate today = LocalDate.now();
+        List<LocalDate> dates = bookings.stream().map(LaundryBooking::getDate).toList();
+        LocalDate from = Collections.max(List.of(Collections.min(dates), today.minusDays(1)));
+        LocalDate to = Collections.min(List.of(Collections.max(dates), today.plusDays(LimitsChecker.MAX_BOOKING_DAYS_AHEAD)));
+        Set<String> machineNames = bookings.stream()
+                .map(booking -> booking.getMachine().getName())
+                .collect(Collectors.toSet());
+        Set<LocalDate> weekStarts = bookings.stream()
+                .map(booking -> LaundryQuotaLedger.weekStart(booking.getDate()))
+                .collect(Collectors.toSet());
+        return stage("prefetch", () -> {
+            occupancyIndex.preload(machineNames, from, to.plusDays(1));
+            return quotaLedger.lockWeeks(booker, weekStarts);
+        })
+                .stream()
+                .collect(Collectors.toMap(usage -> new QuotaKey(usage.getWeekStart(), usage.getMachineType()), usage -> usage));
+    }
+
+    private void validateBatchItem(
+            LaundryBooking booking,
+            User booker,
+            List<LaundryBooking> accepted,
+            Map<QuotaKey, LaundryQuotaUsage> quotas
+    ) throws IllegalArgumentException {
+        LaundryMachine machine = booking.getMachine();
+        stage("overlap", () -> validateDoesNotOverlap(booking, accepted));
+        stage("quota", () -> {
+            LaundryMachine.MachineType type = machine.getType();
+            LaundryQuotaUsage quota = quotas.get(new QuotaKey(LaundryQuotaLedger.weekStart(booking.getDate()), type));
+            long maxMinutes = LimitsChecker.getMaxMinutesPerWeek(booker, type);
+            if (quota.getUsedMinutes() + machine.getSlotDuration() > maxMinutes) {
+                throw rejected(BookingRejection.QUOTA, LimitsChecker.quotaExceeded(type, maxMinutes, quota.getUsedMinutes()));
+            }
+            quota.setUsedMinutes(quota.getUsedMinutes() + machine.getSlotDuration());
+        });
+    }
+
+    private void validateSlot(LaundryBooking booking) throws IllegalArgumentException {
+        LaundryMachine machine = booking.getMachine();
+        if (!isValidSlotStart(booking.getSlotStart())
+            && !overrideService.isSlotExplicitlyAllowed(machine, booking.getDate(), booking.getSlotStart())) {
+            throw rejected(BookingRejection.INVALID_SLOT,
+                    new IllegalArgumentException("Invalid slot start " + formatSlot(booking.getSlotStart())
+                                                 + " for machine " + booking.getMachine().getName()));
+        }
+        if (overrideService.isSlotBlocked(machine, booking.getDate(), booking.getSlotStart())) {
+            throw rejected(BookingRejection.BLOCKED,
+                    new IllegalArgumentException("The selected time slot "
+                                                 + formatSlot(booking.getSlotStart(), booking.getDate())
+                                                 + " for machine " + booking.getMachine().getName()
+                                                 + " is blocked."));
+        }
+    }
+
+    /**
+     * Checks the booking against committed bookings and the given bookings that are
+     * about to be committed in the same transaction.
+     */
+    private void validateDoesNotOverlap(LaundryBooking booking, List<LaundryBooking> pending)
+            throws BookingConflictException {
+        boolean overlapping = !occupancyIndex.isFree(booking.getMachine(), booking.getDate(), booking.getSlotStart())
+                              || pending.stream().anyMatch(booking::isOverlapping);
+        if (overlapping) {
+            throw rejected(BookingRejection.OVERLAP, conflict(booking));
+        }
+    }
+
+    private static BookingConflictException conflict(LaundryBooking booking) {
+        return new BookingConflictException("The selected time slot "
+                                            + formatSlot(booking.getSlotStart(), booking.getDate())
+                                            + " for machine " + booking.getMachine().getName()
+                                            + " is already booked or is overlapping with another slot.");
+    }
+
+    private void insertAll(List<LaundryBooking> bookings) throws BookingConflictException {
+        if (bookings.isEmpty()) return;
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        try {
+            jdbcTemplate.batchUpdate(
+                    connection -> connection.prepareStatement(INSERT_BOOKING_SQL, new String[]{"id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            LaundryBooking booking = bookings.get(i);
+                            ps.setString(1, booking.getBooker().getRoomNumber());
+                            ps.setString(2, booking.getMachine().getName());
+                            ps.setObject(3, booking.getDate());
+                            ps.setTimestamp(4, new Timestamp(booking.getCreatedAt().getTime()));
+                            ps.setInt(5, booking.getSlotStart());
+                            ps.setInt(6, booking.getSlotEnd());
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return bookings.size();
+                        }
+                    },
+                    keyHolder
+            );
+        } catch (DataIntegrityViolationException e) {
+            if (!BookingConflictException.isSlotTaken(e)) {
+                throw e;
+            }
+            throw rejected(BookingRejection.OVERLAP,
+                    new BookingConflictException("Some of the selected time slots were booked concurrently, please try again."));
+        }
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < bookings.size(); i++) {
+            bookings.get(i).setId(((Number) keys.get(i).get("id")).longValue());
+        }
+    }
+
+    private <T> T stage(String stage, Supplier<T> action) {
+        return stageMetrics.time(BookingRejection.OPERATION, stage, action);
+    }
+
+    private void stage(String stage, Runnable action) {
+        stageMetrics.time(BookingRejection.OPERATION, stage, action);
+    }
+
+    private <E extends RuntimeException> E rejected(BookingRejection reason, E exception) {
+        return stageMetrics.rejected(BookingRejection.OPERATION, reason, exception);
+    }
+
+    private void onCreated(LaundryBooking booking) {
+        events.publish(new DomainEvent.BookingCreated(booking));
+    }
+
+    private record QuotaKey(LocalDate weekStart, LaundryMachine.MachineType type) {
+    }
+
+    public record BatchItemResult(
+            String machineName,
+            LocalDate date,
+            Integer slotStart,
+            BatchItemStatus status,
+            Long id,
+            String reason
+    ) {
+        static BatchItemResult accepted(LaundryBooking.CreateDto dto, Long id) {
+            return new BatchItemResult(dto.machineName(), dto.date(), dto.slotStart(), BatchItemStatus.ACCEPTED, id, null);
+        }
+
+        static BatchItemResult rejected(LaundryBooking.CreateDto dto, String reason) {
+            return new BatchItemResult(dto.machineName(), dto.date(), dto.slotStart(), BatchItemStatus.REJECTED, null, reason);
+        }
+    }
+
+    public record BatchBookingResponse(
+            List<BatchItemResult> results,
+            long accepted,
+            long rejected
+    ) {
+        static BatchBookingResponse of(List<BatchItemResult> results) {
+            long accepted = results.stream().filter(result -> result.status() == BatchItemStatus.ACCEPTED).count();
+            return new BatchBookingResponse(results, accepted, results.size() - accepted);
+        }
+    }
+
+    public enum BatchItemStatus {
+        ACCEPTED,
+        REJECTED
+    }
+}
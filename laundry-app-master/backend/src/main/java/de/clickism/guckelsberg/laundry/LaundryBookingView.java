@@ -0,0 +1,37 @@
+package de.clickism.guckelsberg.laundry;
+
+import java.time.LocalDate;
+import java.util.Date;
+
+/**
+ * Read-only projection of exactly the columns needed for {@link LaundryBooking.Dto}.
+ * Selecting it skips hydrating bookings, users and machines into the persistence context.
+ */
+public interface LaundryBookingView {
+    Long getId();
+
+    String getBookerRoomNumber();
+
+    String getMachineName();
+
+    LaundryMachine.MachineType getMachineType();
+
+    Integer getSlotDuration();
+
+    LocalDate getDate();
+
+    Integer getSlotStart();
+
+    Date getCreatedAt();
+
+    default LaundryBooking.Dto toDto() {
+        return new LaundryBooking.Dto(
+                getId(),
+                getBookerRoomNumber(),
+                new LaundryMachine.Dto(getMachineName(), getMachineType(), getSlotDuration()),
+                getDate(),
+                getSlotStart(),
+                getCreatedAt()
+        );
+    }
+}
@@ -1,10 +1,15 @@
 package de.clickism.guckelsberg.laundry;
 
+import de.clickism.guckelsberg.etag.AggregateVersions;
+import de.clickism.guckelsberg.etag.ConditionalGet;
+import de.clickism.guckelsberg.events.DomainEvent;
+import de.clickism.guckelsberg.events.DomainEventPublisher;
 import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -17,10 +22,13 @@ import static jakarta.servlet.http.HttpServletResponse.SC_CREATED;
 public class LaundryMachineController {
 
     private final LaundryMachineRepository machineRepository;
+    private final AggregateVersions versions;
+    private final DomainEventPublisher events;
 
     @GetMapping
-    public @ResponseBody List<LaundryMachine> getMachines() {
-        return machineRepository.findAll();
+    public ResponseEntity<List<LaundryMachine>> getMachines(WebRequest request) {
+        return ConditionalGet.respond(request, versions.etag(AggregateVersions.LAUNDRY_MACHINES),
+                ConditionalGet.revalidate(), machineRepository::findAll);
     }
 
     @PreAuthorize("hasRole('LAUNDRY_ADMIN')")
@@ -36,6 +44,7 @@ public class LaundryMachineController {
                 dto.slotDuration()
         );
         machineRepository.save(machine);
+        events.publish(new DomainEvent.MachineChanged(machine.getName(), false));
         return ResponseEntity.status(SC_CREATED).body(machine);
     }
 
@@ -45,6 +54,7 @@ public class LaundryMachineController {
     public ResponseEntity<?> deleteMachine(@RequestParam String name) {
         if (machineRepository.existsById(name)) {
             machineRepository.deleteById(name);
+            events.publish(new DomainEvent.MachineChanged(name, true));
             return ResponseEntity.ok().build();
         } else {
             return ResponseEntity.notFound().build();
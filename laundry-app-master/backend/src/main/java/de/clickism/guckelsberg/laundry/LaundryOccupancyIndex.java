@@ -0,0 +1,170 @@
+package de.clickism.guckelsberg.laundry;
+
+import de.clickism.guckelsberg.events.DomainEvent;
+import de.clickism.guckelsberg.events.DomainEventOrder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory index of the minutes occupied by committed laundry bookings, kept per machine and day.
+ * <p>
+ * A booking running past midnight occupies minutes on both days, so overlap checks never have to
+ * look at neighbouring days explicitly. Days are loaded from the database the first time they are
+ * queried and are kept in sync with committed booking events. Those are applied before the booking
+ * locks are released, so the next booking of the same day always sees them.
+ * <p>
+ * Only this instance's commits are seen. Bookings committed by other instances are missing until
+ * their day is loaded again, so the database constraints stay the final word on overlaps.
+ */
+@Component
+@RequiredArgsConstructor
+public class LaundryOccupancyIndex {
+    private static final int MINUTES_PER_DAY = 1440;
+
+    private final LaundryBookingRepository bookingRepository;
+
+    private final Map<MachineDay, BitSet> days = new ConcurrentHashMap<>();
+    private final AtomicLong updates = new AtomicLong();
+
+    /**
+     * Checks if the given slot on the given machine is free of any committed booking.
+     */
+    public boolean isFree(LaundryMachine machine, LocalDate date, int slotStart) {
+        return !isOccupied(machine.getName(), date, slotStart, slotStart + machine.getSlotDuration());
+    }
+
+    /**
+     * Checks if any minute in {@code [from, to)} is occupied. Both bounds are minutes since the start
+     * of {@code date} and may extend into the following day.
+     */
+    public boolean isOccupied(String machineName, LocalDate date, int from, int to) {
+        LocalDate day = date;
+        while (to > 0) {
+            int end = Math.min(to, MINUTES_PER_DAY);
+            if (from < end) {
+                BitSet minutes = getOrLoad(new MachineDay(machineName, day));
+                synchronized (minutes) {
+                    int next = minutes.nextSetBit(from);
+                    if (next >= 0 && next < end) {
+                        return true;
+                    }
+                }
+            }
+            from = Math.max(0, from - MINUTES_PER_DAY);
+            to -= MINUTES_PER_DAY;
+            day = day.plusDays(1);
+        }
+        return false;
+    }
+
+    /**
+     * Loads all days of the given machines between {@code from} and {@code to} that are not indexed yet
+     * with a single query, so a following series of checks does not load each day separately.
+     */
+    public void preload(Collection<String> machineNames, LocalDate from, LocalDate to) {
+        long updatesBeforeLoad = updates.get();
+        Map<MachineDay, List<LaundryBooking>> bookingsByDay = new HashMap<>();
+        bookingRepository.findByMachine_NameInAndDateBetween(machineNames, from.minusDays(1), to)
+                .forEach(booking -> {
+                    String machineName = booking.getMachine().getName();
+                    bookingsByDay.computeIfAbsent(new MachineDay(machineName, booking.getDate()), key -> new ArrayList<>())
+                            .add(booking);
+                    bookingsByDay.computeIfAbsent(new MachineDay(machineName, booking.getDate().plusDays(1)), key -> new ArrayList<>())
+                            .add(booking);
+                });
+        for (String machineName : machineNames) {
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                days.computeIfAbsent(new MachineDay(machineName, day), key -> {
+                    // An update may have skipped this day while it was absent, the prefetched data is stale then
+                    if (updates.get() != updatesBeforeLoad) {
+                        return load(key);
+                    }
+                    BitSet minutes = new BitSet(MINUTES_PER_DAY);
+                    bookingsByDay.getOrDefault(key, List.of())
+                            .forEach(booking -> mark(minutes, booking, key.date(), true));
+                    return minutes;
+                });
+            }
+        }
+    }
+
+    @Order(DomainEventOrder.INDEXES)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingCreated(DomainEvent.BookingCreated event) {
+        update(event.booking(), true);
+    }
+
+    @Order(DomainEventOrder.INDEXES)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingDeleted(DomainEvent.BookingDeleted event) {
+        update(event.booking(), false);
+    }
+
+    @Order(DomainEventOrder.INDEXES)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMachineChanged(DomainEvent.MachineChanged event) {
+        if (event.deleted()) {
+            days.keySet().removeIf(key -> key.machineName().equals(event.machineName()));
+        }
+    }
+
+    /**
+     * Bookings in the past can neither be created nor deleted, so their days are dropped nightly.
+     */
+    @Scheduled(cron = "0 0 3 * * *")
+    public void evictPastDays() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        days.keySet().removeIf(key -> key.date().isBefore(yesterday));
+    }
+
+    private BitSet getOrLoad(MachineDay key) {
+        // Loading inside computeIfAbsent makes concurrent updates of the same day wait for the load,
+        // so a booking committed while the day is being read can never be lost.
+        return days.computeIfAbsent(key, this::load);
+    }
+
+    private BitSet load(MachineDay key) {
+        BitSet minutes = new BitSet(MINUTES_PER_DAY);
+        bookingRepository
+                .findByMachine_NameAndDateBetween(key.machineName(), key.date().minusDays(1), key.date())
+                .forEach(booking -> mark(minutes, booking, key.date(), true));
+        return minutes;
+    }
+
+    private void update(LaundryBooking booking, boolean occupied) {
+        updates.incrementAndGet();
+        String machineName = booking.getMachine().getName();
+        LocalDate date = booking.getDate();
+        for (LocalDate day = date; !day.isAfter(date.plusDays(1)); day = day.plusDays(1)) {
+            LocalDate current = day;
+            days.computeIfPresent(new MachineDay(machineName, current), (key, minutes) -> {
+                synchronized (minutes) {
+                    mark(minutes, booking, current, occupied);
+                }
+                return minutes;
+            });
+        }
+    }
+
+    private static void mark(BitSet minutes, LaundryBooking booking, LocalDate day, boolean occupied) {
+        int offset = booking.getDate().equals(day) ? 0 : MINUTES_PER_DAY;
+        int from = Math.max(0, booking.getSlotStart() - offset);
+        int to = Math.min(MINUTES_PER_DAY, booking.getSlotStart() + booking.getMachine().getSlotDuration() - offset);
+        if (from < to) {
+            minutes.set(from, to, occupied);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package de.clickism.guckelsberg.laundry;
+
+import de.clickism.guckelsberg.user.User;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the weekly minutes booked per room and machine type in {@link LaundryQuotaUsage} rows,
+ * so quota checks are a single conditional update instead of summing all bookings of the week.
+ * <p>
+ * Rows are created lazily from the bookings already stored for that week, so weeks booked before
+ * the ledger existed are picked up transparently.
+ */
+@Component
+@RequiredArgsConstructor
+public class LaundryQuotaLedger {
+
+    private final LaundryQuotaUsageStore usageStore;
+    private final LaundryBookingRepository bookingRepository;
+
+    /**
+     * Reserves the booking's minutes if the room stays within the given weekly limit.
+     * The reservation is part of the current transaction and is rolled back with it.
+     *
+     * @return true if the minutes were reserved, false if the limit would be exceeded
+     */
+    @Transactional
+    public boolean tryReserve(LaundryBooking booking, long maxMinutes) {
+        String roomNumber = booking.getBooker().getRoomNumber();
+        LocalDate weekStart = weekStart(booking.getDate());
+        LaundryMachine.MachineType type = booking.getMachine().getType();
+        usageStore.initialize(roomNumber, weekStart, weekStart.plusDays(6), type.name());
+        return usageStore.tryAdd(roomNumber, weekStart, type, booking.getMachine().getSlotDuration(), maxMinutes) > 0;
+    }
+
+    /**
+     * Locks the ledger rows of the user for the given weeks and all machine types, creating missing rows.
+     * Changes to the returned rows are written when the current transaction commits.
+     */
+    @Transactional
+    public List<LaundryQuotaUsage> lockWeeks(User user, Collection<LocalDate> weekStarts) {
+        for (LocalDate weekStart : weekStarts) {
+            for (LaundryMachine.MachineType type : LaundryMachine.MachineType.values()) {
+                usageStore.initialize(user.getRoomNumber(), weekStart, weekStart.plusDays(6), type.name());
+            }
+        }
+        return usageStore.findByRoomNumberAndWeekStartIn(user.getRoomNumber(), weekStarts);
+    }
+
+    /**
+     * Gives the booking's minutes back, e.g. after the booking was deleted.
+     */
+    @Transactional
+    public void release(LaundryBooking booking) {
+        usageStore.subtract(
+                booking.getBooker().getRoomNumber(),
+                weekStart(booking.getDate()),
+                booking.getMachine().getType(),
+                booking.getMachine().getSlotDuration()
+        );
+    }
+
+    /**
+     * Gets the minutes the user booked on the given machine type in the week of the given date.
+     */
+    public long getUsedMinutes(User user, LocalDate date, LaundryMachine.MachineType type) {
+        LocalDate weekStart = weekStart(date);
+        return usageStore.findByRoomNumberAndWeekStartAndMachineType(user.getRoomNumber(), weekStart, type)
+                .map(LaundryQuotaUsage::getUsedMinutes)
+                .orElseGet(() -> bookingRepository.sumSlotMinutes(user, weekStart, weekStart.plusDays(6), type));
+    }
+
+    /**
+     * Gets the minutes the user booked per machine type in the week of the given date, with a single
+     * query unless some of the ledger rows do not exist yet.
+     */
+    public Map<LaundryMachine.MachineType, Long> getUsedMinutesPerType(User user, LocalDate date) {
+        LocalDate weekStart = weekStart(date);
+        Map<LaundryMachine.MachineType, Long> usedMinutes = new EnumMap<>(LaundryMachine.MachineType.class);
+        for (LaundryQuotaUsage usage : usageStore.findByRoomNumberAndWeekStart(user.getRoomNumber(), weekStart)) {
+            usedMinutes.put(usage.getMachineType(), usage.getUsedMinutes());
+        }
+        for (LaundryMachine.MachineType type : LaundryMachine.MachineType.values()) {
+            usedMinutes.computeIfAbsent(type, t ->
+                    bookingRepository.sumSlotMinutes(user, weekStart, weekStart.plusDays(6), t));
+        }
+        return usedMinutes;
+    }
+
+    public static LocalDate weekStart(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+}
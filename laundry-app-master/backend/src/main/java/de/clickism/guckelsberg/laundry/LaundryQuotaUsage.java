@@ -0,0 +1,41 @@
+package de.clickism.guckelsberg.laundry;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * Minutes a room has booked on one machine type during one ISO week.
+ * Maintained by {@link LaundryQuotaLedger} whenever a booking is created or deleted.
+ */
+@Getter
+@Setter
+@Entity
+@Table(
+        name = "laundry_quota_usage",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"room_number", "week_start", "machine_type"})
+)
+public class LaundryQuotaUsage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "room_number", nullable = false)
+    private String roomNumber;
+
+    /**
+     * Monday of the ISO week.
+     */
+    @Column(name = "week_start", nullable = false)
+    private LocalDate weekStart;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "machine_type", nullable = false)
+    private LaundryMachine.MachineType machineType;
+
+    @Column(nullable = false)
+    private long usedMinutes;
+}
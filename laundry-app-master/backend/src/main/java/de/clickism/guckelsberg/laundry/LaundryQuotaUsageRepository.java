@@ -0,0 +1,56 @@
+package de.clickism.guckelsberg.laundry;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.ListCrudRepository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface LaundryQuotaUsageRepository extends ListCrudRepository<LaundryQuotaUsage, Long>, LaundryQuotaUsageStore {
+
+    @Override
+    Optional<LaundryQuotaUsage> findByRoomNumberAndWeekStartAndMachineType(
+            String roomNumber, LocalDate weekStart, LaundryMachine.MachineType machineType);
+
+    @Override
+    List<LaundryQuotaUsage> findByRoomNumberAndWeekStart(String roomNumber, LocalDate weekStart);
+
+    @Override
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<LaundryQuotaUsage> findByRoomNumberAndWeekStartIn(String roomNumber, Collection<LocalDate> weekStarts);
+
+    @Override
+    @Modifying
+    @Query(value = "INSERT INTO laundry_quota_usage (room_number, week_start, machine_type, used_minutes) " +
+            "SELECT :roomNumber, :weekStart, :machineType, COALESCE(SUM(m.slot_duration), 0) " +
+            "FROM laundry_booking b JOIN laundry_machine m ON m.name = b.machine_name " +
+            "WHERE b.booker_room_number = :roomNumber " +
+            "AND b.date BETWEEN :weekStart AND :weekEnd " +
+            "AND m.type = :machineType " +
+            "ON CONFLICT (room_number, week_start, machine_type) DO NOTHING",
+            nativeQuery = true)
+    void initialize(String roomNumber, LocalDate weekStart, LocalDate weekEnd, String machineType);
+
+    @Override
+    @Modifying
+    @Query("UPDATE LaundryQuotaUsage q SET q.usedMinutes = q.usedMinutes + :minutes " +
+            "WHERE q.roomNumber = :roomNumber " +
+            "AND q.weekStart = :weekStart " +
+            "AND q.machineType = :machineType " +
+            "AND q.usedMinutes + :minutes <= :maxMinutes")
+    int tryAdd(String roomNumber, LocalDate weekStart, LaundryMachine.MachineType machineType,
+               long minutes, long maxMinutes);
+
+    @Override
+    @Modifying
+    @Query("UPDATE LaundryQuotaUsage q SET q.usedMinutes = q.usedMinutes - :minutes " +
+            "WHERE q.roomNumber = :roomNumber " +
+            "AND q.weekStart = :weekStart " +
+            "AND q.machineType = :machineType")
+    void subtract(String roomNumber, LocalDate weekStart, LaundryMachine.MachineType machineType, long minutes);
+}
@@ -0,0 +1,39 @@
+package de.clickism.guckelsberg.laundry;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The queries {@link LaundryQuotaLedger} runs against its rows, implemented by
+ * {@link LaundryQuotaUsageRepository}.
+ */
+public interface LaundryQuotaUsageStore {
+
+    Optional<LaundryQuotaUsage> findByRoomNumberAndWeekStartAndMachineType(
+            String roomNumber, LocalDate weekStart, LaundryMachine.MachineType machineType);
+
+    List<LaundryQuotaUsage> findByRoomNumberAndWeekStart(String roomNumber, LocalDate weekStart);
+
+    /**
+     * Gets the rows of the given weeks, locked until the current transaction ends.
+     */
+    List<LaundryQuotaUsage> findByRoomNumberAndWeekStartIn(String roomNumber, Collection<LocalDate> weekStarts);
+
+    /**
+     * Creates the row if it does not exist yet, seeded with the minutes of the bookings already stored
+     * for that week.
+     */
+    void initialize(String roomNumber, LocalDate weekStart, LocalDate weekEnd, String machineType);
+
+    /**
+     * Adds the minutes only if the result stays within the limit.
+     *
+     * @return 1 if the minutes were added, 0 otherwise
+     */
+    int tryAdd(String roomNumber, LocalDate weekStart, LaundryMachine.MachineType machineType,
+               long minutes, long maxMinutes);
+
+    void subtract(String roomNumber, LocalDate weekStart, LaundryMachine.MachineType machineType, long minutes);
+}
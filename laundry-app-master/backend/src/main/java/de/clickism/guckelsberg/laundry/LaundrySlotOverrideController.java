@@ -1,11 +1,16 @@
 package de.clickism.guckelsberg.laundry;
 
+import de.clickism.guckelsberg.etag.AggregateVersions;
+import de.clickism.guckelsberg.etag.ConditionalGet;
+import de.clickism.guckelsberg.events.DomainEvent;
+import de.clickism.guckelsberg.events.DomainEventPublisher;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDate;
 import java.util.Date;
@@ -20,18 +25,22 @@ public class LaundrySlotOverrideController {
 
     private final LaundrySlotOverrideRepository overrideRepository;
     private final LaundryMachineRepository machineRepository;
+    private final AggregateVersions versions;
+    private final DomainEventPublisher events;
 
     @GetMapping
     @PreAuthorize("isAuthenticated()")
-    public List<LaundrySlotOverride.Dto> listOverrides(
+    public ResponseEntity<List<LaundrySlotOverride.Dto>> listOverrides(
             @RequestParam(required = false) String machineName,
             @RequestParam(required = false) LocalDate from,
-            @RequestParam(required = false) LocalDate to
+            @RequestParam(required = false) LocalDate to,
+            WebRequest request
     ) {
-        return overrideRepository.search(machineName, from, to)
-                .stream()
-                .map(LaundrySlotOverride::toDto)
-                .toList();
+        return ConditionalGet.respond(request, versions.etag(AggregateVersions.LAUNDRY_OVERRIDES),
+                ConditionalGet.revalidate(), () -> overrideRepository.search(machineName, from, to)
+                        .stream()
+                        .map(LaundrySlotOverride::toDto)
+                        .toList());
     }
 
     @PostMapping
@@ -44,6 +53,7 @@ public class LaundrySlotOverrideController {
         try {
             LaundrySlotOverride override = buildOverride(dto, authentication.getName());
             overrideRepository.save(override);
+            events.publish(DomainEvent.OverrideChanged.created(override));
             return ResponseEntity.status(SC_CREATED).body(override.toDto());
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(SC_BAD_REQUEST).body(e.getMessage());
@@ -61,8 +71,12 @@ public class LaundrySlotOverrideController {
         if (override == null) {
             return ResponseEntity.status(SC_NOT_FOUND).body("Override not found.");
         }
+        // The update may move the override away from its old range, which is affected as well
+        LocalDate previousStartDate = override.getStartDate();
+        LocalDate previousEndDate = override.getEndDate();
         applyUpdate(override, dto);
         overrideRepository.save(override);
+        events.publish(DomainEvent.OverrideChanged.updated(override, previousStartDate, previousEndDate));
         return ResponseEntity.ok(override.toDto());
     }
 
@@ -70,10 +84,12 @@ public class LaundrySlotOverrideController {
     @Transactional
     @PreAuthorize("hasAnyRole('MASTER_ADMIN','LAUNDRY_ADMIN')")
     public ResponseEntity<?> deleteOverride(@PathVariable Long id) {
-        if (!overrideRepository.existsById(id)) {
+        LaundrySlotOverride override = overrideRepository.findById(id).orElse(null);
+        if (override == null) {
             return ResponseEntity.status(SC_NOT_FOUND).body("Override not found.");
         }
-        overrideRepository.deleteById(id);
+        overrideRepository.delete(override);
+        events.publish(DomainEvent.OverrideChanged.deleted(override));
         return ResponseEntity.ok().build();
     }
 
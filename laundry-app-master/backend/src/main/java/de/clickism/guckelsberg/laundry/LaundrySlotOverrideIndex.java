@@ -0,0 +1,210 @@
+package de.clickism.guckelsberg.laundry;
+
+import de.clickism.guckelsberg.events.DomainEvent;
+import de.clickism.guckelsberg.events.DomainEventOrder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory index of all current and future slot overrides, kept as one array per machine sorted by
+ * start date.
+ * <p>
+ * The index is an immutable snapshot that is replaced on every change, so lookups neither lock,
+ * allocate nor hit the database. Committed override events are applied to it, and
+ * the whole index is rebuilt from the table periodically so it cannot drift from it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LaundrySlotOverrideIndex {
+    private static final Comparator<OverrideRange> BY_START_DATE = Comparator.comparing(OverrideRange::startDate);
+
+    private final LaundrySlotOverrideRepository overrideRepository;
+
+    private volatile Snapshot snapshot;
+    private long modifications;
+
+    /**
+     * Checks if an override of the given status applies to the slot of the machine on the date.
+     */
+    public boolean applies(String machineName, LocalDate date, int slotStart, LaundrySlotOverride.Status status) {
+        Snapshot current = getSnapshot();
+        if (date.isBefore(current.horizon())) {
+            // Past overrides are not indexed, they are only needed to look at past days
+            return overrideRepository.findActiveForMachineOnDate(machineName, date)
+                    .stream()
+                    .anyMatch(override -> override.getStatus() == status && override.appliesTo(slotStart));
+        }
+        OverrideRange[] ranges = current.byMachine().get(machineName);
+        if (ranges == null) {
+            return false;
+        }
+        for (OverrideRange range : ranges) {
+            if (range.startDate().isAfter(date)) {
+                break;
+            }
+            if (range.status() == status && range.appliesTo(date, slotStart)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isBlocked(String machineName, LocalDate date, int slotStart) {
+        return applies(machineName, date, slotStart, LaundrySlotOverride.Status.BLOCKED);
+    }
+
+    public boolean isExtended(String machineName, LocalDate date, int slotStart) {
+        return applies(machineName, date, slotStart, LaundrySlotOverride.Status.EXTENDED);
+    }
+
+    /**
+     * Adds, replaces or removes the changed override.
+     */
+    @Order(DomainEventOrder.INDEXES)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOverrideChanged(DomainEvent.OverrideChanged event) {
+        LaundrySlotOverride override = event.override();
+        modify(override.getMachine().getName(), override.getId(), event.deleted() ? null : OverrideRange.of(override));
+    }
+
+    @Order(DomainEventOrder.INDEXES)
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onMachineChanged(DomainEvent.MachineChanged event) {
+        if (!event.deleted()) {
+            return;
+        }
+        Snapshot current = getSnapshot();
+        Map<String, OverrideRange[]> byMachine = new HashMap<>(current.byMachine());
+        byMachine.remove(event.machineName());
+        modifications++;
+        snapshot = new Snapshot(Map.copyOf(byMachine), current.horizon());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+    }
+
+    /**
+     * Rebuilds the index from the table and reports any difference to the previous snapshot,
+     * which would indicate a change that bypassed the index.
+     */
+    @Scheduled(cron = "${app.overrides.rebuild-cron:0 */15 * * * *}")
+    public void rebuild() {
+        for (int attempt = 0; attempt < 3; attempt++) {
+            long modificationsBeforeLoad;
+            synchronized (this) {
+                modificationsBeforeLoad = modifications;
+            }
+            LocalDate horizon = LocalDate.now().minusDays(1);
+            Map<String, OverrideRange[]> byMachine = overrideRepository.findByEndDateGreaterThanEqual(horizon)
+                    .stream()
+                    .collect(Collectors.groupingBy(
+                            override -> override.getMachine().getName(),
+                            Collectors.collectingAndThen(Collectors.toList(), LaundrySlotOverrideIndex::toSortedArray)
+                    ));
+            synchronized (this) {
+                // A change committed during the load may be missing from it, load again in that case
+                if (modifications != modificationsBeforeLoad) {
+                    continue;
+                }
+                Snapshot previous = snapshot;
+                if (previous != null && !previous.sameRanges(byMachine, horizon)) {
+                    log.warn("Slot override index drifted from the database and was rebuilt.");
+                }
+                snapshot = new Snapshot(Map.copyOf(byMachine), horizon);
+                return;
+            }
+        }
+        log.warn("Slot override index could not be rebuilt due to concurrent changes, retrying later.");
+    }
+
+    private Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            rebuild();
+            current = snapshot;
+        }
+        return current;
+    }
+
+    private synchronized void modify(String machineName, Long id, OverrideRange replacement) {
+        Snapshot current = getSnapshot();
+        OverrideRange[] ranges = current.byMachine().getOrDefault(machineName, new OverrideRange[0]);
+        List<OverrideRange> updated = Arrays.stream(ranges)
+                .filter(range -> !range.id().equals(id))
+                .collect(Collectors.toList());
+        if (replacement != null && !replacement.endDate().isBefore(current.horizon())) {
+            updated.add(replacement);
+        }
+        Map<String, OverrideRange[]> byMachine = new HashMap<>(current.byMachine());
+        byMachine.put(machineName, updated.stream().sorted(BY_START_DATE).toArray(OverrideRange[]::new));
+        modifications++;
+        snapshot = new Snapshot(Map.copyOf(byMachine), current.horizon());
+    }
+
+    private static OverrideRange[] toSortedArray(List<LaundrySlotOverride> overrides) {
+        return overrides.stream()
+                .map(OverrideRange::of)
+                .sorted(BY_START_DATE)
+                .toArray(OverrideRange[]::new);
+    }
+
+    private record Snapshot(Map<String, OverrideRange[]> byMachine, LocalDate horizon) {
+        boolean sameRanges(Map<String, OverrideRange[]> other, LocalDate otherHorizon) {
+            if (!horizon.equals(otherHorizon)) {
+                // Ranges that ended in between are dropped on purpose
+                return true;
+            }
+            if (!byMachine.keySet().equals(other.keySet())) {
+                return false;
+            }
+            return byMachine.entrySet().stream()
+                    .allMatch(entry -> Arrays.equals(entry.getValue(), other.get(entry.getKey())));
+        }
+    }
+
+    /**
+     * Detached copy of an override. Null slots are stored as the whole day.
+     */
+    private record OverrideRange(
+            Long id,
+            LocalDate startDate,
+            LocalDate endDate,
+            int startSlot,
+            int endSlot,
+            LaundrySlotOverride.Status status
+    ) {
+        static OverrideRange of(LaundrySlotOverride override) {
+            return new OverrideRange(
+                    override.getId(),
+                    override.getStartDate(),
+                    override.getEndDate(),
+                    override.getStartSlot() != null ? override.getStartSlot() : 0,
+                    override.getEndSlot() != null ? override.getEndSlot() : Integer.MAX_VALUE,
+                    override.getStatus()
+            );
+        }
+
+        boolean appliesTo(LocalDate date, int slotStart) {
+            return !date.isAfter(endDate)
+                   && slotStart >= startSlot
+                   && slotStart <= endSlot;
+        }
+    }
+}
@@ -10,6 +10,8 @@ public interface LaundrySlotOverrideRepository extends ListCrudRepository<Laundr
 
     List<LaundrySlotOverride> findByMachine_NameOrderByStartDateAsc(String machineName);
 
+    List<LaundrySlotOverride> findByEndDateGreaterThanEqual(LocalDate date);
+
     @Query("SELECT o FROM LaundrySlotOverride o " +
             "WHERE o.machine.name = :machineName " +
             "AND o.startDate <= :date " +
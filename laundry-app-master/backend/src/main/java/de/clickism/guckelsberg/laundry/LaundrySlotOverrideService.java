@@ -11,19 +11,14 @@ import java.util.List;
 public class LaundrySlotOverrideService {
 
     private final LaundrySlotOverrideRepository overrideRepository;
+    private final LaundrySlotOverrideIndex overrideIndex;
 
     public boolean isSlotBlocked(LaundryMachine machine, LocalDate date, int slotStart) {
-        return findActiveOverrides(machine, date)
-                .stream()
-                .filter(override -> override.getStatus() == LaundrySlotOverride.Status.BLOCKED)
-                .anyMatch(override -> override.appliesTo(slotStart));
+        return overrideIndex.isBlocked(machine.getName(), date, slotStart);
     }
 
     public boolean isSlotExplicitlyAllowed(LaundryMachine machine, LocalDate date, int slotStart) {
-        return findActiveOverrides(machine, date)
-                .stream()
-                .filter(override -> override.getStatus() == LaundrySlotOverride.Status.EXTENDED)
-                .anyMatch(override -> override.appliesTo(slotStart));
+        return overrideIndex.isExtended(machine.getName(), date, slotStart);
     }
 
     public List<LaundrySlotOverride> listOverrides(String machineName, LocalDate from, LocalDate to) {
@@ -33,4 +28,4 @@ public class LaundrySlotOverrideService {
     public List<LaundrySlotOverride> findActiveOverrides(LaundryMachine machine, LocalDate date) {
         return overrideRepository.findActiveForMachineOnDate(machine.getName(), date);
     }
-}
\ No newline at end of file
+}
@@ -1,11 +1,18 @@
 package de.clickism.guckelsberg.laundry;
 
+import org.springframework.http.CacheControl;
+
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Calendar;
+import java.util.concurrent.TimeUnit;
 
 import static de.clickism.guckelsberg.laundry.LaundryMachine.BASE_SLOT_DURATION;
 
 public class LaundryUtils {
+    // Upper bound for clients that honor max-age instead of revalidating on every poll
+    private static final int MAX_CACHE_SECONDS = 60;
 
     /**
      * Gets the current time slot in minutes since midnight.
@@ -20,6 +27,28 @@ public class LaundryUtils {
         return 1440 - BASE_SLOT_DURATION;
     }
 
+    /**
+     * Lets clients reuse a response until the next slot boundary, at which bookings and slots turn
+     * into past ones, but for at most {@link #MAX_CACHE_SECONDS}.
+     */
+    public static CacheControl cacheUntilNextSlot() {
+        LocalDateTime now = LocalDateTime.now();
+        long untilNextSlot = Duration.between(now, nextSlotBoundary(now)).toSeconds();
+        return CacheControl.maxAge(Math.min(untilNextSlot, MAX_CACHE_SECONDS), TimeUnit.SECONDS)
+                .cachePrivate()
+                .mustRevalidate();
+    }
+
+    /**
+     * Gets the start of the {@link LaundryMachine#BASE_SLOT_DURATION base slot} after the given time.
+     * The last boundary of a day is midnight.
+     */
+    public static LocalDateTime nextSlotBoundary(LocalDateTime time) {
+        int slotSeconds = BASE_SLOT_DURATION * 60;
+        int secondOfDay = time.toLocalTime().toSecondOfDay();
+        return time.toLocalDate().atStartOfDay().plusSeconds((long) (secondOfDay / slotSeconds + 1) * slotSeconds);
+    }
+
     public static String formatSlot(int slot) {
         int hours = slot / 60;
         int minutes = slot % 60;
@@ -1,91 +1,94 @@
 package de.clickism.guckelsberg.laundry;
 
+import de.clickism.guckelsberg.metrics.StageMetrics;
+import de.clickism.guckelsberg.user.User;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Component;
 
-import java.time.DayOfWeek;
 import java.time.LocalDate;
-import java.time.temporal.TemporalAdjusters;
-import java.util.Date;
 import java.util.Optional;
 
+import static de.clickism.guckelsberg.laundry.LaundryUtils.formatSlot;
+
 @AllArgsConstructor
 @Component
 public class LimitsChecker {
     public static final long DEFAULT_MAX_WASHER_MINUTES_PER_USER_PER_WEEK = 9 * 60; // 6 slots
     public static final long DEFAULT_MAX_DRYER_MINUTES_PER_USER_PER_WEEK = 18 * 60; // 6 slots
     public static final int MAX_BOOKING_DAYS_AHEAD = 7; // 1 week
-    public static final int BOOKING_COOLDOWN_SECONDS = 15;
 
-    private final LaundryBookingRepository bookingRepository;
+    private final LaundryQuotaLedger quotaLedger;
+    private final StageMetrics stageMetrics;
 
     /**
      * Checks booking limits for the given user and booking dto.
+     * If all limits are met, the booking's minutes are reserved in the weekly quota ledger
+     * as part of the current transaction.
      *
      * @throws IllegalArgumentException if any limit is violated
      */
     public void checkLimits(LaundryBooking booking) throws IllegalArgumentException {
-        checkCooldown(booking);
         checkBookingDate(booking);
         checkHoursPerWeek(booking);
     }
 
-    private void checkCooldown(LaundryBooking booking) {
-        Date lastBookingActivity = booking.getBooker().getLastBookingActivity();
-        if (lastBookingActivity == null) return;
-        long secondsSinceLastBooking = (new Date().getTime() - lastBookingActivity.getTime()) / 1000;
-        if (secondsSinceLastBooking < BOOKING_COOLDOWN_SECONDS) {
-            throw new IllegalArgumentException(
-                    "You can only make a booking every " + BOOKING_COOLDOWN_SECONDS + " seconds. " +
-                    "Please try again in " + (BOOKING_COOLDOWN_SECONDS - secondsSinceLastBooking) + " seconds.");
-        }
+    /**
+     * Checks that the booking lies between now and {@link #MAX_BOOKING_DAYS_AHEAD} days ahead.
+     * Runs before anything is locked or loaded for the booking's day, so arbitrary dates never reach
+     * the locks, the occupancy index or the quota ledger.
+     *
+     * @throws IllegalArgumentException if the booking is in the past or too far ahead
+     */
+    public void checkBookingDate(LaundryBooking booking) throws IllegalArgumentException {
+        stageMetrics.time(BookingRejection.OPERATION, "date", () -> {
+            if (booking.isInPast()) {
+                throw stageMetrics.rejected(BookingRejection.OPERATION, BookingRejection.PAST,
+                        new IllegalArgumentException("Cannot book a slot in the past: "
+                                                     + formatSlot(booking.getSlotStart(), booking.getDate())));
+            }
+            LocalDate today = LocalDate.now();
+            if (booking.getDate().isAfter(today.plusDays(MAX_BOOKING_DAYS_AHEAD))) {
+                throw stageMetrics.rejected(BookingRejection.OPERATION, BookingRejection.TOO_FAR_AHEAD,
+                        new IllegalArgumentException("Can't book more than " + MAX_BOOKING_DAYS_AHEAD + " days in advance."));
+            }
+        });
     }
 
-    private void checkBookingDate(LaundryBooking booking) {
-        LocalDate today = LocalDate.now();
-        if (booking.getDate().isAfter(today.plusDays(MAX_BOOKING_DAYS_AHEAD))) {
-            throw new IllegalArgumentException("Can't book more than " + MAX_BOOKING_DAYS_AHEAD + " days in advance.");
-        }
+    /**
+     * Reserves the booking's minutes in the weekly quota ledger as part of the current transaction.
+     *
+     * @throws IllegalArgumentException if the weekly quota would be exceeded
+     */
+    public void checkHoursPerWeek(LaundryBooking booking) throws IllegalArgumentException {
+        stageMetrics.time(BookingRejection.OPERATION, "quota", () -> {
+            LaundryMachine.MachineType type = booking.getMachine().getType();
+            long maxMinutes = getMaxMinutesPerWeek(booking.getBooker(), type);
+            if (quotaLedger.tryReserve(booking, maxMinutes)) {
+                return;
+            }
+            long bookedMinutes = quotaLedger.getUsedMinutes(booking.getBooker(), booking.getDate(), type);
+            throw stageMetrics.rejected(BookingRejection.OPERATION, BookingRejection.QUOTA,
+                    quotaExceeded(type, maxMinutes, bookedMinutes));
+        });
     }
 
-    private void checkHoursPerWeek(LaundryBooking booking) {
-        LaundryMachine.MachineType type = booking.getMachine().getType();
-        int bookedMinutes = getHoursBookedInWeek(booking, type);
+    public static IllegalArgumentException quotaExceeded(LaundryMachine.MachineType type, long maxMinutes, long bookedMinutes) {
         double bookedHours = (double) bookedMinutes / 60;
         String errorMessage = """
                 You are not allowed to book %s for more than %s hours per week.
                 You already booked %s hours so far this week. -
                 If you consistently need more slots, please contact the administrators.
                 """.replace('\n', ' ').trim();
-        switch (type) {
-            case WASHER -> {
-                long maxMinutes = Optional.ofNullable(booking.getBooker().getMaxWasherMinutesPerWeek())
-                        .orElse(DEFAULT_MAX_WASHER_MINUTES_PER_USER_PER_WEEK);
-                if (bookedMinutes + booking.getMachine().getSlotDuration() > maxMinutes) {
-                    throw new IllegalArgumentException(
-                            errorMessage.formatted("washers", ((double) maxMinutes / 60), bookedHours));
-                }
-            }
-            case DRYER -> {
-                long maxMinutes = Optional.ofNullable(booking.getBooker().getMaxDryerMinutesPerWeek())
-                        .orElse(DEFAULT_MAX_DRYER_MINUTES_PER_USER_PER_WEEK);
-                if (bookedMinutes + booking.getMachine().getSlotDuration()
-                    > maxMinutes) {
-                    throw new IllegalArgumentException(
-                            errorMessage.formatted("dryers", ((double) maxMinutes / 60), bookedHours));
-                }
-            }
-        }
-
+        String machines = type == LaundryMachine.MachineType.WASHER ? "washers" : "dryers";
+        return new IllegalArgumentException(errorMessage.formatted(machines, ((double) maxMinutes / 60), bookedHours));
     }
 
-    private int getHoursBookedInWeek(LaundryBooking booking, LaundryMachine.MachineType type) {
-        LocalDate weekStart = booking.getDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
-        LocalDate weekEnd = booking.getDate().with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY));
-        return bookingRepository
-                .findByBookerAndDateBetweenAndMachine_Type(booking.getBooker(), weekStart, weekEnd, type)
-                .stream()
-                .mapToInt(b -> b.getMachine().getSlotDuration())
-                .sum();
+    public static long getMaxMinutesPerWeek(User user, LaundryMachine.MachineType type) {
+        return switch (type) {
+            case WASHER -> Optional.ofNullable(user.getMaxWasherMinutesPerWeek())
+                    .orElse(DEFAULT_MAX_WASHER_MINUTES_PER_USER_PER_WEEK);
+            case DRYER -> Optional.ofNullable(user.getMaxDryerMinutesPerWeek())
+                    .orElse(DEFAULT_MAX_DRYER_MINUTES_PER_USER_PER_WEEK);
+        };
     }
 }
@@ -0,0 +1,9 @@
+package de.clickism.guckelsberg.laundry;
+
+import java.time.LocalDate;
+
+/**
+ * Identifies a single calendar day of a single machine.
+ */
+public record MachineDay(String machineName, LocalDate date) {
+}
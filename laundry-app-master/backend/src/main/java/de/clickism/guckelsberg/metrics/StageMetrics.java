@@ -0,0 +1,110 @@
+package de.clickism.guckelsberg.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Times the stages of operations that take several steps, such as creating a booking, and counts
+ * why operations were rejected.
+ * <p>
+ * An operation {@code laundry.booking} records the timer {@code app.laundry.booking.stage} tagged
+ * with {@code stage} and {@code outcome}, and the counter {@code app.laundry.booking.rejected} tagged
+ * with {@code reason}. Both are tagged with the {@code endpoint} of the current request, e.g.
+ * {@code POST /api/laundry/bookings/batch}, like the {@code uri} of {@code http.server.requests}.
+ */
+@Component
+@RequiredArgsConstructor
+public class StageMetrics {
+    static final String NO_ENDPOINT = "none";
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Runs the stage and records its duration. Stages that throw are recorded with outcome
+     * {@code rejected}.
+     */
+    public <T> T time(String operation, String stage, Supplier<T> action) {
+        long start = System.nanoTime();
+        String outcome = "rejected";
+        try {
+            T result = action.get();
+            outcome = "success";
+            return result;
+        } finally {
+            Timer.builder("app." + operation + ".stage")
+                    .description("Time spent in each stage of " + operation)
+                    .tag("stage", stage)
+                    .tag("outcome", outcome)
+                    .tag("endpoint", currentEndpoint())
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void time(String operation, String stage, Runnable action) {
+        time(operation, stage, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public void reject(String operation, Enum<?> reason) {
+        Counter.builder("app." + operation + ".rejected")
+                .description("Rejections of " + operation + " by reason")
+                .tag("reason", reason.name().toLowerCase(Locale.ROOT).replace('_', '-'))
+                .tag("endpoint", currentEndpoint())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Counts the rejection and returns the given exception, so it can be thrown right away.
+     */
+    public <E extends RuntimeException> E rejected(String operation, Enum<?> reason, E exception) {
+        reject(operation, reason);
+        return exception;
+    }
+
+    /**
+     * Counts whether an operation could use a cached result, as {@code app.<operation>.cache}.
+     */
+    public void cache(String operation, boolean hit) {
+        Counter.builder("app." + operation + ".cache")
+                .description("Cache lookups of " + operation)
+                .tag("result", hit ? "hit" : "miss")
+                .tag("endpoint", currentEndpoint())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Gets the method and mapped path pattern of the request handled by the current thread.
+     */
+    static String currentEndpoint() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            return endpointOf(attributes.getRequest());
+        }
+        return NO_ENDPOINT;
+    }
+
+    /**
+     * Gets the method and mapped path pattern of the request, once it was mapped to a handler.
+     */
+    public static String endpointOf(HttpServletRequest request) {
+        if (request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE) instanceof String pattern) {
+            return request.getMethod() + " " + pattern;
+        }
+        return NO_ENDPOINT;
+    }
+}
@@ -0,0 +1,73 @@
+package de.clickism.guckelsberg.paging;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque position in a keyset paginated list: the sort key values of the last row of a page.
+ * Clients only ever pass encoded cursors back, they should not rely on their content.
+ */
+public record Cursor(String[] values) {
+    private static final String SEPARATOR = "\u001f";
+
+    public static Cursor of(Object... values) {
+        String[] strings = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            strings[i] = String.valueOf(values[i]);
+        }
+        return new Cursor(strings);
+    }
+
+    /**
+     * Decodes a cursor with the given number of values. A null cursor stands for the first page.
+     *
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static Cursor decode(String encoded, int size) throws IllegalArgumentException {
+        if (encoded == null || encoded.isEmpty()) {
+            return null;
+        }
+        String decoded = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+        String[] values = decoded.split(SEPARATOR, -1);
+        if (values.length != size) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+        return new Cursor(values);
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(String.join(SEPARATOR, values).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getString(int index) {
+        return values[index];
+    }
+
+    public long getLong(int index) throws IllegalArgumentException {
+        try {
+            return Long.parseLong(values[index]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+    }
+
+    public int getInt(int index) throws IllegalArgumentException {
+        long value = getLong(index);
+        if (value != (int) value) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+        return (int) value;
+    }
+
+    public LocalDate getDate(int index) throws IllegalArgumentException {
+        try {
+            return LocalDate.parse(values[index]);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+    }
+}
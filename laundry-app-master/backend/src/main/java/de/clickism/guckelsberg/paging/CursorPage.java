@@ -0,0 +1,33 @@
+package de.clickism.guckelsberg.paging;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A page of a keyset paginated list. {@code nextCursor} is null on the last page.
+ */
+public record CursorPage<T>(
+        List<T> items,
+        String nextCursor
+) {
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    /**
+     * Builds a page from rows queried with a limit of {@code size + 1}, the extra row only tells
+     * whether there is a next page.
+     */
+    public static <R, T> CursorPage<T> of(List<R> rows, int size, Function<R, Cursor> cursorOf, Function<R, T> mapper) {
+        boolean hasNext = rows.size() > size;
+        List<R> pageRows = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? cursorOf.apply(pageRows.getLast()).encode() : null;
+        return new CursorPage<>(pageRows.stream().map(mapper).toList(), nextCursor);
+    }
+
+    /**
+     * Clamps a requested page size to {@code [1, MAX_SIZE]}.
+     */
+    public static int clampSize(int size) {
+        return Math.clamp(size, 1, MAX_SIZE);
+    }
+}
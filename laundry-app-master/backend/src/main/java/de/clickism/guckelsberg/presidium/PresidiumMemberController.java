@@ -1,9 +1,12 @@
 package de.clickism.guckelsberg.presidium;
 
+import de.clickism.guckelsberg.etag.AggregateVersions;
+import de.clickism.guckelsberg.etag.ConditionalGet;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -15,13 +18,15 @@ import static jakarta.servlet.http.HttpServletResponse.*;
 public class PresidiumMemberController {
 
     private final PresidiumMemberRepository repository;
+    private final AggregateVersions versions;
 
     @GetMapping
-    public List<PresidiumMember.Dto> getVisibleMembers() {
-        return repository.findByVisibleTrueOrderByDisplayOrderAscNameAsc()
-                .stream()
-                .map(PresidiumMember::toDto)
-                .toList();
+    public ResponseEntity<List<PresidiumMember.Dto>> getVisibleMembers(WebRequest request) {
+        return ConditionalGet.respond(request, versions.etag(AggregateVersions.PRESIDIUM),
+                ConditionalGet.revalidate(), () -> repository.findByVisibleTrueOrderByDisplayOrderAscNameAsc()
+                        .stream()
+                        .map(PresidiumMember::toDto)
+                        .toList());
     }
 
     @GetMapping("/all")
@@ -40,6 +45,7 @@ public class PresidiumMemberController {
             PresidiumMember member = new PresidiumMember();
             applyDto(member, dto);
             repository.save(member);
+            versions.bump(AggregateVersions.PRESIDIUM);
             return ResponseEntity.status(SC_CREATED).body(member.toDto());
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(SC_BAD_REQUEST).body(e.getMessage());
@@ -59,6 +65,7 @@ public class PresidiumMemberController {
         try {
             applyDto(member, dto);
             repository.save(member);
+            versions.bump(AggregateVersions.PRESIDIUM);
             return ResponseEntity.ok(member.toDto());
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(SC_BAD_REQUEST).body(e.getMessage());
@@ -72,6 +79,7 @@ public class PresidiumMemberController {
             return ResponseEntity.status(SC_NOT_FOUND).body("Presidium member not found");
         }
         repository.deleteById(id);
+        versions.bump(AggregateVersions.PRESIDIUM);
         return ResponseEntity.ok().build();
     }
 
@@ -0,0 +1,192 @@
+package de.clickism.guckelsberg.ratelimit;
+
+import de.clickism.guckelsberg.laundry.BookingRejection;
+import de.clickism.guckelsberg.metrics.StageMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Rate limits requests per room number with a separate {@link SlidingWindowRateLimiter} per {@link Group}.
+ * Logins are limited per submitted room number and client address, and in total per client address,
+ * through {@link #tryAcquireLogin}.
+ * <p>
+ * Booking permits are only kept for successful bookings, which preserves the semantics of the
+ * former booking cooldown: one successful booking per window, while failed attempts can be retried
+ * right away.
+ */
+@Component
+public class RateLimitInterceptor implements HandlerInterceptor {
+    private static final String ACQUIRED_AT = RateLimitInterceptor.class.getName() + ".acquiredAt";
+
+    private final Map<Group, SlidingWindowRateLimiter> limiters = new EnumMap<>(Group.class);
+    private final Map<Group, Duration> windows = new EnumMap<>(Group.class);
+    private final SlidingWindowRateLimiter loginAddressLimiter;
+    private final MeterRegistry meterRegistry;
+    private final StageMetrics stageMetrics;
+
+    public RateLimitInterceptor(
+            MeterRegistry meterRegistry,
+            StageMetrics stageMetrics,
+            @Value("${app.rate-limit.booking.limit:1}") int bookingLimit,
+            @Value("${app.rate-limit.booking.window:15s}") Duration bookingWindow,
+            @Value("${app.rate-limit.read.limit:120}") int readLimit,
+            @Value("${app.rate-limit.read.window:1m}") Duration readWindow,
+            @Value("${app.rate-limit.login.limit:10}") int loginLimit,
+            @Value("${app.rate-limit.login.window:5m}") Duration loginWindow,
+            @Value("${app.rate-limit.login.address-limit:100}") int loginAddressLimit
+    ) {
+        this.meterRegistry = meterRegistry;
+        this.stageMetrics = stageMetrics;
+        register(Group.BOOKING, bookingLimit, bookingWindow);
+        register(Group.READ, readLimit, readWindow);
+        register(Group.LOGIN, loginLimit, loginWindow);
+        this.loginAddressLimiter = new SlidingWindowRateLimiter(loginAddressLimit, loginWindow);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        Group group = Group.of(request);
+        if (group == null) {
+            return true;
+        }
+        String key = authenticatedRoomNumber();
+        if (key == null) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        long retryAfterMillis = limiters.get(group).tryAcquire(key, now);
+        if (retryAfterMillis > 0) {
+            meterRegistry.counter("app.rate-limit.rejected", "group", group.name()).increment();
+            if (group == Group.BOOKING) {
+                stageMetrics.reject(BookingRejection.OPERATION, BookingRejection.COOLDOWN);
+            }
+            long retryAfterSeconds = toSeconds(retryAfterMillis);
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.getWriter().write(rejectionMessage(group, retryAfterSeconds));
+            return false;
+        }
+        if (group == Group.BOOKING) {
+            request.setAttribute(ACQUIRED_AT, now);
+        }
+        return true;
+    }
+
+    /**
+     * Takes a login permit for the room number from the client address, and one for the client address
+     * itself. Logins are not limited in {@link #preHandle}, as the room number is only known once the
+     * request body was read.
+     * <p>
+     * The client address is the one forwarded by the proxy, see {@code server.forward-headers-strategy}.
+     * Residents behind the same address still get their own permits per room number, while the limit per
+     * address stops a single client from trying a few passwords on every room. It is meant to be well above
+     * what a house sharing one address needs, see {@code app.rate-limit.login.address-limit}.
+     *
+     * @return 0 if the login may proceed, otherwise the seconds until the next attempt is allowed
+     */
+    public long tryAcquireLogin(String roomNumber, HttpServletRequest request) {
+        String address = request.getRemoteAddr();
+        String key = (roomNumber != null ? roomNumber.trim().toLowerCase(Locale.ROOT) : "") + "@" + address;
+        long now = System.currentTimeMillis();
+        SlidingWindowRateLimiter roomLimiter = limiters.get(Group.LOGIN);
+        long retryAfterMillis = roomLimiter.tryAcquire(key, now);
+        if (retryAfterMillis <= 0) {
+            retryAfterMillis = loginAddressLimiter.tryAcquire(address, now);
+            if (retryAfterMillis > 0) {
+                // The attempt is not made, so it must not count against the room number either
+                roomLimiter.release(key, now);
+            }
+        }
+        if (retryAfterMillis <= 0) {
+            return 0;
+        }
+        meterRegistry.counter("app.rate-limit.rejected", "group", Group.LOGIN.name()).increment();
+        return toSeconds(retryAfterMillis);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (!(request.getAttribute(ACQUIRED_AT) instanceof Long acquiredAt)) {
+            return;
+        }
+        request.removeAttribute(ACQUIRED_AT);
+        boolean successful = ex == null && response.getStatus() >= 200 && response.getStatus() < 300;
+        if (!successful) {
+            limiters.get(Group.BOOKING).release(authenticatedRoomNumber(), acquiredAt);
+        }
+    }
+
+    @Scheduled(fixedRate = 60_000)
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        limiters.values().forEach(limiter -> limiter.evictIdle(now));
+        loginAddressLimiter.evictIdle(now);
+    }
+
+    private void register(Group group, int limit, Duration window) {
+        limiters.put(group, new SlidingWindowRateLimiter(limit, window));
+        windows.put(group, window);
+    }
+
+    public String rejectionMessage(Group group, long retryAfterSeconds) {
+        return switch (group) {
+            case BOOKING -> "You can only make a booking every " + windows.get(group).toSeconds() + " seconds. " +
+                            "Please try again in " + retryAfterSeconds + " seconds.";
+            case READ -> "Too many requests. Please try again in " + retryAfterSeconds + " seconds.";
+            case LOGIN -> "Too many login attempts. Please try again in " + retryAfterSeconds + " seconds.";
+        };
+    }
+
+    private static long toSeconds(long retryAfterMillis) {
+        return Math.max(1, (retryAfterMillis + 999) / 1000);
+    }
+
+    private static String authenticatedRoomNumber() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null && auth.isAuthenticated() ? auth.getName() : null;
+    }
+
+    public enum Group {
+        /**
+         * Creating laundry bookings.
+         */
+        BOOKING,
+        /**
+         * Any read of the API.
+         */
+        READ,
+        /**
+         * Login attempts, keyed by the submitted room number and the client address. Each client address
+         * is also limited across all room numbers.
+         */
+        LOGIN;
+
+        static Group of(HttpServletRequest request) {
+            String path = request.getRequestURI().substring(request.getContextPath().length());
+            String method = request.getMethod();
+            if (method.equals("POST") && path.startsWith("/api/laundry/bookings")) {
+                return BOOKING;
+            }
+            if (method.equals("GET") && path.startsWith("/api/")) {
+                return READ;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package de.clickism.guckelsberg.ratelimit;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free sliding window log limiter: each key may take at most {@code limit} permits within any
+ * window of the given length.
+ * <p>
+ * The log of each key is an immutable, sorted array of permit timestamps that is replaced with
+ * compare-and-set, so concurrent requests of the same key never block each other.
+ */
+public class SlidingWindowRateLimiter {
+    private static final long[] EMPTY = new long[0];
+
+    private final int limit;
+    private final long windowMillis;
+    private final Map<String, AtomicReference<long[]>> logs = new ConcurrentHashMap<>();
+
+    public SlidingWindowRateLimiter(int limit, Duration window) {
+        this.limit = limit;
+        this.windowMillis = window.toMillis();
+    }
+
+    /**
+     * Tries to take a permit for the key.
+     *
+     * @return 0 if the permit was taken, otherwise the milliseconds until the next permit frees up
+     */
+    public long tryAcquire(String key, long nowMillis) {
+        AtomicReference<long[]> log = logs.computeIfAbsent(key, k -> new AtomicReference<>(EMPTY));
+        while (true) {
+            long[] current = log.get();
+            int expired = countExpired(current, nowMillis);
+            int active = current.length - expired;
+            if (active >= limit) {
+                return current[expired] + windowMillis - nowMillis;
+            }
+            // Requests may race with slightly different clocks, so insert sorted instead of appending
+            int index = Arrays.binarySearch(current, expired, current.length, nowMillis);
+            int position = (index >= 0 ? index : -index - 1) - expired;
+            long[] updated = new long[active + 1];
+            System.arraycopy(current, expired, updated, 0, position);
+            updated[position] = nowMillis;
+            System.arraycopy(current, expired + position, updated, position + 1, active - position);
+            if (log.compareAndSet(current, updated)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Gives back a permit taken at the given time, e.g. because the request it was taken for failed.
+     */
+    public void release(String key, long acquiredAtMillis) {
+        AtomicReference<long[]> log = logs.get(key);
+        if (log == null) return;
+        while (true) {
+            long[] current = log.get();
+            int index = Arrays.binarySearch(current, acquiredAtMillis);
+            if (index < 0) return;
+            long[] updated = new long[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, index);
+            System.arraycopy(current, index + 1, updated, index, updated.length - index);
+            if (log.compareAndSet(current, updated)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Drops the logs of keys without any permit in the current window. A permit taken concurrently
+     * with the removal of its log may be forgotten, which only ever errs on the permissive side.
+     */
+    public void evictIdle(long nowMillis) {
+        logs.values().removeIf(log -> {
+            long[] current = log.get();
+            return countExpired(current, nowMillis) == current.length;
+        });
+    }
+
+    private int countExpired(long[] timestamps, long nowMillis) {
+        long windowStart = nowMillis - windowMillis;
+        int expired = 0;
+        while (expired < timestamps.length && timestamps[expired] <= windowStart) {
+            expired++;
+        }
+        return expired;
+    }
+}
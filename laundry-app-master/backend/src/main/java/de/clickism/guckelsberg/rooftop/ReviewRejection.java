@@ -0,0 +1,18 @@
+package de.clickism.guckelsberg.rooftop;
+
+/**
+ * Reasons approving or rejecting a rooftop booking request fails, counted as
+ * {@code app.rooftop.review.rejected}.
+ */
+public enum ReviewRejection {
+    NOT_FOUND,
+    NOT_PENDING,
+    DATE_TAKEN,
+    NO_REVIEWER,
+    NO_REASON;
+
+    /**
+     * Operation name of the review metrics, see {@link de.clickism.guckelsberg.metrics.StageMetrics}.
+     */
+    public static final String OPERATION = "rooftop.review";
+}
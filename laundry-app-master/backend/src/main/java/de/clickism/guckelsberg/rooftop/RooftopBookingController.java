@@ -1,13 +1,20 @@
 package de.clickism.guckelsberg.rooftop;
 
+import de.clickism.guckelsberg.auth.CurrentUser;
+import de.clickism.guckelsberg.etag.AggregateVersions;
+import de.clickism.guckelsberg.etag.ConditionalGet;
+import de.clickism.guckelsberg.events.DomainEvent;
+import de.clickism.guckelsberg.events.DomainEventPublisher;
+import de.clickism.guckelsberg.paging.Cursor;
+import de.clickism.guckelsberg.paging.CursorPage;
 import de.clickism.guckelsberg.user.User;
-import de.clickism.guckelsberg.user.UserRepository;
 import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDate;
 import java.util.Date;
@@ -21,29 +28,30 @@ import static jakarta.servlet.http.HttpServletResponse.*;
 public class RooftopBookingController {
 
     private final RooftopBookingRepository bookingRepository;
-    private final UserRepository userRepository;
+    private final AggregateVersions versions;
+    private final DomainEventPublisher events;
 
     @GetMapping("month/{date}")
-    public @ResponseBody List<RooftopBooking.Dto> getBookingsByMonth(@PathVariable LocalDate date) {
+    public ResponseEntity<List<RooftopBooking.Dto>> getBookingsByMonth(@PathVariable LocalDate date, WebRequest request) {
         LocalDate startDate = date.minusDays(date.getDayOfMonth() - 1);
         LocalDate endDate = startDate.plusDays(date.lengthOfMonth() - 1);
 
-        return bookingRepository
-                .findByDateBetween(startDate, endDate)
-                .stream()
-                .map(booking -> booking.toDto(false))
-                .toList();
+        return ConditionalGet.respond(request, versions.etag(AggregateVersions.rooftopMonth(date)),
+                ConditionalGet.revalidate(), () -> bookingRepository
+                        .findViewsBetween(startDate, endDate)
+                        .stream()
+                        .map(RooftopBookingView::toDto)
+                        .toList());
     }
 
     @GetMapping("me")
     public ResponseEntity<?> getMyBookings(
-            Authentication authentication,
+            @CurrentUser User user,
             @RequestParam(required = false) LocalDate from,
             @RequestParam(required = false) LocalDate to
     ) {
-        User user = userRepository.findUserByRoomNumber(authentication.getName()).orElse(null);
         if (user == null) {
-            return ResponseEntity.status(SC_NOT_FOUND).body("User not found");
+            return ResponseEntity.status(SC_UNAUTHORIZED).build();
         }
         return ResponseEntity.ok(
                 bookingRepository.findByBookerOrderByDateDesc(user)
@@ -60,14 +68,25 @@ public class RooftopBookingController {
     public ResponseEntity<?> getBookings(
             @RequestParam(required = false) LocalDate from,
             @RequestParam(required = false) LocalDate to,
-            @RequestParam(required = false) String bookerRoom
+            @RequestParam(required = false) String bookerRoom,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size
     ) {
-        return ResponseEntity.ok(
-                bookingRepository.search(from, to, bookerRoom)
-                        .stream()
-                        .map(booking -> booking.toDto(true))
-                        .toList()
-        );
+        int pageSize = CursorPage.clampSize(size);
+        try {
+            Cursor after = Cursor.decode(cursor, 2);
+            List<RooftopBooking> rows = bookingRepository.search(
+                    from, to, bookerRoom,
+                    after != null ? after.getDate(0) : null,
+                    after != null ? after.getLong(1) : null,
+                    Limit.of(pageSize + 1)
+            );
+            return ResponseEntity.ok(CursorPage.of(rows, pageSize,
+                    booking -> Cursor.of(booking.getDate(), booking.getId()),
+                    booking -> booking.toDto(true)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(SC_BAD_REQUEST).body(e.getMessage());
+        }
     }
 
     @PreAuthorize("hasRole('ROOFTOP_ADMIN')")
@@ -75,10 +94,11 @@ public class RooftopBookingController {
     @PostMapping
     public ResponseEntity<?> createBooking(
             @RequestBody RooftopBooking.Dto dto,
-            Authentication auth
+            @CurrentUser User booker
     ) {
-        String roomNumber = auth.getName();
-        User booker = userRepository.findUserByRoomNumber(roomNumber).orElseThrow();
+        if (booker == null) {
+            return ResponseEntity.status(SC_UNAUTHORIZED).build();
+        }
         // Check that the date is not in the past
         if (dto.date().atStartOfDay().isBefore(LocalDate.now().atStartOfDay())) {
             return ResponseEntity.status(SC_BAD_REQUEST).build();
@@ -94,24 +114,23 @@ public class RooftopBookingController {
                 dto.reason()
         );
         booking = bookingRepository.save(booking);
+        events.publish(new DomainEvent.RooftopBookingChanged(booking));
         return ResponseEntity.ok(booking);
     }
 
     @PreAuthorize("hasRole('ROOFTOP_ADMIN')")
     @Transactional
     @DeleteMapping
-    public ResponseEntity<?> deleteBooking(@RequestParam Long id, Authentication auth) {
-        String roomNumber = auth.getName();
-        User user = userRepository.findUserByRoomNumber(roomNumber).orElse(null);
+    public ResponseEntity<?> deleteBooking(@RequestParam Long id, @CurrentUser User user) {
         if (user == null) {
-            return ResponseEntity.status(SC_NOT_FOUND).build();
+            return ResponseEntity.status(SC_UNAUTHORIZED).build();
         }
         RooftopBooking booking = bookingRepository.findById(id).orElse(null);
         if (booking == null) {
             return ResponseEntity.status(SC_NOT_FOUND).build();
         }
-        boolean isAdmin = user != null && (user.getRole() == User.Role.ROOFTOP_ADMIN || user.getRole() == User.Role.MASTER_ADMIN);
-        if (!isAdmin && (user == null || !booking.getBooker().equals(user))) {
+        boolean isAdmin = user.getRole() == User.Role.ROOFTOP_ADMIN || user.getRole() == User.Role.MASTER_ADMIN;
+        if (!isAdmin && !booking.getBooker().getRoomNumber().equals(user.getRoomNumber())) {
             return ResponseEntity.status(SC_FORBIDDEN).build();
         }
         if (booking.getDate().isBefore(LocalDate.now())) {
@@ -122,6 +141,7 @@ public class RooftopBookingController {
             return ResponseEntity.status(SC_BAD_REQUEST).build();
         }
         bookingRepository.delete(booking);
+        events.publish(new DomainEvent.RooftopBookingChanged(booking));
         return ResponseEntity.ok().build();
     }
 }
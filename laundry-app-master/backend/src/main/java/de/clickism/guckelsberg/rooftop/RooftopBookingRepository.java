@@ -1,6 +1,7 @@
 package de.clickism.guckelsberg.rooftop;
 
 import de.clickism.guckelsberg.user.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.ListCrudRepository;
 import org.springframework.data.repository.query.Param;
@@ -10,20 +11,35 @@ import java.util.List;
 import java.util.Optional;
 
 public interface RooftopBookingRepository extends ListCrudRepository<RooftopBooking, Long> {
-    List<RooftopBooking> findByDateBetween(LocalDate dateAfter, LocalDate dateBefore);
+    long countByDateBetween(LocalDate dateAfter, LocalDate dateBefore);
+
+    @Query("SELECT b.id AS id, b.booker.roomNumber AS bookerRoomNumber, b.date AS date " +
+            "FROM RooftopBooking b " +
+            "WHERE b.date BETWEEN :fromDate AND :toDate " +
+            "ORDER BY b.date ASC")
+    List<RooftopBookingView> findViewsBetween(
+            @Param("fromDate") LocalDate fromDate,
+            @Param("toDate") LocalDate toDate
+    );
 
     Optional<RooftopBooking> findByDate(LocalDate date);
 
     List<RooftopBooking> findByBookerOrderByDateDesc(User booker);
 
+    Optional<RooftopBooking> findFirstByBooker_RoomNumberAndDateGreaterThanEqualOrderByDateAsc(String roomNumber, LocalDate date);
+
     @Query("SELECT b FROM RooftopBooking b " +
             "WHERE (:fromDate IS NULL OR b.date >= :fromDate) " +
             "AND (:toDate IS NULL OR b.date <= :toDate) " +
             "AND (:bookerRoom IS NULL OR b.booker.roomNumber = :bookerRoom) " +
-            "ORDER BY b.date DESC")
+            "AND (:afterDate IS NULL OR (b.date, b.id) < (:afterDate, :afterId)) " +
+            "ORDER BY b.date DESC, b.id DESC")
     List<RooftopBooking> search(
             @Param("fromDate") LocalDate fromDate,
             @Param("toDate") LocalDate toDate,
-            @Param("bookerRoom") String bookerRoom
+            @Param("bookerRoom") String bookerRoom,
+            @Param("afterDate") LocalDate afterDate,
+            @Param("afterId") Long afterId,
+            Limit limit
     );
 }
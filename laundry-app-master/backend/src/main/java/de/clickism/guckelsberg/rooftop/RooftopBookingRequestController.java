@@ -1,17 +1,23 @@
 package de.clickism.guckelsberg.rooftop;
 
+import de.clickism.guckelsberg.auth.CurrentUser;
+import de.clickism.guckelsberg.events.DomainEvent;
+import de.clickism.guckelsberg.events.DomainEventPublisher;
+import de.clickism.guckelsberg.metrics.StageMetrics;
+import de.clickism.guckelsberg.paging.Cursor;
+import de.clickism.guckelsberg.paging.CursorPage;
 import de.clickism.guckelsberg.user.User;
-import de.clickism.guckelsberg.user.UserRepository;
 import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
 import java.util.Date;
 import java.util.List;
+import java.util.function.Supplier;
 
 import static jakarta.servlet.http.HttpServletResponse.*;
 
@@ -21,18 +27,18 @@ import static jakarta.servlet.http.HttpServletResponse.*;
 public class RooftopBookingRequestController {
     private final RooftopBookingRequestRepository requestRepository;
     private final RooftopBookingRepository rooftopBookingRepository;
-    private final UserRepository userRepository;
+    private final DomainEventPublisher events;
+    private final StageMetrics stageMetrics;
 
     @GetMapping("/me")
     public ResponseEntity<?> getUserRequests(
-            Authentication auth,
+            @CurrentUser User booker,
             @RequestParam(required = false) RooftopBookingRequest.Status status,
             @RequestParam(required = false) LocalDate from,
             @RequestParam(required = false) LocalDate to
     ) {
-        User booker = userRepository.findUserByRoomNumber(auth.getName()).orElse(null);
         if (booker == null) {
-            return ResponseEntity.status(SC_NOT_FOUND).body("User not found");
+            return ResponseEntity.status(SC_UNAUTHORIZED).build();
         }
         return ResponseEntity.ok(
                 requestRepository
@@ -44,32 +50,37 @@ public class RooftopBookingRequestController {
 
     @PreAuthorize("hasRole('ROOFTOP_ADMIN')")
     @GetMapping
-    public @ResponseBody List<RooftopBookingRequest.Dto> getAllRequests(
+    public ResponseEntity<?> getAllRequests(
             @RequestParam(required = false) String bookerRoom,
             @RequestParam(required = false) RooftopBookingRequest.Status status,
             @RequestParam(required = false) LocalDate from,
-            @RequestParam(required = false) LocalDate to
+            @RequestParam(required = false) LocalDate to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size
     ) {
-        User booker = null;
-        if (bookerRoom != null && !bookerRoom.isBlank()) {
-            booker = userRepository.findUserByRoomNumber(bookerRoom).orElse(null);
-            if (booker == null) {
-                return List.of();
-            }
-        }
-        return requestRepository
-                .search(booker, status, from, to)
-                .stream()
-                .map(RooftopBookingRequest::toDto)
-                .toList();
+        String room = bookerRoom != null && !bookerRoom.isBlank() ? bookerRoom : null;
+        int pageSize = CursorPage.clampSize(size);
+        try {
+            Cursor after = Cursor.decode(cursor, 2);
+            List<RooftopBookingRequestView> rows = requestRepository.searchViews(
+                    room, status, from, to,
+                    after != null ? after.getDate(0) : null,
+                    after != null ? after.getLong(1) : null,
+                    Limit.of(pageSize + 1)
+            );
+            return ResponseEntity.ok(CursorPage.of(rows, pageSize,
+                    request -> Cursor.of(request.getDate(), request.getId()),
+                    RooftopBookingRequestView::toDto));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(SC_BAD_REQUEST).body(e.getMessage());
+        }
     }
 
     @PostMapping
     @Transactional
-    public ResponseEntity<?> createRequest(@RequestBody RooftopBookingRequest.Dto dto, Authentication auth) {
-        User booker = userRepository.findUserByRoomNumber(auth.getName()).orElse(null);
+    public ResponseEntity<?> createRequest(@RequestBody RooftopBookingRequest.Dto dto, @CurrentUser User booker) {
         if (booker == null) {
-            return ResponseEntity.status(SC_NOT_FOUND).body("User not found");
+            return ResponseEntity.status(SC_UNAUTHORIZED).build();
         }
         // Check that the date is not in the past
         if (dto.date().atStartOfDay().isBefore(LocalDate.now().atStartOfDay())) {
@@ -92,6 +103,7 @@ public class RooftopBookingRequestController {
         request.setContact(dto.contact());
         request.setTimeSpan(dto.timeSpan());
         requestRepository.save(request);
+        events.publish(new DomainEvent.RooftopRequestChanged(request));
         return ResponseEntity.ok().build();
     }
 
@@ -101,32 +113,34 @@ public class RooftopBookingRequestController {
     public ResponseEntity<?> approveRequest(
             @PathVariable Long id,
             @RequestBody(required = false) DecisionDto body,
-            Authentication auth
+            @CurrentUser User approver
     ) {
-        RooftopBookingRequest request = requestRepository.findById(id).orElse(null);
+        RooftopBookingRequest request = stage("lookup", () -> requestRepository.findById(id)).orElse(null);
         if (request == null) {
-            return ResponseEntity.status(SC_NOT_FOUND).body("Request not found");
+            return rejected(ReviewRejection.NOT_FOUND, SC_NOT_FOUND, "Request not found");
         }
         if (request.getStatus() != RooftopBookingRequest.Status.REQUESTED) {
-            return ResponseEntity.status(SC_BAD_REQUEST).body("Request is not pending");
+            return rejected(ReviewRejection.NOT_PENDING, SC_BAD_REQUEST, "Request is not pending");
         }
-        if (rooftopBookingRepository.findByDate(request.getDate()).isPresent()) {
-            return ResponseEntity.badRequest().body("A booking for this date already exists");
+        if (stage("conflict", () -> rooftopBookingRepository.findByDate(request.getDate())).isPresent()) {
+            return rejected(ReviewRejection.DATE_TAKEN, SC_BAD_REQUEST, "A booking for this date already exists");
         }
-        User approver = userRepository.findUserByRoomNumber(auth.getName()).orElse(null);
         if (approver == null) {
-            return ResponseEntity.badRequest().body("Approver not found");
-        }
-        request.approve(approver, body != null ? body.reason() : null);
-        requestRepository.save(request);
-        RooftopBooking booking = new RooftopBooking(
-                null,
-                request.getBooker(),
-                request.getDate(),
-                new Date(),
-                request.getReason()
-        );
-        rooftopBookingRepository.save(booking);
+            return rejected(ReviewRejection.NO_REVIEWER, SC_UNAUTHORIZED, "Approver not found");
+        }
+        RooftopBooking booking = stage("save", () -> {
+            request.approve(approver, body != null ? body.reason() : null);
+            requestRepository.save(request);
+            return rooftopBookingRepository.save(new RooftopBooking(
+                    null,
+                    request.getBooker(),
+                    request.getDate(),
+                    new Date(),
+                    request.getReason()
+            ));
+        });
+        events.publish(new DomainEvent.RooftopRequestChanged(request));
+        events.publish(new DomainEvent.RooftopBookingChanged(booking));
         return ResponseEntity.ok().build();
     }
 
@@ -136,37 +150,41 @@ public class RooftopBookingRequestController {
     public ResponseEntity<?> rejectRequest(
             @PathVariable Long id,
             @RequestBody(required = false) DecisionDto body,
-            Authentication authentication
+            @CurrentUser User reviewer
     ) {
-        RooftopBookingRequest request = requestRepository.findById(id).orElse(null);
+        RooftopBookingRequest request = stage("lookup", () -> requestRepository.findById(id)).orElse(null);
         if (request == null) {
-            return ResponseEntity.status(SC_NOT_FOUND).body("Request not found");
+            return rejected(ReviewRejection.NOT_FOUND, SC_NOT_FOUND, "Request not found");
         }
         if (request.getStatus() != RooftopBookingRequest.Status.REQUESTED) {
-            return ResponseEntity.status(SC_BAD_REQUEST).body("Request is not pending");
+            return rejected(ReviewRejection.NOT_PENDING, SC_BAD_REQUEST, "Request is not pending");
         }
-        User reviewer = userRepository.findUserByRoomNumber(authentication.getName()).orElse(null);
         if (reviewer == null) {
-            return ResponseEntity.status(SC_BAD_REQUEST).body("Reviewer not found");
+            return rejected(ReviewRejection.NO_REVIEWER, SC_UNAUTHORIZED, "Reviewer not found");
         }
         String reason = body != null ? body.reason() : null;
         if (reason == null || reason.isBlank()) {
-            return ResponseEntity.status(SC_BAD_REQUEST).body("Rejection reason is required");
+            return rejected(ReviewRejection.NO_REASON, SC_BAD_REQUEST, "Rejection reason is required");
         }
-        request.reject(reviewer, reason);
-        requestRepository.save(request);
+        stage("save", () -> {
+            request.reject(reviewer, reason);
+            return requestRepository.save(request);
+        });
+        events.publish(new DomainEvent.RooftopRequestChanged(request));
         return ResponseEntity.ok().build();
     }
 
     @PostMapping("{id}/cancel")
     @Transactional
-    public ResponseEntity<?> cancelRequest(@PathVariable Long id, Authentication authentication) {
+    public ResponseEntity<?> cancelRequest(@PathVariable Long id, @CurrentUser User requester) {
+        if (requester == null) {
+            return ResponseEntity.status(SC_UNAUTHORIZED).build();
+        }
         RooftopBookingRequest request = requestRepository.findById(id).orElse(null);
         if (request == null) {
             return ResponseEntity.status(SC_NOT_FOUND).body("Request not found");
         }
-        User requester = userRepository.findUserByRoomNumber(authentication.getName()).orElse(null);
-        if (requester == null || !request.getBooker().equals(requester)) {
+        if (!request.getBooker().getRoomNumber().equals(requester.getRoomNumber())) {
             return ResponseEntity.status(SC_FORBIDDEN).build();
         }
         if (request.getStatus() != RooftopBookingRequest.Status.REQUESTED) {
@@ -177,8 +195,18 @@ public class RooftopBookingRequestController {
         }
         request.cancel();
         requestRepository.save(request);
+        events.publish(new DomainEvent.RooftopRequestChanged(request));
         return ResponseEntity.ok().build();
     }
 
+    private <T> T stage(String stage, Supplier<T> action) {
+        return stageMetrics.time(ReviewRejection.OPERATION, stage, action);
+    }
+
+    private ResponseEntity<String> rejected(ReviewRejection reason, int status, String message) {
+        stageMetrics.reject(ReviewRejection.OPERATION, reason);
+        return ResponseEntity.status(status).body(message);
+    }
+
     public record DecisionDto(String reason) {}
 }
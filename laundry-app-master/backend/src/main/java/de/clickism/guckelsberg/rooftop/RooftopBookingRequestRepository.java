@@ -1,6 +1,7 @@
 package de.clickism.guckelsberg.rooftop;
 
 import de.clickism.guckelsberg.user.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.ListCrudRepository;
 import org.springframework.data.repository.query.Param;
@@ -16,6 +17,11 @@ public interface RooftopBookingRequestRepository extends ListCrudRepository<Roof
 
     List<RooftopBookingRequest> findByDateGreaterThanEqual(LocalDate dateIsGreaterThan);
 
+    long countByStatusAndDateGreaterThanEqual(RooftopBookingRequest.Status status, LocalDate date);
+
+    long countByBooker_RoomNumberAndStatusAndDateGreaterThanEqual(String roomNumber, RooftopBookingRequest.Status status,
+                                                                 LocalDate date);
+
     @Query("SELECT r FROM RooftopBookingRequest r " +
             "WHERE (:booker IS NULL OR r.booker = :booker) " +
             "AND (:status IS NULL OR r.status = :status) " +
@@ -28,4 +34,25 @@ public interface RooftopBookingRequestRepository extends ListCrudRepository<Roof
             @Param("fromDate") LocalDate fromDate,
             @Param("toDate") LocalDate toDate
     );
+
+    @Query("SELECT r.id AS id, r.booker.roomNumber AS bookerRoomNumber, r.date AS date, " +
+            "r.createdAt AS createdAt, r.reason AS reason, r.contact AS contact, r.status AS status, " +
+            "reviewer.roomNumber AS reviewedByRoomNumber, r.reviewedAt AS reviewedAt, " +
+            "r.decisionReason AS decisionReason, r.timeSpan AS timeSpan " +
+            "FROM RooftopBookingRequest r LEFT JOIN r.reviewedBy reviewer " +
+            "WHERE (:bookerRoom IS NULL OR r.booker.roomNumber = :bookerRoom) " +
+            "AND (:status IS NULL OR r.status = :status) " +
+            "AND (:fromDate IS NULL OR r.date >= :fromDate) " +
+            "AND (:toDate IS NULL OR r.date <= :toDate) " +
+            "AND (:afterDate IS NULL OR (r.date, r.id) < (:afterDate, :afterId)) " +
+            "ORDER BY r.date DESC, r.id DESC")
+    List<RooftopBookingRequestView> searchViews(
+            @Param("bookerRoom") String bookerRoom,
+            @Param("status") RooftopBookingRequest.Status status,
+            @Param("fromDate") LocalDate fromDate,
+            @Param("toDate") LocalDate toDate,
+            @Param("afterDate") LocalDate afterDate,
+            @Param("afterId") Long afterId,
+            Limit limit
+    );
 }
@@ -0,0 +1,47 @@
+package de.clickism.guckelsberg.rooftop;
+
+import java.time.LocalDate;
+import java.util.Date;
+
+/**
+ * Read-only projection of exactly the columns needed for {@link RooftopBookingRequest.Dto}.
+ */
+public interface RooftopBookingRequestView {
+    Long getId();
+
+    String getBookerRoomNumber();
+
+    LocalDate getDate();
+
+    Date getCreatedAt();
+
+    String getReason();
+
+    String getContact();
+
+    RooftopBookingRequest.Status getStatus();
+
+    String getReviewedByRoomNumber();
+
+    Date getReviewedAt();
+
+    String getDecisionReason();
+
+    String getTimeSpan();
+
+    default RooftopBookingRequest.Dto toDto() {
+        return new RooftopBookingRequest.Dto(
+                getId(),
+                getBookerRoomNumber(),
+                getDate(),
+                getCreatedAt(),
+                getReason(),
+                getContact(),
+                getStatus(),
+                getReviewedByRoomNumber(),
+                getReviewedAt(),
+                getDecisionReason(),
+                getTimeSpan()
+        );
+    }
+}
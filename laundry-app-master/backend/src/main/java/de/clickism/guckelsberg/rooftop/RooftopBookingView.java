@@ -0,0 +1,23 @@
+package de.clickism.guckelsberg.rooftop;
+
+import java.time.LocalDate;
+
+/**
+ * Read-only projection of a rooftop booking without its reason.
+ */
+public interface RooftopBookingView {
+    Long getId();
+
+    String getBookerRoomNumber();
+
+    LocalDate getDate();
+
+    default RooftopBooking.Dto toDto() {
+        return new RooftopBooking.Dto(
+                getId(),
+                getBookerRoomNumber(),
+                getDate(),
+                null
+        );
+    }
+}
@@ -0,0 +1,197 @@
+package de.clickism.guckelsberg.session;
+
+import org.springframework.lang.Nullable;
+import org.springframework.session.FindByIndexNameSessionRepository;
+import org.springframework.session.MapSession;
+import org.springframework.session.Session;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Session repository that serves hot sessions from the {@link SessionCache} and only falls back to
+ * the JDBC repository on a miss.
+ * <p>
+ * Requests that merely touch a session are not written through, their last access time is buffered
+ * and written in batches by the cache. Any other change, as well as new sessions, is written to the
+ * table right away, so every instance sees it once its cached copy is revalidated.
+ */
+public class CachingSessionRepository implements FindByIndexNameSessionRepository<CachingSessionRepository.CachedSession> {
+    private final FindByIndexNameSessionRepository<Session> delegate;
+    private final SessionCache cache;
+
+    @SuppressWarnings("unchecked")
+    public CachingSessionRepository(FindByIndexNameSessionRepository<? extends Session> delegate, SessionCache cache) {
+        // The JDBC session type is not public, the delegate only ever gets back sessions it created
+        this.delegate = (FindByIndexNameSessionRepository<Session>) delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public CachedSession createSession() {
+        Session session = delegate.createSession();
+        CachedSession cached = new CachedSession(new MapSession(session), session);
+        cached.changed = true;
+        return cached;
+    }
+
+    @Override
+    public void save(CachedSession session) {
+        if (session.changed) {
+            delegate.save(session.backing());
+            if (!session.originalId.equals(session.getId())) {
+                cache.evict(session.originalId);
+            }
+            cache.put(session.local);
+        } else if (session.lastAccessChanged) {
+            cache.touch(session.getId(), session.getLastAccessedTime(), session.getMaxInactiveInterval());
+        }
+    }
+
+    @Override
+    @Nullable
+    public CachedSession findById(String id) {
+        MapSession cached = cache.get(id);
+        if (cached != null) {
+            return new CachedSession(cached, null);
+        }
+        Session session = delegate.findById(id);
+        if (session == null) {
+            cache.evict(id);
+            return null;
+        }
+        MapSession snapshot = new MapSession(session);
+        cache.put(snapshot);
+        return new CachedSession(snapshot, session);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        delegate.deleteById(id);
+        // Evicted after the delete, so a concurrent lookup cannot cache the session again
+        cache.evict(id);
+    }
+
+    @Override
+    public Map<String, CachedSession> findByIndexNameAndIndexValue(String indexName, String indexValue) {
+        Map<String, CachedSession> sessions = new LinkedHashMap<>();
+        delegate.findByIndexNameAndIndexValue(indexName, indexValue)
+                .forEach((id, session) -> sessions.put(id, new CachedSession(new MapSession(session), session)));
+        return sessions;
+    }
+
+    /**
+     * Session backed by a private snapshot. The JDBC session is only loaded once the session is changed
+     * in a way that has to be written through.
+     */
+    public final class CachedSession implements Session {
+        private final MapSession local;
+        private final String originalId;
+        @Nullable
+        private Session backing;
+        private boolean changed;
+        private boolean lastAccessChanged;
+
+        private CachedSession(MapSession local, @Nullable Session backing) {
+            this.local = local;
+            this.originalId = local.getId();
+            this.backing = backing;
+        }
+
+        @Override
+        public String getId() {
+            return local.getId();
+        }
+
+        @Override
+        public String changeSessionId() {
+            String id = backing().changeSessionId();
+            local.setId(id);
+            changed = true;
+            return id;
+        }
+
+        @Override
+        public <T> T getAttribute(String attributeName) {
+            return local.getAttribute(attributeName);
+        }
+
+        @Override
+        public Set<String> getAttributeNames() {
+            return local.getAttributeNames();
+        }
+
+        @Override
+        public void setAttribute(String attributeName, Object attributeValue) {
+            // Backing first, starting over drops the local attributes
+            backing().setAttribute(attributeName, attributeValue);
+            local.setAttribute(attributeName, attributeValue);
+            changed = true;
+        }
+
+        @Override
+        public void removeAttribute(String attributeName) {
+            backing().removeAttribute(attributeName);
+            local.removeAttribute(attributeName);
+            changed = true;
+        }
+
+        @Override
+        public Instant getCreationTime() {
+            return local.getCreationTime();
+        }
+
+        @Override
+        public void setLastAccessedTime(Instant lastAccessedTime) {
+            local.setLastAccessedTime(lastAccessedTime);
+            if (backing != null) {
+                backing.setLastAccessedTime(lastAccessedTime);
+            }
+            lastAccessChanged = true;
+        }
+
+        @Override
+        public Instant getLastAccessedTime() {
+            return local.getLastAccessedTime();
+        }
+
+        @Override
+        public void setMaxInactiveInterval(Duration interval) {
+            backing().setMaxInactiveInterval(interval);
+            local.setMaxInactiveInterval(interval);
+            changed = true;
+        }
+
+        @Override
+        public Duration getMaxInactiveInterval() {
+            return local.getMaxInactiveInterval();
+        }
+
+        @Override
+        public boolean isExpired() {
+            return local.isExpired();
+        }
+
+        private Session backing() {
+            if (backing != null) {
+                return backing;
+            }
+            Session session = delegate.findById(originalId);
+            if (session == null) {
+                // Invalidated by another instance in the meantime, so start over instead of reviving it
+                session = delegate.createSession();
+                for (String name : Set.copyOf(local.getAttributeNames())) {
+                    local.removeAttribute(name);
+                }
+                local.setMaxInactiveInterval(session.getMaxInactiveInterval());
+                local.setId(session.getId());
+            }
+            session.setLastAccessedTime(local.getLastAccessedTime());
+            backing = session;
+            return session;
+        }
+    }
+}
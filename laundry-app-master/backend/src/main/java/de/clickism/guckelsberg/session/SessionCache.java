@@ -0,0 +1,305 @@
+package de.clickism.guckelsberg.session;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.MapSession;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded, least recently used cache of session snapshots in front of the session table, together with
+ * the write-behind buffer of last access times.
+ * <p>
+ * Snapshots are never changed once cached and are handed out as copies, so lookups take no lock and
+ * attributes set or removed by a request only reach other requests once its session is saved.
+ * The copies are shallow: attribute values, such as the security context, are the same objects for all
+ * requests of a session, like with an in-memory servlet session. Login therefore stores a new security
+ * context instead of changing the current one, only logout clears it in place along with deleting the session.
+ * <p>
+ * Sessions deleted or given a new id by this instance are evicted right away. For other instances, the
+ * ids of sessions used since the previous sweep are checked against the table every
+ * {@code app.sessions.cache.sweep-interval}. Sessions that were idle during the last sweep are checked
+ * on their next lookup instead, which is a lot cheaper than loading them again. Both bound how long a
+ * logged out session can be served from here. Other changes, such as new attributes, are picked up
+ * once a snapshot is older than {@code app.sessions.cache.revalidate-after}. Attributes only change on
+ * login, so it is kept well above the clients' polling interval, which then never reloads a session.
+ */
+@Slf4j
+@Component
+public class SessionCache {
+    private static final int SWEEP_BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String updateLastAccessSql;
+    private final String existingIdsSql;
+    private final int maxSize;
+    private final long revalidateAfterMillis;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, PendingAccess> pendingAccesses = new ConcurrentHashMap<>();
+    private final ReentrantLock trimLock = new ReentrantLock();
+    // Start of the last completed sweep
+    private volatile long lastSweepAt;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final DistributionSummary flushBatchSize;
+    private final Counter swept;
+
+    public SessionCache(
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${spring.session.jdbc.table-name:SPRING_SESSION}") String tableName,
+            @Value("${app.sessions.cache.max-size:10000}") int maxSize,
+            @Value("${app.sessions.cache.revalidate-after:30m}") Duration revalidateAfter
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Never move the last access time backwards, another instance may have written a newer one
+        this.updateLastAccessSql = "UPDATE " + tableName + " SET LAST_ACCESS_TIME = ?, EXPIRY_TIME = ? " +
+                                   "WHERE SESSION_ID = ? AND LAST_ACCESS_TIME < ?";
+        this.existingIdsSql = "SELECT SESSION_ID FROM " + tableName + " WHERE SESSION_ID IN (%s)";
+        this.maxSize = maxSize;
+        this.revalidateAfterMillis = revalidateAfter.toMillis();
+        this.hits = Counter.builder("app.sessions.cache")
+                .tag("result", "hit")
+                .description("Session lookups by cache result")
+                .register(meterRegistry);
+        this.misses = Counter.builder("app.sessions.cache")
+                .tag("result", "miss")
+                .description("Session lookups by cache result")
+                .register(meterRegistry);
+        this.flushBatchSize = DistributionSummary.builder("app.sessions.flush.batch-size")
+                .description("Last access times written per write-behind flush")
+                .register(meterRegistry);
+        this.swept = Counter.builder("app.sessions.cache.swept")
+                .description("Cached sessions evicted because they were deleted or renamed by another instance")
+                .register(meterRegistry);
+        Gauge.builder("app.sessions.cache.size", this, SessionCache::size)
+                .description("Sessions held in the in-process cache")
+                .register(meterRegistry);
+        Gauge.builder("app.sessions.flush.pending", pendingAccesses, Map::size)
+                .description("Sessions with a last access time waiting to be written")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Gets a copy of the cached session, or null if it is not cached, expired or due for revalidation.
+     */
+    @Nullable
+    public MapSession get(String id) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(id);
+        if (entry != null && isFresh(entry, now) && (entry.checkedAt >= lastSweepAt || exists(id, entry, now))) {
+            entry.lastUsed = now;
+            hits.increment();
+            return new MapSession(entry.session);
+        }
+        if (entry != null) {
+            entries.remove(id, entry);
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Caches a copy of the session as it was just loaded from or written to the table.
+     */
+    public void put(MapSession session) {
+        long now = System.currentTimeMillis();
+        entries.put(session.getId(), new Entry(new MapSession(session), now, now, now));
+        if (entries.size() > maxSize) {
+            trim();
+        }
+    }
+
+    /**
+     * Records a new last access time of the session, which is written with the next flush.
+     * The rest of the cached snapshot is kept, as a concurrent request may have changed it.
+     */
+    public void touch(String id, Instant lastAccessedTime, Duration maxInactiveInterval) {
+        entries.computeIfPresent(id, (key, entry) -> {
+            if (!entry.session.getLastAccessedTime().isBefore(lastAccessedTime)) {
+                return entry;
+            }
+            // Replaced instead of changed, a concurrent lookup may be copying the snapshot
+            MapSession session = new MapSession(entry.session);
+            session.setLastAccessedTime(lastAccessedTime);
+            return new Entry(session, entry.loadedAt, entry.lastUsed, entry.checkedAt);
+        });
+        pendingAccesses.merge(id, new PendingAccess(lastAccessedTime, maxInactiveInterval), PendingAccess::latest);
+    }
+
+    public void evict(String id) {
+        entries.remove(id);
+        pendingAccesses.remove(id);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Evicts the cached sessions used since the previous sweep that no longer exist in the table under
+     * their id, because another instance deleted them, e.g. on logout, or changed their id. Snapshots due
+     * for revalidation are dropped without a query.
+     */
+    @Scheduled(fixedDelayString = "${app.sessions.cache.sweep-interval:PT5S}")
+    public void sweep() {
+        long startedAt = System.currentTimeMillis();
+        long previousSweepAt = lastSweepAt;
+        entries.entrySet().removeIf(entry -> !isFresh(entry.getValue(), startedAt));
+        List<Map.Entry<String, Entry>> used = entries.entrySet().stream()
+                .filter(entry -> entry.getValue().lastUsed >= previousSweepAt)
+                .toList();
+        for (int from = 0; from < used.size(); from += SWEEP_BATCH_SIZE) {
+            List<Map.Entry<String, Entry>> batch = used.subList(from, Math.min(from + SWEEP_BATCH_SIZE, used.size()));
+            Set<String> existing;
+            try {
+                existing = new HashSet<>(queryExistingIds(batch.stream().map(Map.Entry::getKey).toArray()));
+            } catch (DataAccessException e) {
+                log.warn("Could not check {} cached sessions, retrying with the next sweep.", batch.size(), e);
+                return;
+            }
+            for (Map.Entry<String, Entry> entry : batch) {
+                if (existing.contains(entry.getKey())) {
+                    // The snapshot may have been replaced in the meantime, its id was checked all the same
+                    Entry current = entries.get(entry.getKey());
+                    if (current != null && current.checkedAt < startedAt) {
+                        current.checkedAt = startedAt;
+                    }
+                } else if (entries.remove(entry.getKey(), entry.getValue())) {
+                    // A snapshot cached after the query started is as fresh as the query
+                    swept.increment();
+                }
+            }
+        }
+        lastSweepAt = startedAt;
+    }
+
+    private boolean isFresh(Entry entry, long now) {
+        return now - entry.loadedAt < revalidateAfterMillis && !entry.session.isExpired();
+    }
+
+    /**
+     * Checks that a session idle during the last sweep still exists under its id.
+     */
+    private boolean exists(String id, Entry entry, long now) {
+        try {
+            if (queryExistingIds(id).isEmpty()) {
+                return false;
+            }
+        } catch (DataAccessException e) {
+            // Loaded again, which reports the failure
+            return false;
+        }
+        entry.checkedAt = now;
+        return true;
+    }
+
+    private List<String> queryExistingIds(Object... ids) {
+        return jdbcTemplate.queryForList(
+                existingIdsSql.formatted(String.join(", ", Collections.nCopies(ids.length, "?"))), String.class, ids);
+    }
+
+    /**
+     * Evicts the least recently used tenth of the cache. Only one thread trims at a time, others keep
+     * going while the cache is briefly over its size.
+     */
+    private void trim() {
+        if (!trimLock.tryLock()) {
+            return;
+        }
+        try {
+            int excess = entries.size() - maxSize;
+            if (excess <= 0) {
+                return;
+            }
+            int toEvict = Math.max(excess, maxSize / 10);
+            entries.entrySet().stream()
+                    .sorted(Comparator.comparingLong(entry -> entry.getValue().lastUsed))
+                    .limit(toEvict)
+                    .toList()
+                    .forEach(entry -> entries.remove(entry.getKey(), entry.getValue()));
+        } finally {
+            trimLock.unlock();
+        }
+    }
+
+    /**
+     * Writes all buffered last access times to the table with one batch.
+     */
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${app.sessions.flush-interval:PT10S}")
+    public void flush() {
+        if (pendingAccesses.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>(pendingAccesses.size());
+        List<Map.Entry<String, PendingAccess>> drained = new ArrayList<>(pendingAccesses.size());
+        for (String id : pendingAccesses.keySet()) {
+            PendingAccess access = pendingAccesses.remove(id);
+            if (access == null) {
+                continue;
+            }
+            long lastAccessMillis = access.lastAccessedTime().toEpochMilli();
+            batch.add(new Object[]{lastAccessMillis, access.expiryMillis(), id, lastAccessMillis});
+            drained.add(Map.entry(id, access));
+        }
+        try {
+            jdbcTemplate.batchUpdate(updateLastAccessSql, batch);
+            flushBatchSize.record(batch.size());
+        } catch (DataAccessException e) {
+            log.warn("Could not write {} session access times, retrying with the next flush.", batch.size(), e);
+            drained.forEach(entry -> pendingAccesses.merge(entry.getKey(), entry.getValue(), PendingAccess::latest));
+        }
+    }
+
+    private static final class Entry {
+        private final MapSession session;
+        private final long loadedAt;
+        // Only used to pick entries to evict and sweep, so updates may be lost
+        private volatile long lastUsed;
+        // When the id was last known to exist in the table, an update lost only costs another check
+        private volatile long checkedAt;
+
+        private Entry(MapSession session, long loadedAt, long lastUsed, long checkedAt) {
+            this.session = session;
+            this.loadedAt = loadedAt;
+            this.lastUsed = lastUsed;
+            this.checkedAt = checkedAt;
+        }
+    }
+
+    private record PendingAccess(Instant lastAccessedTime, Duration maxInactiveInterval) {
+        long expiryMillis() {
+            if (maxInactiveInterval.isNegative()) {
+                return Long.MAX_VALUE;
+            }
+            return lastAccessedTime.plus(maxInactiveInterval).toEpochMilli();
+        }
+
+        static PendingAccess latest(PendingAccess a, PendingAccess b) {
+            return a.lastAccessedTime().isAfter(b.lastAccessedTime()) ? a : b;
+        }
+    }
+}
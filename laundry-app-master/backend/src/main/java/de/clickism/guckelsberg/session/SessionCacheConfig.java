@@ -0,0 +1,30 @@
+package de.clickism.guckelsberg.session;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.session.jdbc.JdbcIndexedSessionRepository;
+
+/**
+ * Puts the {@link CachingSessionRepository} in front of the auto-configured JDBC session repository.
+ * <p>
+ * The repository is wrapped instead of declared as a bean of its own, which would make Spring Boot
+ * back off from configuring the JDBC repository, its schema initialization and expired session cleanup.
+ */
+@Configuration
+public class SessionCacheConfig {
+
+    @Bean
+    public static BeanPostProcessor cachingSessionRepositoryPostProcessor(ObjectProvider<SessionCache> sessionCache) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof JdbcIndexedSessionRepository repository) {
+                    return new CachingSessionRepository(repository, sessionCache.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,275 @@
+package de.clickism.guckelsberg.sql;
+
+import de.clickism.guckelsberg.metrics.StageMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.Temporal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accounts the statements executed through the {@link QueryAccountingDataSource} to the request and
+ * the outermost repository method running on the current thread.
+ * <p>
+ * Per request and per repository method, the number of statements, the rows they returned or changed
+ * and the time spent executing them are recorded as {@code app.sql.request.*} and
+ * {@code app.sql.repository.*}. Time spent fetching rows is not included. Requests that run the same
+ * statement over and over, typically lazy or eager to-one loads for every row of a list, are counted
+ * as {@code app.sql.n-plus-one} and logged once per endpoint and statement.
+ * <p>
+ * Statements slower than the threshold are kept in a bounded log, see {@link SlowQueriesEndpoint}.
+ * Of their bind parameters, only numbers, booleans and dates are kept as they are.
+ */
+@Slf4j
+@Component
+public class QueryAccounting {
+    private final MeterRegistry meterRegistry;
+    private final long slowThresholdNanos;
+    private final int slowLogSize;
+    private final int nPlusOneThreshold;
+
+    private final ThreadLocal<RequestStats> currentRequest = new ThreadLocal<>();
+    private final ThreadLocal<Stats> currentRepositoryCall = new ThreadLocal<>();
+    private final Deque<SlowStatement> slowStatements = new ArrayDeque<>();
+    private final Set<String> reportedNPlusOnes = ConcurrentHashMap.newKeySet();
+
+    public QueryAccounting(
+            MeterRegistry meterRegistry,
+            @Value("${app.sql.slow-threshold:100ms}") Duration slowThreshold,
+            @Value("${app.sql.slow-log-size:100}") int slowLogSize,
+            @Value("${app.sql.n-plus-one-threshold:5}") int nPlusOneThreshold
+    ) {
+        this.meterRegistry = meterRegistry;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.slowLogSize = slowLogSize;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+    }
+
+    /**
+     * Starts accounting the statements of the current thread to the request, until
+     * {@link #endRequest} is called with the returned stats.
+     */
+    RequestStats startRequest(HttpServletRequest request) {
+        RequestStats stats = new RequestStats(request);
+        currentRequest.set(stats);
+        return stats;
+    }
+
+    void endRequest(RequestStats stats) {
+        currentRequest.remove();
+        String endpoint = StageMetrics.endpointOf(stats.request);
+        record("app.sql.request", "endpoint", endpoint, stats);
+        boolean nPlusOne = false;
+        for (Map.Entry<String, StatementCount> entry : stats.statementCounts.entrySet()) {
+            StatementCount count = entry.getValue();
+            if (count.executions < nPlusOneThreshold) {
+                continue;
+            }
+            nPlusOne = true;
+            if (reportedNPlusOnes.add(endpoint + "\n" + entry.getKey())) {
+                log.warn("Possible N+1 query: {} ran {} times during {} (last from {}). Further occurrences are only counted.",
+                        entry.getKey(), count.executions, endpoint,
+                        count.repositoryMethod != null ? count.repositoryMethod : "no repository");
+            }
+        }
+        if (nPlusOne) {
+            Counter.builder("app.sql.n-plus-one")
+                    .description("Requests that ran the same statement at least " + nPlusOneThreshold + " times")
+                    .tag("endpoint", endpoint)
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+
+    /**
+     * Starts accounting to the repository method, unless a repository call is already in progress on
+     * the current thread, which then keeps the statements of nested calls.
+     *
+     * @return true if {@link #endRepositoryCall} must be called once the method returned
+     */
+    boolean startRepositoryCall(String method) {
+        if (currentRepositoryCall.get() != null) {
+            return false;
+        }
+        currentRepositoryCall.set(new Stats(method));
+        return true;
+    }
+
+    void endRepositoryCall() {
+        Stats stats = currentRepositoryCall.get();
+        currentRepositoryCall.remove();
+        // Methods answered from the persistence context never reach the database
+        if (stats != null && stats.statements > 0) {
+            record("app.sql.repository", "method", stats.name, stats);
+        }
+    }
+
+    void recordStatement(String sql, long nanos, long rows, @Nullable Map<Integer, Object> parameters) {
+        RequestStats request = currentRequest.get();
+        Stats repositoryCall = currentRepositoryCall.get();
+        if (request != null) {
+            request.add(nanos, rows);
+            StatementCount count = request.statementCounts.computeIfAbsent(sql, key -> new StatementCount());
+            count.executions++;
+            if (repositoryCall != null) {
+                count.repositoryMethod = repositoryCall.name;
+            }
+        }
+        if (repositoryCall != null) {
+            repositoryCall.add(nanos, rows);
+        }
+        if (nanos >= slowThresholdNanos) {
+            addSlowStatement(new SlowStatement(
+                    Instant.now(),
+                    sql,
+                    describe(parameters),
+                    TimeUnit.NANOSECONDS.toMillis(nanos),
+                    request != null ? StageMetrics.endpointOf(request.request) : null,
+                    repositoryCall != null ? repositoryCall.name : null
+            ));
+        }
+    }
+
+    /**
+     * Counts rows read from a result set after its statement was executed.
+     */
+    void recordRows(long rows) {
+        RequestStats request = currentRequest.get();
+        if (request != null) {
+            request.rows += rows;
+        }
+        Stats repositoryCall = currentRepositoryCall.get();
+        if (repositoryCall != null) {
+            repositoryCall.rows += rows;
+        }
+    }
+
+    /**
+     * Gets the slow statements that were logged, newest first.
+     */
+    public synchronized List<SlowStatement> getSlowStatements() {
+        return new ArrayList<>(slowStatements);
+    }
+
+    private synchronized void addSlowStatement(SlowStatement statement) {
+        if (slowLogSize <= 0) {
+            return;
+        }
+        if (slowStatements.size() >= slowLogSize) {
+            slowStatements.removeLast();
+        }
+        slowStatements.addFirst(statement);
+    }
+
+    private void record(String prefix, String tagKey, String tagValue, Stats stats) {
+        DistributionSummary.builder(prefix + ".statements")
+                .description("Statements executed")
+                .tag(tagKey, tagValue)
+                .register(meterRegistry)
+                .record(stats.statements);
+        DistributionSummary.builder(prefix + ".rows")
+                .description("Rows returned or changed by the statements")
+                .tag(tagKey, tagValue)
+                .register(meterRegistry)
+                .record(stats.rows);
+        Timer.builder(prefix + ".time")
+                .description("Time spent executing the statements")
+                .tag(tagKey, tagValue)
+                .register(meterRegistry)
+                .record(stats.nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static List<String> describe(@Nullable Map<Integer, Object> parameters) {
+        if (parameters == null) {
+            return List.of();
+        }
+        return parameters.values().stream()
+                .map(QueryAccounting::describe)
+                .toList();
+    }
+
+    /**
+     * Describes a bind parameter without revealing it, unless it is a number, a boolean or a date.
+     * Strings may be session ids, names or password hashes, so only their type is kept.
+     */
+    private static String describe(@Nullable Object parameter) {
+        return switch (parameter) {
+            case null -> "null";
+            case Number number -> number.toString();
+            case Boolean bool -> bool.toString();
+            case Temporal temporal -> temporal.toString();
+            case Date date -> date.toString();
+            default -> "<" + parameter.getClass().getSimpleName() + ">";
+        };
+    }
+
+    /**
+     * A statement that took longer than the threshold to execute.
+     *
+     * @param endpoint         the endpoint of the request, or null if it ran outside of a request
+     * @param repositoryMethod the repository method that ran it, or null
+     */
+    public record SlowStatement(
+            Instant at,
+            String sql,
+            List<String> parameters,
+            long millis,
+            String endpoint,
+            String repositoryMethod
+    ) {
+    }
+
+    private static class Stats {
+        final String name;
+        int statements;
+        long rows;
+        long nanos;
+
+        private Stats(String name) {
+            this.name = name;
+        }
+
+        void add(long nanos, long rows) {
+            this.statements++;
+            this.rows += rows;
+            this.nanos += nanos;
+        }
+    }
+
+    static class RequestStats extends Stats {
+        private final HttpServletRequest request;
+        private final Map<String, StatementCount> statementCounts = new HashMap<>();
+
+        private RequestStats(HttpServletRequest request) {
+            super(null);
+            this.request = request;
+        }
+
+        int getStatements() {
+            return statements;
+        }
+    }
+
+    private static class StatementCount {
+        private int executions;
+        private String repositoryMethod;
+    }
+}
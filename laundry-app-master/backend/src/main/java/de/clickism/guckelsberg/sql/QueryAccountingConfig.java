@@ -0,0 +1,70 @@
+package de.clickism.guckelsberg.sql;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Routes all statements through the {@link QueryAccountingDataSource} and lets repository proxies tell
+ * the {@link QueryAccounting} which repository method is running.
+ * <p>
+ * Like the connection limit of virtual thread mode, the data source is wrapped instead of replaced, so
+ * the auto-configured pool and its metrics stay in place. Both wrappers work in either order.
+ */
+@Configuration
+public class QueryAccountingConfig {
+
+    @Bean
+    public static BeanPostProcessor queryAccountingDataSourcePostProcessor(ObjectProvider<QueryAccounting> queryAccounting) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof QueryAccountingDataSource)) {
+                    return new QueryAccountingDataSource(dataSource, queryAccounting.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public static BeanPostProcessor queryAccountingRepositoryPostProcessor(ObjectProvider<QueryAccounting> queryAccounting) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                // Repositories are created when the factory bean is initialized, so customize it before
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(repositoryCallInterceptor(
+                                    repositoryInformation.getRepositoryInterface().getSimpleName(), queryAccounting))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static MethodInterceptor repositoryCallInterceptor(String repositoryName,
+                                                               ObjectProvider<QueryAccounting> queryAccounting) {
+        Map<Method, String> names = new ConcurrentHashMap<>();
+        return invocation -> {
+            String name = names.computeIfAbsent(invocation.getMethod(), method -> repositoryName + "." + method.getName());
+            QueryAccounting accounting = queryAccounting.getObject();
+            if (!accounting.startRepositoryCall(name)) {
+                return invocation.proceed();
+            }
+            try {
+                return invocation.proceed();
+            } finally {
+                accounting.endRepositoryCall();
+            }
+        };
+    }
+}
@@ -0,0 +1,141 @@
+package de.clickism.guckelsberg.sql;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Hands out connections whose statements report every execution to the {@link QueryAccounting}.
+ * <p>
+ * Only the execution itself is timed. Rows are counted from update counts and while result sets are
+ * read. Bind parameters are kept per statement, so slow statements can be logged with them.
+ */
+public class QueryAccountingDataSource extends DelegatingDataSource {
+    private static final Set<String> EXECUTE_METHODS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch"
+    );
+
+    private final QueryAccounting queryAccounting;
+
+    public QueryAccountingDataSource(DataSource target, QueryAccounting queryAccounting) {
+        super(target);
+        this.queryAccounting = queryAccounting;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connection(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connection(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection connection(Connection connection) {
+        return proxy(Connection.class, connection, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            return switch (method.getName()) {
+                case "prepareStatement" -> statement(PreparedStatement.class, (Statement) result, (String) args[0], proxy);
+                case "prepareCall" -> statement(CallableStatement.class, (Statement) result, (String) args[0], proxy);
+                case "createStatement" -> statement(Statement.class, (Statement) result, null, proxy);
+                default -> result;
+            };
+        });
+    }
+
+    private <T extends Statement> T statement(Class<T> type, Statement statement, String preparedSql, Object connection) {
+        Map<Integer, Object> parameters = preparedSql != null ? new TreeMap<>() : null;
+        return proxy(type, statement, (proxy, method, args) -> {
+            String name = method.getName();
+            if (parameters != null && name.startsWith("set") && args != null && args.length >= 2
+                && args[0] instanceof Integer index) {
+                parameters.put(index, name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters") && parameters != null) {
+                parameters.clear();
+            } else if (name.equals("getConnection")) {
+                return connection;
+            } else if (EXECUTE_METHODS.contains(name)) {
+                String sql = preparedSql != null ? preparedSql : args != null && args.length > 0 ? (String) args[0] : "";
+                long start = System.nanoTime();
+                Object result = invoke(statement, method, args);
+                queryAccounting.recordStatement(sql, System.nanoTime() - start, rows(result), parameters);
+                return result instanceof ResultSet resultSet ? resultSet(resultSet, proxy) : result;
+            }
+            Object result = invoke(statement, method, args);
+            // Generated keys are not rows of the statement
+            return name.equals("getResultSet") && result instanceof ResultSet resultSet
+                    ? resultSet(resultSet, proxy)
+                    : result;
+        });
+    }
+
+    private ResultSet resultSet(ResultSet resultSet, Object statement) {
+        return proxy(ResultSet.class, resultSet, (proxy, method, args) -> {
+            if (method.getName().equals("getStatement")) {
+                return statement;
+            }
+            Object result = invoke(resultSet, method, args);
+            if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+                queryAccounting.recordRows(1);
+            }
+            return result;
+        });
+    }
+
+    private static long rows(Object result) {
+        return switch (result) {
+            case Integer count -> Math.max(count, 0);
+            case Long count -> Math.max(count, 0);
+            // Drivers report SUCCESS_NO_INFO as a negative count
+            case int[] counts -> {
+                long rows = 0;
+                for (int count : counts) {
+                    rows += Math.max(count, 0);
+                }
+                yield rows;
+            }
+            case long[] counts -> {
+                long rows = 0;
+                for (long count : counts) {
+                    rows += Math.max(count, 0);
+                }
+                yield rows;
+            }
+            case null, default -> 0;
+        };
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private static <T> T proxy(Class<T> type, Object target, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(
+                QueryAccountingDataSource.class.getClassLoader(),
+                new Class<?>[]{type},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "toString" -> target.toString();
+                    default -> handler.invoke(proxy, method, args);
+                }));
+    }
+}
@@ -0,0 +1,110 @@
+package de.clickism.guckelsberg.sql;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.session.web.http.SessionRepositoryFilter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Accounts the statements of each request, including the ones loading and saving its session, and
+ * optionally reports their number in the {@code X-Query-Count} response header.
+ * <p>
+ * The header is meant for development, see application-dev.properties. It is written when the response
+ * body starts, so statements run while the body is written are not included.
+ */
+@Component
+@Order(SessionRepositoryFilter.DEFAULT_ORDER - 1)
+public class QueryAccountingFilter extends OncePerRequestFilter {
+    private static final String QUERY_COUNT_HEADER = "X-Query-Count";
+
+    private final QueryAccounting queryAccounting;
+    private final boolean queryCountHeader;
+
+    public QueryAccountingFilter(
+            QueryAccounting queryAccounting,
+            @Value("${app.sql.query-count-header:false}") boolean queryCountHeader
+    ) {
+        this.queryAccounting = queryAccounting;
+        this.queryCountHeader = queryCountHeader;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryAccounting.RequestStats stats = queryAccounting.startRequest(request);
+        QueryCountResponse countingResponse = queryCountHeader ? new QueryCountResponse(response, stats) : null;
+        try {
+            filterChain.doFilter(request, countingResponse != null ? countingResponse : response);
+        } finally {
+            if (countingResponse != null) {
+                // Responses without a body, such as 304 Not Modified
+                countingResponse.writeQueryCount();
+            }
+            queryAccounting.endRequest(stats);
+        }
+    }
+
+    private static class QueryCountResponse extends HttpServletResponseWrapper {
+        private final QueryAccounting.RequestStats stats;
+        private boolean written;
+
+        QueryCountResponse(HttpServletResponse response, QueryAccounting.RequestStats stats) {
+            super(response);
+            this.stats = stats;
+        }
+
+        void writeQueryCount() {
+            if (written || isCommitted()) {
+                return;
+            }
+            written = true;
+            setHeader(QUERY_COUNT_HEADER, String.valueOf(stats.getStatements()));
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeQueryCount();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeQueryCount();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeQueryCount();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeQueryCount();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeQueryCount();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeQueryCount();
+            super.sendRedirect(location);
+        }
+    }
+}
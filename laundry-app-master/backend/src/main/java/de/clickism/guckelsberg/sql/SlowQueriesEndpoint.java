@@ -0,0 +1,24 @@
+package de.clickism.guckelsberg.sql;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Lists the most recent slow statements with their bind parameters at {@code /actuator/slowqueries}
+ * on the management port.
+ */
+@Component
+@Endpoint(id = "slowqueries")
+@RequiredArgsConstructor
+public class SlowQueriesEndpoint {
+    private final QueryAccounting queryAccounting;
+
+    @ReadOperation
+    public List<QueryAccounting.SlowStatement> slowQueries() {
+        return queryAccounting.getSlowStatements();
+    }
+}
@@ -0,0 +1,139 @@
+package de.clickism.guckelsberg.threads;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reports virtual threads pinned to their carrier thread, which happens when they block inside a
+ * {@code synchronized} block or method, and takes a carrier away from all other virtual threads.
+ * <p>
+ * On startup, the synchronized methods of the application's own beans are listed. Synchronized
+ * blocks and code of libraries such as the JDBC driver cannot be found that way, so pinning is also
+ * recorded at runtime from the {@code jdk.VirtualThreadPinned} JFR event, counted by the application
+ * frame closest to it, and logged once per distinct frame.
+ */
+@Slf4j
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class PinningMonitor {
+    private static final String BASE_PACKAGE = "de.clickism.guckelsberg";
+
+    private final ApplicationContext applicationContext;
+    private final MeterRegistry meterRegistry;
+    private final Duration threshold;
+    private final Set<String> reportedFrames = ConcurrentHashMap.newKeySet();
+    private RecordingStream recording;
+
+    public PinningMonitor(
+            ApplicationContext applicationContext,
+            MeterRegistry meterRegistry,
+            @Value("${app.threads.pinning-threshold:20ms}") Duration threshold
+    ) {
+        this.applicationContext = applicationContext;
+        this.meterRegistry = meterRegistry;
+        this.threshold = threshold;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        audit();
+        recording = new RecordingStream();
+        recording.enable("jdk.VirtualThreadPinned").withThreshold(threshold).withStackTrace();
+        recording.onEvent("jdk.VirtualThreadPinned", this::onPinned);
+        recording.startAsync();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    /**
+     * Logs the synchronized methods of the application's beans, which pin if they ever block.
+     */
+    public Set<String> audit() {
+        Set<String> synchronizedMethods = new TreeSet<>();
+        for (String beanName : applicationContext.getBeanDefinitionNames()) {
+            Class<?> type = applicationContext.getType(beanName);
+            if (type == null) {
+                continue;
+            }
+            Class<?> userClass = ClassUtils.getUserClass(type);
+            if (!userClass.getName().startsWith(BASE_PACKAGE)) {
+                continue;
+            }
+            for (Method method : userClass.getDeclaredMethods()) {
+                if (Modifier.isSynchronized(method.getModifiers())) {
+                    synchronizedMethods.add(userClass.getSimpleName() + "#" + method.getName());
+                }
+            }
+        }
+        if (!synchronizedMethods.isEmpty()) {
+            log.info("Synchronized methods that pin virtual threads if they block: {}", synchronizedMethods);
+        }
+        return synchronizedMethods;
+    }
+
+    private void onPinned(RecordedEvent event) {
+        String frame = closestApplicationFrame(event);
+        Timer.builder("app.threads.virtual.pinned")
+                .tag("frame", frame)
+                .description("Time virtual threads spent pinned to their carrier thread")
+                .register(meterRegistry)
+                .record(event.getDuration());
+        if (reportedFrames.add(frame)) {
+            log.warn("Virtual thread was pinned for {} ms at {}, stack: {}",
+                    event.getDuration().toMillis(), frame, describeStack(event));
+        }
+    }
+
+    private static String closestApplicationFrame(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "unknown";
+        }
+        return event.getStackTrace().getFrames().stream()
+                .filter(RecordedFrame::isJavaFrame)
+                .map(PinningMonitor::describe)
+                .filter(frame -> frame.startsWith(BASE_PACKAGE))
+                .findFirst()
+                .orElse("other");
+    }
+
+    private static String describeStack(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "unknown";
+        }
+        List<String> frames = event.getStackTrace().getFrames().stream()
+                .limit(12)
+                .map(PinningMonitor::describe)
+                .toList();
+        return String.join(" <- ", frames);
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "#" + frame.getMethod().getName();
+    }
+}
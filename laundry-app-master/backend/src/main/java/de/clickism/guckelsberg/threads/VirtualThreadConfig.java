@@ -0,0 +1,47 @@
+package de.clickism.guckelsberg.threads;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Settings that only apply while requests run on virtual threads, which is opted into with
+ * {@code spring.threads.virtual.enabled=true}.
+ * <p>
+ * Spring Boot then serves requests, async work and scheduled tasks on virtual threads. The request
+ * thread pool no longer limits how many requests reach the database, so the data source is wrapped
+ * in a {@link ConnectionLimitingDataSource}. CPU bound work such as password hashing keeps its own
+ * small platform thread pools.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    @Bean
+    public static BeanPostProcessor connectionLimitingDataSourcePostProcessor(
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+            @Value("${app.datasource.max-borrowers:0}") int maxBorrowers,
+            @Value("${app.datasource.acquire-timeout:2s}") Duration acquireTimeout
+    ) {
+        // Allow a short queue per connection, anything beyond it would only time out in the pool
+        int permits = maxBorrowers > 0 ? maxBorrowers : poolSize * 4;
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConnectionLimitingDataSource)) {
+                    return new ConnectionLimitingDataSource(dataSource, permits, acquireTimeout, meterRegistry.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
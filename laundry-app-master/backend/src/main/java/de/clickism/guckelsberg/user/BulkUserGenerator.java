@@ -0,0 +1,240 @@
+package de.clickism.guckelsberg.user;
+
+import de.clickism.guckelsberg.events.DomainEvent;
+import de.clickism.guckelsberg.events.DomainEventPublisher;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Generates accounts with random passwords for many rooms at once.
+ * <p>
+ * Existing users are loaded with one query, passwords are hashed in parallel on a pool sized to the
+ * cores, and the hashed rows are upserted in JDBC batches as they complete. Credentials are handed to
+ * the caller batch by batch once their rows are committed, so they can be streamed to the client.
+ */
+@Service
+public class BulkUserGenerator {
+    private static final int BATCH_SIZE = 50;
+
+    private static final char[] PASSWORD_ALPHABET = (
+            "ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnpqrstuvwxyz23456789").toCharArray();
+
+    private static final String INSERT_SQL = """
+            INSERT INTO users (room_number, password_hash, role, max_washer_minutes_per_week, max_dryer_minutes_per_week)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+
+    // Rows created concurrently since the existing users were loaded are left alone
+    private static final String INSERT_NEW_SQL = INSERT_SQL + "ON CONFLICT (room_number) DO NOTHING";
+
+    private static final String UPSERT_SQL = INSERT_SQL + """
+            ON CONFLICT (room_number) DO UPDATE
+                SET password_hash = EXCLUDED.password_hash,
+                    role = EXCLUDED.role,
+                    max_washer_minutes_per_week = EXCLUDED.max_washer_minutes_per_week,
+                    max_dryer_minutes_per_week = EXCLUDED.max_dryer_minutes_per_week
+            """;
+
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DomainEventPublisher events;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final ExecutorService hashingExecutor;
+
+    public BulkUserGenerator(
+            UserRepository userRepository,
+            PasswordEncoder passwordEncoder,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            DomainEventPublisher events,
+            @Value("${app.users.bulk.hashing-threads:0}") int hashingThreads
+    ) {
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.events = events;
+        int threads = hashingThreads > 0 ? hashingThreads : Runtime.getRuntime().availableProcessors();
+        this.hashingExecutor = Executors.newFixedThreadPool(threads,
+                Thread.ofPlatform().name("bulk-password-hashing-", 0).daemon().factory());
+    }
+
+    /**
+     * Generates accounts for the given, already normalized room numbers.
+     *
+     * @param sink receives the credentials batch by batch, skipped rooms first
+     */
+    public Summary generate(Collection<String> roomNumbers, Options options, CredentialSink sink) throws IOException {
+        Map<String, User> existing = userRepository.findAllById(roomNumbers)
+                .stream()
+                .collect(Collectors.toMap(User::getRoomNumber, Function.identity()));
+        List<GeneratedUserCredential> skipped = new ArrayList<>();
+        CompletionService<HashedUser> hashing = new ExecutorCompletionService<>(hashingExecutor);
+        List<Future<HashedUser>> pending = new ArrayList<>();
+        for (String roomNumber : roomNumbers) {
+            User user = existing.get(roomNumber);
+            if (user != null && !options.overwriteExisting()) {
+                skipped.add(new GeneratedUserCredential(roomNumber, null, GenerationStatus.SKIPPED_EXISTS));
+                continue;
+            }
+            String password = generatePassword(options.passwordLength());
+            pending.add(hashing.submit(() -> hash(roomNumber, password, user, options)));
+        }
+        if (!skipped.isEmpty()) {
+            sink.accept(skipped);
+        }
+        long created = 0;
+        long updated = 0;
+        long skippedCount = skipped.size();
+        try {
+            List<HashedUser> batch = new ArrayList<>(BATCH_SIZE);
+            for (int i = 0; i < pending.size(); i++) {
+                batch.add(hashing.take().get());
+                if (batch.size() < BATCH_SIZE && i < pending.size() - 1) {
+                    continue;
+                }
+                List<GeneratedUserCredential> credentials = upsert(batch);
+                for (GeneratedUserCredential credential : credentials) {
+                    switch (credential.status()) {
+                        case CREATED -> created++;
+                        case UPDATED -> updated++;
+                        case SKIPPED_EXISTS -> skippedCount++;
+                    }
+                }
+                sink.accept(credentials);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Account generation was interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not hash a generated password.", e.getCause());
+        } finally {
+            // Stop hashing for a client that went away
+            pending.forEach(future -> future.cancel(true));
+        }
+        return new Summary(created, updated, skippedCount);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashingExecutor.shutdownNow();
+    }
+
+    private HashedUser hash(String roomNumber, String password, User existing, Options options) {
+        User.Role role = options.role() != null ? options.role()
+                : existing != null ? existing.getRole() : User.Role.USER;
+        Long maxWasher = options.maxWasherMinutesPerWeek() != null ? options.maxWasherMinutesPerWeek()
+                : existing != null ? existing.getMaxWasherMinutesPerWeek() : null;
+        Long maxDryer = options.maxDryerMinutesPerWeek() != null ? options.maxDryerMinutesPerWeek()
+                : existing != null ? existing.getMaxDryerMinutesPerWeek() : null;
+        return new HashedUser(roomNumber, password, passwordEncoder.encode(password), role,
+                maxWasher, maxDryer, existing == null);
+    }
+
+    private List<GeneratedUserCredential> upsert(List<HashedUser> batch) {
+        List<HashedUser> created = batch.stream().filter(HashedUser::isNew).toList();
+        List<HashedUser> updated = batch.stream().filter(user -> !user.isNew()).toList();
+        List<GeneratedUserCredential> credentials = new ArrayList<>(batch.size());
+        transactionTemplate.executeWithoutResult(status -> {
+            int[] inserted = created.isEmpty() ? new int[0]
+                    : jdbcTemplate.batchUpdate(INSERT_NEW_SQL, created.stream().map(HashedUser::toRow).toList());
+            for (int i = 0; i < created.size(); i++) {
+                HashedUser user = created.get(i);
+                credentials.add(inserted[i] == 0
+                        ? new GeneratedUserCredential(user.roomNumber(), null, GenerationStatus.SKIPPED_EXISTS)
+                        : new GeneratedUserCredential(user.roomNumber(), user.password(), GenerationStatus.CREATED));
+            }
+            if (!updated.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPSERT_SQL, updated.stream().map(HashedUser::toRow).toList());
+            }
+            for (HashedUser user : updated) {
+                credentials.add(new GeneratedUserCredential(user.roomNumber(), user.password(), GenerationStatus.UPDATED));
+            }
+        });
+        for (GeneratedUserCredential credential : credentials) {
+            if (credential.status() != GenerationStatus.SKIPPED_EXISTS) {
+                events.publish(new DomainEvent.UserChanged(credential.roomNumber()));
+            }
+        }
+        return credentials;
+    }
+
+    private String generatePassword(int length) {
+        char[] buffer = new char[length];
+        for (int i = 0; i < length; i++) {
+            buffer[i] = PASSWORD_ALPHABET[secureRandom.nextInt(PASSWORD_ALPHABET.length)];
+        }
+        return new String(buffer);
+    }
+
+    @FunctionalInterface
+    public interface CredentialSink {
+        void accept(List<GeneratedUserCredential> credentials) throws IOException;
+    }
+
+    public record Options(
+            int passwordLength,
+            boolean overwriteExisting,
+            User.Role role,
+            Long maxWasherMinutesPerWeek,
+            Long maxDryerMinutesPerWeek
+    ) {
+    }
+
+    private record HashedUser(
+            String roomNumber,
+            String password,
+            String passwordHash,
+            User.Role role,
+            Long maxWasherMinutesPerWeek,
+            Long maxDryerMinutesPerWeek,
+            boolean isNew
+    ) {
+        Object[] toRow() {
+            return new Object[]{roomNumber, passwordHash, role != null ? role.name() : null,
+                    maxWasherMinutesPerWeek, maxDryerMinutesPerWeek};
+        }
+    }
+
+    public record GeneratedUserCredential(
+            String roomNumber,
+            String password,
+            GenerationStatus status
+    ) {
+    }
+
+    public record Summary(
+            long created,
+            long updated,
+            long skipped
+    ) {
+    }
+
+    public enum GenerationStatus {
+        CREATED,
+        UPDATED,
+        SKIPPED_EXISTS
+    }
+}
@@ -0,0 +1,76 @@
+package de.clickism.guckelsberg.user;
+
+import de.clickism.guckelsberg.events.DomainEvent;
+import de.clickism.guckelsberg.events.DomainEventOrder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the users by room number, so resolving the caller of a request does not query the table.
+ * <p>
+ * Cached users are detached and shared between requests, so they must not be modified; changes go
+ * through a freshly loaded entity and publish a {@link DomainEvent.UserChanged}, which evicts the user
+ * once committed. Entries also expire after a while, which bounds staleness across instances.
+ */
+@Component
+public class UserCache {
+    private final UserRepository userRepository;
+    private final long ttlMillis;
+
+    private final Map<String, Entry> users = new ConcurrentHashMap<>();
+    // Bumped on every eviction, so a load that raced with a change is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    public UserCache(
+            UserRepository userRepository,
+            @Value("${app.users.cache.ttl:5m}") Duration ttl
+    ) {
+        this.userRepository = userRepository;
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    public Optional<User> find(String roomNumber) {
+        long now = System.currentTimeMillis();
+        Entry entry = users.get(roomNumber);
+        if (entry != null && now - entry.loadedAt() < ttlMillis) {
+            return Optional.of(entry.user());
+        }
+        long generationBeforeLoad = generation.get();
+        Optional<User> user = userRepository.findUserByRoomNumber(roomNumber);
+        if (user.isEmpty()) {
+            users.remove(roomNumber);
+            return user;
+        }
+        Entry loaded = new Entry(user.get(), now);
+        users.put(roomNumber, loaded);
+        if (generation.get() != generationBeforeLoad) {
+            users.remove(roomNumber, loaded);
+        }
+        return user;
+    }
+
+    @Order(DomainEventOrder.CACHES)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(DomainEvent.UserChanged event) {
+        generation.incrementAndGet();
+        users.remove(event.roomNumber());
+    }
+
+    @Scheduled(cron = "0 0 3 * * *")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        users.values().removeIf(entry -> now - entry.loadedAt() >= ttlMillis);
+    }
+
+    private record Entry(User user, long loadedAt) {
+    }
+}
@@ -1,15 +1,31 @@
 package de.clickism.guckelsberg.user;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.clickism.guckelsberg.events.DomainEvent;
+import de.clickism.guckelsberg.events.DomainEventPublisher;
+import de.clickism.guckelsberg.paging.Cursor;
+import de.clickism.guckelsberg.paging.CursorPage;
 import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
-
-import java.security.SecureRandom;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
 import static jakarta.servlet.http.HttpServletResponse.*;
@@ -21,25 +37,54 @@ public class UserController {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
-    private final SecureRandom secureRandom;
+    private final DomainEventPublisher events;
+    private final BulkUserGenerator bulkUserGenerator;
+    private final ObjectMapper objectMapper;
 
-    private static final char[] PASSWORD_ALPHABET = (
-            "ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnpqrstuvwxyz23456789").toCharArray();
     private static final int DEFAULT_PASSWORD_LENGTH = 12;
     private static final int MIN_PASSWORD_LENGTH = 8;
+    private static final String TEXT_CSV_VALUE = "text/csv";
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType(TEXT_CSV_VALUE);
 
-    public UserController(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserController(UserRepository userRepository, PasswordEncoder passwordEncoder, DomainEventPublisher events,
+                          BulkUserGenerator bulkUserGenerator, ObjectMapper objectMapper) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
-        this.secureRandom = new SecureRandom();
+        this.events = events;
+        this.bulkUserGenerator = bulkUserGenerator;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("all")
-    public ResponseEntity<?> getAllUsers() {
-        return ResponseEntity.ok(userRepository.findAll()
-                .stream()
-                .map(User::toDto)
-                .toList());
+    public ResponseEntity<?> getAllUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size,
+            @RequestParam(required = false) User.Role role,
+            @RequestParam(required = false) String search
+    ) {
+        int pageSize = CursorPage.clampSize(size);
+        try {
+            Cursor after = Cursor.decode(cursor, 1);
+            List<User> rows = userRepository.findPage(after != null ? after.getString(0) : null, role,
+                    containsPattern(search), Limit.of(pageSize + 1));
+            return ResponseEntity.ok(CursorPage.of(rows, pageSize,
+                    user -> Cursor.of(user.getRoomNumber()),
+                    User::toDto));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(SC_BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("counts")
+    public ResponseEntity<Map<User.Role, Long>> getUserCounts() {
+        Map<User.Role, Long> counts = new EnumMap<>(User.Role.class);
+        for (User.Role role : User.Role.values()) {
+            counts.put(role, 0L);
+        }
+        for (UserRepository.RoleCount count : userRepository.countPerRole()) {
+            counts.put(count.getRole(), count.getCount());
+        }
+        return ResponseEntity.ok(counts);
     }
 
     @PostMapping
@@ -55,6 +100,7 @@ public class UserController {
         user.setMaxWasherMinutesPerWeek(dto.maxWasherMinutesPerWeek());
         user.setMaxDryerMinutesPerWeek(dto.maxDryerMinutesPerWeek());
         userRepository.save(user);
+        events.publish(new DomainEvent.UserChanged(user.getRoomNumber()));
         return ResponseEntity.status(SC_CREATED)
                 .body("User created successfully.");
     }
@@ -67,6 +113,7 @@ public class UserController {
                     .body("User with this room number does not exist.");
         }
         userRepository.deleteById(roomNumber);
+        events.publish(new DomainEvent.UserChanged(roomNumber));
         return ResponseEntity.ok("User deleted successfully.");
     }
 
@@ -94,102 +141,103 @@ public class UserController {
             user.setMaxDryerMinutesPerWeek(dto.maxDryerMinutesPerWeek());
         }
         userRepository.save(user);
+        events.publish(new DomainEvent.UserChanged(roomNumber));
         return ResponseEntity.ok("User updated successfully.");
     }
 
-    @PostMapping("bulk/generate")
-    @Transactional
-    public ResponseEntity<?> generateUsers(@RequestBody GenerateUsersRequest request) {
+    @PostMapping(value = "bulk/generate", produces = {MediaType.APPLICATION_NDJSON_VALUE, TEXT_CSV_VALUE})
+    public ResponseEntity<StreamingResponseBody> generateUsers(
+            @RequestBody GenerateUsersRequest request,
+            @RequestHeader(value = HttpHeaders.ACCEPT, defaultValue = MediaType.APPLICATION_NDJSON_VALUE) String accept
+    ) throws IllegalArgumentException {
         if (request.rooms() == null || request.rooms().isEmpty()) {
-            return ResponseEntity.status(SC_BAD_REQUEST)
-                    .body("At least one room number must be provided.");
+            throw new IllegalArgumentException("At least one room number must be provided.");
         }
 
         int passwordLength = request.passwordLength() != null ? request.passwordLength() : DEFAULT_PASSWORD_LENGTH;
         if (passwordLength < MIN_PASSWORD_LENGTH) {
-            return ResponseEntity.status(SC_BAD_REQUEST)
-                    .body("Password length must be at least " + MIN_PASSWORD_LENGTH + ".");
+            throw new IllegalArgumentException("Password length must be at least " + MIN_PASSWORD_LENGTH + ".");
         }
 
         Set<String> roomNumbers = new LinkedHashSet<>();
         for (String rawRoom : request.rooms()) {
             if (rawRoom == null) {
-                return ResponseEntity.status(SC_BAD_REQUEST)
-                        .body("Room numbers cannot be null.");
+                throw new IllegalArgumentException("Room numbers cannot be null.");
             }
             String normalized = rawRoom.trim();
             if (normalized.isEmpty()) {
-                return ResponseEntity.status(SC_BAD_REQUEST)
-                        .body("Room numbers cannot be blank.");
+                throw new IllegalArgumentException("Room numbers cannot be blank.");
             }
             roomNumbers.add(normalized);
         }
 
-        boolean overwriteExisting = Boolean.TRUE.equals(request.overwriteExisting());
-        User.Role role = request.role();
-        Long maxWasher = request.maxWasherMinutesPerWeek();
-        Long maxDryer = request.maxDryerMinutesPerWeek();
-
-        List<GeneratedUserCredential> generated = roomNumbers.stream()
-                .map(roomNumber -> createOrUpdateUser(roomNumber, passwordLength, overwriteExisting, role, maxWasher, maxDryer))
-                .toList();
-
-        long createdCount = generated.stream().filter(entry -> entry.status() == GenerationStatus.CREATED).count();
-        long updatedCount = generated.stream().filter(entry -> entry.status() == GenerationStatus.UPDATED).count();
-        long skippedCount = generated.stream().filter(entry -> entry.status() == GenerationStatus.SKIPPED_EXISTS).count();
-
-        return ResponseEntity.ok(new BulkGenerationResponse(
-                generated,
-                createdCount,
-                updatedCount,
-                skippedCount
-        ));
+        BulkUserGenerator.Options options = new BulkUserGenerator.Options(
+                passwordLength,
+                Boolean.TRUE.equals(request.overwriteExisting()),
+                request.role(),
+                request.maxWasherMinutesPerWeek(),
+                request.maxDryerMinutesPerWeek()
+        );
+        boolean csv = MediaType.parseMediaTypes(accept).stream()
+                .anyMatch(type -> type.isCompatibleWith(TEXT_CSV) && !type.isWildcardType());
+        StreamingResponseBody body = csv
+                ? out -> streamCsv(roomNumbers, options, out)
+                : out -> streamNdjson(roomNumbers, options, out);
+        return ResponseEntity.ok()
+                .contentType(csv ? TEXT_CSV : MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
-    private GeneratedUserCredential createOrUpdateUser(
-            String roomNumber,
-            int passwordLength,
-            boolean overwriteExisting,
-            User.Role role,
-            Long maxWasherMinutes,
-            Long maxDryerMinutes
-    ) {
-        User existing = userRepository.findById(roomNumber).orElse(null);
-        if (existing != null && !overwriteExisting) {
-            return new GeneratedUserCredential(roomNumber, null, GenerationStatus.SKIPPED_EXISTS);
-        }
-
-        boolean isNew = existing == null;
-        User user = isNew ? new User() : existing;
-        if (isNew) {
-            user.setRoomNumber(roomNumber);
-            user.setRole(role != null ? role : User.Role.USER);
-        } else if (role != null) {
-            user.setRole(role);
-        }
-
-        String rawPassword = generatePassword(passwordLength);
-        user.setPasswordHash(passwordEncoder.encode(rawPassword));
-
-        if (maxWasherMinutes != null) {
-            user.setMaxWasherMinutesPerWeek(maxWasherMinutes);
-        }
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.status(SC_BAD_REQUEST)
+                .contentType(MediaType.TEXT_PLAIN)
+                .body(e.getMessage());
+    }
 
-        if (maxDryerMinutes != null) {
-            user.setMaxDryerMinutesPerWeek(maxDryerMinutes);
-        }
+    /**
+     * Writes one credential per line as it is persisted, followed by a line with the summary.
+     */
+    private void streamNdjson(Set<String> roomNumbers, BulkUserGenerator.Options options, OutputStream out)
+            throws IOException {
+        BulkUserGenerator.Summary summary = bulkUserGenerator.generate(roomNumbers, options, credentials -> {
+            for (BulkUserGenerator.GeneratedUserCredential credential : credentials) {
+                out.write(objectMapper.writeValueAsBytes(credential));
+                out.write('\n');
+            }
+            out.flush();
+        });
+        out.write(objectMapper.writeValueAsBytes(summary));
+        out.write('\n');
+    }
 
-        userRepository.save(user);
-        GenerationStatus status = isNew ? GenerationStatus.CREATED : GenerationStatus.UPDATED;
-        return new GeneratedUserCredential(roomNumber, rawPassword, status);
+    private void streamCsv(Set<String> roomNumbers, BulkUserGenerator.Options options, OutputStream out)
+            throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        writer.write("roomNumber,password,status\n");
+        bulkUserGenerator.generate(roomNumbers, options, credentials -> {
+            for (BulkUserGenerator.GeneratedUserCredential credential : credentials) {
+                writer.write(credential.roomNumber() + "," +
+                             (credential.password() != null ? credential.password() : "") + "," +
+                             credential.status() + "\n");
+            }
+            writer.flush();
+        });
+        writer.flush();
     }
 
-    private String generatePassword(int length) {
-        char[] buffer = new char[length];
-        for (int i = 0; i < length; i++) {
-            buffer[i] = PASSWORD_ALPHABET[secureRandom.nextInt(PASSWORD_ALPHABET.length)];
+    /**
+     * Turns a search term into a case-insensitive LIKE pattern matching anywhere in the room number.
+     */
+    private static String containsPattern(String search) {
+        if (search == null || search.isBlank()) {
+            return null;
         }
-        return new String(buffer);
+        String escaped = search.trim().toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
     }
 
     public record GenerateUsersRequest(
@@ -201,25 +249,4 @@ public class UserController {
             Long maxDryerMinutesPerWeek
     ) {
     }
-
-    public record GeneratedUserCredential(
-            String roomNumber,
-            String password,
-            GenerationStatus status
-    ) {
-    }
-
-    public record BulkGenerationResponse(
-            List<GeneratedUserCredential> credentials,
-            long created,
-            long updated,
-            long skipped
-    ) {
-    }
-
-    public enum GenerationStatus {
-        CREATED,
-        UPDATED,
-        SKIPPED_EXISTS
-    }
 }
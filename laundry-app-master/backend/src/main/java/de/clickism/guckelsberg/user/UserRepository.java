@@ -1,9 +1,34 @@
 package de.clickism.guckelsberg.user;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.ListCrudRepository;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends ListCrudRepository<User, String> {
     Optional<User> findUserByRoomNumber(String roomNumber);
+
+    /**
+     * Finds a page of users ordered by room number, starting after the given room number (or at the start if null).
+     *
+     * @param role    only users with this role, or all if null
+     * @param pattern lower case LIKE pattern the room number must match, or null
+     */
+    @Query("SELECT u FROM User u " +
+            "WHERE (:afterRoomNumber IS NULL OR u.roomNumber > :afterRoomNumber) " +
+            "AND (:role IS NULL OR u.role = :role) " +
+            "AND (:pattern IS NULL OR LOWER(u.roomNumber) LIKE :pattern ESCAPE '\\') " +
+            "ORDER BY u.roomNumber ASC")
+    List<User> findPage(String afterRoomNumber, User.Role role, String pattern, Limit limit);
+
+    @Query("SELECT u.role AS role, COUNT(u) AS count FROM User u GROUP BY u.role")
+    List<RoleCount> countPerRole();
+
+    interface RoleCount {
+        User.Role getRole();
+
+        long getCount();
+    }
 }
@@ -0,0 +1,90 @@
+-- Baseline of the schema previously managed by hibernate.ddl-auto=update.
+-- Every statement is idempotent, so databases created by Hibernate are adopted as they are.
+
+CREATE TABLE IF NOT EXISTS users
+(
+    room_number                  VARCHAR(255) NOT NULL PRIMARY KEY,
+    password_hash                VARCHAR(255) NOT NULL,
+    role                         VARCHAR(255),
+    last_booking_activity        TIMESTAMP(6),
+    max_washer_minutes_per_week  BIGINT,
+    max_dryer_minutes_per_week   BIGINT
+);
+
+CREATE TABLE IF NOT EXISTS laundry_machine
+(
+    name          VARCHAR(255) NOT NULL PRIMARY KEY,
+    type          VARCHAR(255),
+    slot_duration INTEGER
+);
+
+CREATE TABLE IF NOT EXISTS laundry_booking
+(
+    id                 BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    booker_room_number VARCHAR(255) NOT NULL REFERENCES users (room_number),
+    machine_name       VARCHAR(255) NOT NULL REFERENCES laundry_machine (name),
+    date               DATE         NOT NULL,
+    created_at         TIMESTAMP(6) NOT NULL,
+    slot_start         INTEGER      NOT NULL CHECK (slot_start >= 0 AND slot_start <= 1440)
+);
+
+CREATE TABLE IF NOT EXISTS laundry_slot_overrides
+(
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    machine_id VARCHAR(255) NOT NULL REFERENCES laundry_machine (name),
+    start_date DATE         NOT NULL,
+    end_date   DATE         NOT NULL,
+    start_slot INTEGER,
+    end_slot   INTEGER,
+    status     VARCHAR(255) NOT NULL,
+    created_by VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS laundry_quota_usage
+(
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    room_number  VARCHAR(255) NOT NULL,
+    week_start   DATE         NOT NULL,
+    machine_type VARCHAR(255) NOT NULL,
+    used_minutes BIGINT       NOT NULL,
+    CONSTRAINT uk_laundry_quota_usage UNIQUE (room_number, week_start, machine_type)
+);
+
+CREATE TABLE IF NOT EXISTS rooftop_booking
+(
+    id                 BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    booker_room_number VARCHAR(255) NOT NULL REFERENCES users (room_number),
+    date               DATE         NOT NULL,
+    created_at         TIMESTAMP(6) NOT NULL,
+    reason             TEXT         NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS rooftop_booking_request
+(
+    id                      BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    booker_room_number      VARCHAR(255) NOT NULL REFERENCES users (room_number),
+    date                    DATE         NOT NULL,
+    created_at              TIMESTAMP(6) NOT NULL,
+    reason                  TEXT         NOT NULL,
+    contact                 TEXT         NOT NULL,
+    time_span               VARCHAR(255) NOT NULL,
+    status                  VARCHAR(255) NOT NULL,
+    reviewed_by_room_number VARCHAR(255) REFERENCES users (room_number),
+    reviewed_at             TIMESTAMP(6),
+    decision_reason         TEXT
+);
+
+CREATE TABLE IF NOT EXISTS presidium_members
+(
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name          VARCHAR(255) NOT NULL,
+    title         VARCHAR(255) NOT NULL,
+    contact       VARCHAR(255),
+    portrait_url  VARCHAR(255),
+    bio           TEXT,
+    display_order INTEGER      NOT NULL,
+    visible       BOOLEAN      NOT NULL,
+    created_at    TIMESTAMP(6) NOT NULL,
+    updated_at    TIMESTAMP(6) NOT NULL
+);
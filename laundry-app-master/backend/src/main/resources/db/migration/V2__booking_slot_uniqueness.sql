@@ -0,0 +1,17 @@
+-- The unique constraint declared on laundry_booking never existed, because it named the columns
+-- slot and machine_id. Concurrent bookings may therefore have taken the same slot twice.
+-- The earliest booking of a slot keeps it.
+DELETE
+FROM laundry_booking duplicate
+    USING laundry_booking original
+WHERE duplicate.date = original.date
+  AND duplicate.slot_start = original.slot_start
+  AND duplicate.machine_name = original.machine_name
+  AND duplicate.id > original.id;
+
+-- Quota usage is recomputed from the remaining bookings the next time it is needed
+DELETE
+FROM laundry_quota_usage;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_laundry_booking_slot
+    ON laundry_booking (date, slot_start, machine_name);
@@ -0,0 +1,40 @@
+-- Indexes backing the finders of the repositories. Leading columns follow the equality filters,
+-- trailing columns the range filters and sort keys, so every list query is an index range scan.
+
+-- Occupancy index loads and availability grids: machine_name = ? AND date BETWEEN ? AND ?
+CREATE INDEX IF NOT EXISTS idx_laundry_booking_machine_date
+    ON laundry_booking (machine_name, date);
+
+-- Booking history (keyset on date, slot_start, id), upcoming bookings and weekly quota sums of a booker
+CREATE INDEX IF NOT EXISTS idx_laundry_booking_booker_history
+    ON laundry_booking (booker_room_number, date, slot_start, id);
+
+-- Bookings by date and by date and slot are served by uk_laundry_booking_slot (date, slot_start, machine_name)
+
+-- Overrides active for a machine on a date
+CREATE INDEX IF NOT EXISTS idx_laundry_slot_overrides_machine_dates
+    ON laundry_slot_overrides (machine_id, start_date, end_date);
+
+-- Loading the override index: all overrides ending on or after a date
+CREATE INDEX IF NOT EXISTS idx_laundry_slot_overrides_end_date
+    ON laundry_slot_overrides (end_date);
+
+-- Requests of a booker, by date and the keyset of the request search
+CREATE INDEX IF NOT EXISTS idx_rooftop_booking_request_booker
+    ON rooftop_booking_request (booker_room_number, date, id);
+
+-- Admin request search without booker filter, keyset on (date, id)
+CREATE INDEX IF NOT EXISTS idx_rooftop_booking_request_date
+    ON rooftop_booking_request (date, id);
+
+-- Pending requests from a date on, e.g. for the dashboard
+CREATE INDEX IF NOT EXISTS idx_rooftop_booking_request_status_date
+    ON rooftop_booking_request (status, date);
+
+-- Rooftop bookings by date or month and the admin search keyset on (date, id)
+CREATE INDEX IF NOT EXISTS idx_rooftop_booking_date
+    ON rooftop_booking (date, id);
+
+-- Rooftop bookings of a booker
+CREATE INDEX IF NOT EXISTS idx_rooftop_booking_booker
+    ON rooftop_booking (booker_room_number, date, id);
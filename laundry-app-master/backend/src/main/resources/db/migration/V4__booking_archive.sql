@@ -0,0 +1,31 @@
+-- Past bookings are moved out of laundry_booking by the LaundryBookingArchiver, so the table hot queries
+-- run against only holds recent and upcoming bookings. Archived rows keep their id and a snapshot of the
+-- machine they were booked on, since the machine may be deleted later.
+CREATE TABLE IF NOT EXISTS laundry_booking_archive
+(
+    id                 BIGINT       NOT NULL PRIMARY KEY,
+    booker_room_number VARCHAR(255) NOT NULL,
+    machine_name       VARCHAR(255) NOT NULL,
+    machine_type       VARCHAR(255),
+    slot_duration      INTEGER,
+    date               DATE         NOT NULL,
+    slot_start         INTEGER      NOT NULL,
+    created_at         TIMESTAMP(6) NOT NULL
+);
+
+-- Booking history keyset, same as on laundry_booking
+CREATE INDEX IF NOT EXISTS idx_laundry_booking_archive_booker_history
+    ON laundry_booking_archive (booker_room_number, date, slot_start, id);
+
+-- Usage per resident, machine and month, accumulated as bookings are archived
+CREATE TABLE IF NOT EXISTS laundry_monthly_usage
+(
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    room_number   VARCHAR(255) NOT NULL,
+    machine_name  VARCHAR(255) NOT NULL,
+    machine_type  VARCHAR(255),
+    month         DATE         NOT NULL,
+    booking_count INTEGER      NOT NULL,
+    used_minutes  BIGINT       NOT NULL,
+    CONSTRAINT uk_laundry_monthly_usage UNIQUE (room_number, machine_name, month)
+);
@@ -0,0 +1,45 @@
+-- The unique index of V2 only rejects bookings of the same machine starting at the same time. Bookings
+-- starting at different times can still overlap: extended slots start between the regular ones, machines
+-- may have slots longer than the base slot, and slots may run past midnight. The booking locks and the
+-- occupancy index only serialize bookings within one instance, so with several instances the database
+-- has to rule out overlaps itself. Every booking now stores where its slot ends.
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+-- Minutes since the start of the booking's date, past 1440 for slots running into the next day
+ALTER TABLE laundry_booking
+    ADD COLUMN IF NOT EXISTS slot_end INTEGER;
+
+UPDATE laundry_booking b
+SET slot_end = b.slot_start + COALESCE(m.slot_duration, 90)
+FROM laundry_machine m
+WHERE m.name = b.machine_name
+  AND b.slot_end IS NULL;
+
+ALTER TABLE laundry_booking
+    ALTER COLUMN slot_end SET NOT NULL;
+
+-- Of overlapping bookings the earliest keeps its slot, like duplicates in V2. The quota usage of the
+-- weeks that lost a booking is recomputed from the remaining bookings the next time it is needed.
+WITH removed AS (
+    DELETE
+    FROM laundry_booking later
+        USING laundry_booking earlier
+    WHERE later.machine_name = earlier.machine_name
+      AND later.id > earlier.id
+      AND tsrange(later.date + make_interval(mins => later.slot_start),
+                  later.date + make_interval(mins => later.slot_end))
+          && tsrange(earlier.date + make_interval(mins => earlier.slot_start),
+                     earlier.date + make_interval(mins => earlier.slot_end))
+    RETURNING later.booker_room_number, later.date
+)
+DELETE
+FROM laundry_quota_usage q
+    USING removed
+WHERE q.room_number = removed.booker_room_number
+  AND q.week_start = CAST(date_trunc('week', removed.date) AS DATE);
+
+ALTER TABLE laundry_booking
+    ADD CONSTRAINT ex_laundry_booking_overlap EXCLUDE USING gist (
+        machine_name WITH =,
+        tsrange(date + make_interval(mins => slot_start), date + make_interval(mins => slot_end)) WITH &&
+    );
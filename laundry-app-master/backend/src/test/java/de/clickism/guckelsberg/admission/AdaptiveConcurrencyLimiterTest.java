@@ -0,0 +1,147 @@
+package de.clickism.guckelsberg.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class AdaptiveConcurrencyLimiterTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService waiters = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        waiters.shutdownNow();
+    }
+
+    @Test
+    void queuedRequestsAreAdmittedInArrivalOrder() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 2, Duration.ofSeconds(5), Duration.ofSeconds(30));
+        assertThat(limiter.tryAcquire()).isTrue();
+
+        Future<Boolean> first = waiters.submit(limiter::tryAcquire);
+        await().until(() -> limiter.getQueueDepth() == 1);
+        Future<Boolean> second = waiters.submit(limiter::tryAcquire);
+        await().until(() -> limiter.getQueueDepth() == 2);
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(rejected("queue_full")).isEqualTo(1);
+
+        limiter.release(FAST, false);
+        assertThat(first.get(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(second.isDone()).isFalse();
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+
+        limiter.release(FAST, false);
+        assertThat(second.get(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(limiter.getQueueDepth()).isZero();
+    }
+
+    @Test
+    void requestsWaitingTooLongAreRejected() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 2, Duration.ofMillis(20), Duration.ofSeconds(30));
+        assertThat(limiter.tryAcquire()).isTrue();
+
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(rejected("timeout")).isEqualTo(1);
+        assertThat(limiter.getQueueDepth()).isZero();
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+    }
+
+    @Test
+    void limitGrowsWhileFastAndBacksOffOnceSlow() {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 0, Duration.ZERO, Duration.ofSeconds(30));
+
+        // Each round fills the limit, so the limit grows by about one per limit rounds
+        for (int round = 0; round < 5; round++) {
+            runRound(limiter, FAST);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(5);
+        for (int round = 0; round < 100; round++) {
+            runRound(limiter, FAST);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(8);
+
+        runRound(limiter, SLOW);
+        assertThat(limiter.getLimit()).isLessThan(8);
+        for (int round = 0; round < 100; round++) {
+            runRound(limiter, SLOW);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(1);
+    }
+
+    @Test
+    void limitOnlyGrowsWhileItIsTheBottleneck() {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 0, Duration.ZERO, Duration.ofSeconds(30));
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+            limiter.release(FAST, true);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(4);
+    }
+
+    @Test
+    void failedRequestsDoNotAdaptTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 0, Duration.ZERO, Duration.ofSeconds(30));
+        runRound(limiter, FAST);
+        int limit = limiter.getLimit();
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+            limiter.release(SLOW * 10, false);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(limit);
+    }
+
+    @Test
+    void fastOutliersAreForgottenAfterTwoWindows() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = limiter(8, 0, Duration.ZERO, Duration.ofMillis(200));
+        releaseOne(limiter, FAST);
+
+        // The previous window's minimum still counts
+        Thread.sleep(250);
+        releaseOne(limiter, SLOW);
+        assertThat(limiter.getLimit()).isEqualTo(7);
+
+        // Now both windows only saw slow requests, which are the new baseline
+        Thread.sleep(250);
+        releaseOne(limiter, SLOW);
+        assertThat(limiter.getLimit()).isEqualTo(7);
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(int initialLimit, int queueSize, Duration maxWait, Duration baselineWindow) {
+        return new AdaptiveConcurrencyLimiter(meterRegistry, initialLimit, 1, 8, queueSize, maxWait, baselineWindow);
+    }
+
+    private static void runRound(AdaptiveConcurrencyLimiter limiter, long latencyNanos) {
+        int permits = limiter.getLimit();
+        for (int i = 0; i < permits; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+        }
+        for (int i = 0; i < permits; i++) {
+            limiter.release(latencyNanos, true);
+        }
+    }
+
+    private static void releaseOne(AdaptiveConcurrencyLimiter limiter, long latencyNanos) {
+        assertThat(limiter.tryAcquire()).isTrue();
+        limiter.release(latencyNanos, true);
+    }
+
+    private double rejected(String reason) {
+        return meterRegistry.get("app.admission.rejected").tag("reason", reason).counter().count();
+    }
+}
@@ -0,0 +1,78 @@
+package de.clickism.guckelsberg.dashboard;
+
+import de.clickism.guckelsberg.etag.AggregateVersions;
+import de.clickism.guckelsberg.events.DomainEvent;
+import de.clickism.guckelsberg.laundry.LaundryBookingRepository;
+import de.clickism.guckelsberg.laundry.LaundryMachine;
+import de.clickism.guckelsberg.laundry.LaundryQuotaLedger;
+import de.clickism.guckelsberg.metrics.StageMetrics;
+import de.clickism.guckelsberg.rooftop.RooftopBookingRepository;
+import de.clickism.guckelsberg.rooftop.RooftopBookingRequestRepository;
+import de.clickism.guckelsberg.user.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Map;
+
+import static de.clickism.guckelsberg.laundry.LaundryFixtures.resident;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DashboardSummaryServiceTest {
+    @Mock
+    private LaundryBookingRepository laundryBookingRepository;
+    @Mock
+    private RooftopBookingRepository rooftopBookingRepository;
+    @Mock
+    private RooftopBookingRequestRepository requestRepository;
+    @Mock
+    private LaundryQuotaLedger quotaLedger;
+
+    private final AggregateVersions versions = new AggregateVersions();
+    private final User user = resident("101");
+    private DashboardSummaryService summaryService;
+
+    @BeforeEach
+    void setUp() {
+        summaryService = new DashboardSummaryService(laundryBookingRepository, rooftopBookingRepository,
+                requestRepository, quotaLedger, versions, new StageMetrics(new SimpleMeterRegistry()));
+        when(quotaLedger.getUsedMinutesPerType(eq(user), any())).thenReturn(Map.of(
+                LaundryMachine.MachineType.WASHER, 90L,
+                LaundryMachine.MachineType.DRYER, 0L
+        ));
+    }
+
+    @Test
+    void summaryIsCachedWhileTheRoomIsUnchanged() {
+        summaryService.buildSummary(user);
+        // Changes of other residents keep the summary
+        versions.onDomainEvent(new DomainEvent.UserChanged("102"));
+        summaryService.buildSummary(user);
+
+        verify(quotaLedger, times(1)).getUsedMinutesPerType(eq(user), any());
+        verifyUpcomingCounted(1);
+    }
+
+    @Test
+    void summaryIsRebuiltOnceTheRoomChanges() {
+        summaryService.buildSummary(user);
+        versions.onDomainEvent(new DomainEvent.UserChanged("101"));
+        summaryService.buildSummary(user);
+
+        verify(quotaLedger, times(2)).getUsedMinutesPerType(eq(user), any());
+        verifyUpcomingCounted(2);
+    }
+
+    private void verifyUpcomingCounted(int count) {
+        verify(laundryBookingRepository, times(count)).countUpcomingByBooker(eq("101"), any(), anyInt(), any());
+    }
+}
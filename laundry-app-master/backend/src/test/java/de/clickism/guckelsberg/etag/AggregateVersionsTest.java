@@ -0,0 +1,98 @@
+package de.clickism.guckelsberg.etag;
+
+import de.clickism.guckelsberg.events.DomainEvent;
+import de.clickism.guckelsberg.laundry.LaundryBooking;
+import de.clickism.guckelsberg.laundry.LaundryFixtures;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.LocalDate;
+
+import static de.clickism.guckelsberg.etag.AggregateVersions.LAUNDRY_BOOKINGS;
+import static de.clickism.guckelsberg.etag.AggregateVersions.PRESIDIUM;
+import static de.clickism.guckelsberg.etag.AggregateVersions.laundryDay;
+import static de.clickism.guckelsberg.etag.AggregateVersions.room;
+import static de.clickism.guckelsberg.laundry.LaundryFixtures.resident;
+import static de.clickism.guckelsberg.laundry.LaundryFixtures.washer;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AggregateVersionsTest {
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private final AggregateVersions versions = new AggregateVersions();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void bookingsChangeTheirDayAndRoomOnly() {
+        String bookings = versions.etag(LAUNDRY_BOOKINGS);
+        String day = versions.etag(laundryDay(TODAY));
+        String nextDay = versions.etag(laundryDay(TODAY.plusDays(1)));
+        String ownRoom = versions.etag(room("101"));
+        String otherRoom = versions.etag(room("102"));
+
+        versions.onDomainEvent(new DomainEvent.BookingCreated(booking("101", TODAY)));
+
+        assertThat(versions.etag(LAUNDRY_BOOKINGS)).isNotEqualTo(bookings);
+        assertThat(versions.etag(laundryDay(TODAY))).isNotEqualTo(day);
+        assertThat(versions.etag(room("101"))).isNotEqualTo(ownRoom);
+        assertThat(versions.etag(laundryDay(TODAY.plusDays(1)))).isEqualTo(nextDay);
+        assertThat(versions.etag(room("102"))).isEqualTo(otherRoom);
+    }
+
+    @Test
+    void setsOfAggregatesChangeWhenAnyOfThemChanges() {
+        long version = versions.version(room("101"), room("102"));
+
+        versions.onDomainEvent(new DomainEvent.UserChanged("102"));
+
+        assertThat(versions.version(room("101"), room("102"))).isGreaterThan(version);
+    }
+
+    @Test
+    void bumpsApplyOnceTheTransactionCommits() {
+        TransactionSynchronizationManager.initSynchronization();
+        String etag = versions.etag(PRESIDIUM);
+
+        versions.bump(PRESIDIUM);
+        assertThat(versions.etag(PRESIDIUM)).isEqualTo(etag);
+
+        TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+        assertThat(versions.etag(PRESIDIUM)).isNotEqualTo(etag);
+    }
+
+    @Test
+    void bumpAllChangesEveryEtag() {
+        versions.onDomainEvent(new DomainEvent.UserChanged("101"));
+        String changed = versions.etag(room("101"));
+        String unchanged = versions.etag(room("102"));
+
+        versions.bumpAll();
+
+        assertThat(versions.etag(room("101"))).isNotEqualTo(changed);
+        assertThat(versions.etag(room("102"))).isNotEqualTo(unchanged);
+    }
+
+    @Test
+    void evictedVersionsNeverRepeatAnEarlierEtag() {
+        String pastDay = laundryDay(TODAY.minusDays(10));
+        String initial = versions.etag(pastDay);
+        versions.onDomainEvent(new DomainEvent.BookingCreated(booking("101", TODAY.minusDays(10))));
+        String bumped = versions.etag(pastDay);
+
+        versions.evictPast();
+
+        assertThat(versions.etag(pastDay)).isNotIn(initial, bumped);
+    }
+
+    private static LaundryBooking booking(String roomNumber, LocalDate date) {
+        return LaundryFixtures.booking(resident(roomNumber), washer(), date, 540);
+    }
+}
@@ -0,0 +1,36 @@
+package de.clickism.guckelsberg.laundry;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookingConflictExceptionTest {
+
+    @Test
+    void duplicateSlotIsSlotTaken() {
+        assertThat(BookingConflictException.isSlotTaken(violation(
+                "ERROR: duplicate key value violates unique constraint \"uk_laundry_booking_slot\"")))
+                .isTrue();
+    }
+
+    @Test
+    void overlappingSlotIsSlotTaken() {
+        assertThat(BookingConflictException.isSlotTaken(violation(
+                "ERROR: conflicting key value violates exclusion constraint \"ex_laundry_booking_overlap\"")))
+                .isTrue();
+    }
+
+    @Test
+    void otherViolationsAreNotSlotTaken() {
+        assertThat(BookingConflictException.isSlotTaken(violation(
+                "ERROR: insert or update on table \"laundry_booking\" violates foreign key constraint \"fk_booker\"")))
+                .isFalse();
+    }
+
+    private static DataIntegrityViolationException violation(String message) {
+        return new DataIntegrityViolationException("could not execute statement", new SQLException(message));
+    }
+}
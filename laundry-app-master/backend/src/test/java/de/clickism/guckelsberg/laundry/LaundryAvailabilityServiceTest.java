@@ -0,0 +1,135 @@
+package de.clickism.guckelsberg.laundry;
+
+import de.clickism.guckelsberg.events.DomainEvent;
+import de.clickism.guckelsberg.laundry.LaundryAvailabilityService.DayAvailability;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static de.clickism.guckelsberg.laundry.LaundryFixtures.DATE;
+import static de.clickism.guckelsberg.laundry.LaundryFixtures.booking;
+import static de.clickism.guckelsberg.laundry.LaundryFixtures.washer;
+import static de.clickism.guckelsberg.laundry.LaundryMachine.BASE_SLOT_DURATION;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LaundryAvailabilityServiceTest {
+    private static final int SLOTS_PER_DAY = 1440 / BASE_SLOT_DURATION;
+
+    @Mock
+    private LaundryMachineRepository machineRepository;
+    @Mock
+    private LaundrySlotOverrideIndex overrideIndex;
+    @Mock
+    private LaundryBookingRepository bookingRepository;
+
+    private LaundryOccupancyIndex occupancyIndex;
+    private LaundryAvailabilityService availabilityService;
+
+    @BeforeEach
+    void setUp() {
+        occupancyIndex = new LaundryOccupancyIndex(bookingRepository);
+        availabilityService = new LaundryAvailabilityService(machineRepository, overrideIndex, occupancyIndex);
+        lenient().when(machineRepository.findAll()).thenReturn(List.of(washer()));
+        lenient().when(bookingRepository.findByMachine_NameInAndDateBetween(any(), any(), any())).thenReturn(List.of());
+    }
+
+    @Test
+    void rejectsEmptyAndTooLongRanges() {
+        assertThatThrownBy(() -> availabilityService.getAvailability(DATE, DATE.minusDays(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> availabilityService.getAvailability(DATE, DATE.plusDays(LaundryAvailabilityService.MAX_DAYS)))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(machineRepository);
+    }
+
+    @Test
+    void gridsAreCachedUntilABookingOfTheirDayCommits() {
+        assertThat(slots(DATE)).isEqualTo("F".repeat(SLOTS_PER_DAY));
+        assertThat(slots(DATE)).isEqualTo("F".repeat(SLOTS_PER_DAY));
+        verify(overrideIndex, times(SLOTS_PER_DAY)).isBlocked(eq("Washer 1"), eq(DATE), anyInt());
+
+        commit(booking(DATE, 540));
+
+        assertThat(slots(DATE).charAt(540 / BASE_SLOT_DURATION)).isEqualTo('B');
+    }
+
+    @Test
+    void overnightBookingsInvalidateTheNextDay() {
+        availabilityService.getAvailability(DATE, DATE.plusDays(1));
+
+        commit(booking(DATE, 1380));
+
+        List<DayAvailability> days = availabilityService.getAvailability(DATE, DATE.plusDays(1));
+        assertThat(days.get(0).slots().charAt(1380 / BASE_SLOT_DURATION)).isEqualTo('B');
+        assertThat(days.get(1).slots().charAt(0)).isEqualTo('B');
+    }
+
+    @Test
+    void movedOverridesInvalidateTheirPreviousAndNewDays() {
+        Set<LocalDate> blockedDays = new HashSet<>(Set.of(DATE));
+        when(overrideIndex.isBlocked(anyString(), any(), anyInt()))
+                .thenAnswer(invocation -> blockedDays.contains(invocation.<LocalDate>getArgument(1)));
+        assertThat(slots(DATE)).isEqualTo("X".repeat(SLOTS_PER_DAY));
+        assertThat(slots(DATE.plusDays(1))).isEqualTo("F".repeat(SLOTS_PER_DAY));
+
+        blockedDays.clear();
+        blockedDays.add(DATE.plusDays(1));
+        LaundrySlotOverride override = new LaundrySlotOverride();
+        override.setMachine(washer());
+        override.setStartDate(DATE.plusDays(1));
+        override.setEndDate(DATE.plusDays(1));
+        availabilityService.onOverrideChanged(DomainEvent.OverrideChanged.updated(override, DATE, DATE));
+
+        assertThat(slots(DATE)).isEqualTo("F".repeat(SLOTS_PER_DAY));
+        assertThat(slots(DATE.plusDays(1))).isEqualTo("X".repeat(SLOTS_PER_DAY));
+    }
+
+    @Test
+    void gridsComputedDuringAnInvalidationAreNotKept() {
+        AtomicBoolean invalidated = new AtomicBoolean();
+        when(overrideIndex.isBlocked(anyString(), any(), anyInt())).thenAnswer(invocation -> {
+            // Another day's booking commits while the grid is being computed
+            if (invalidated.compareAndSet(false, true)) {
+                availabilityService.onBookingCreated(new DomainEvent.BookingCreated(booking(DATE.plusDays(5), 540)));
+            }
+            return false;
+        });
+
+        slots(DATE);
+        slots(DATE);
+
+        verify(overrideIndex, times(2 * SLOTS_PER_DAY)).isBlocked(eq("Washer 1"), eq(DATE), anyInt());
+    }
+
+    private String slots(LocalDate date) {
+        return availabilityService.getAvailability(date, date).getFirst().slots();
+    }
+
+    /**
+     * Publishes the booking's commit in listener order: indexes first, then caches.
+     */
+    private void commit(LaundryBooking booking) {
+        DomainEvent.BookingCreated event = new DomainEvent.BookingCreated(booking);
+        occupancyIndex.onBookingCreated(event);
+        availabilityService.onBookingCreated(event);
+    }
+}
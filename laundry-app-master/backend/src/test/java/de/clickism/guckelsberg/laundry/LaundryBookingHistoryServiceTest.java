@@ -0,0 +1,149 @@
+package de.clickism.guckelsberg.laundry;
+
+import de.clickism.guckelsberg.paging.Cursor;
+import de.clickism.guckelsberg.paging.CursorPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+import static de.clickism.guckelsberg.laundry.LaundryFixtures.DATE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class LaundryBookingHistoryServiceTest {
+    private static final Comparator<LaundryBookingView> NEWEST_FIRST = Comparator
+            .comparing(LaundryBookingView::getDate)
+            .thenComparing(LaundryBookingView::getSlotStart)
+            .thenComparing(LaundryBookingView::getId)
+            .reversed();
+
+    @Mock
+    private LaundryBookingRepository bookingRepository;
+    @Mock
+    private ArchivedLaundryBookingRepository archiveRepository;
+    @InjectMocks
+    private LaundryBookingHistoryService historyService;
+
+    private final List<LaundryBookingView> live = new ArrayList<>();
+    private final List<LaundryBookingView> archived = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(bookingRepository.findViewsByBooker(eq("101"), any(), any(), any(), any()))
+                .thenAnswer(keysetQuery(live));
+        lenient().when(archiveRepository.findViewsByBooker(eq("101"), any(), any(), any(), any()))
+                .thenAnswer(keysetQuery(archived));
+    }
+
+    @Test
+    void pagesThroughLiveAndArchivedBookingsNewestFirst() {
+        live.add(view(7, DATE.plusDays(7), 540));
+        live.add(view(6, DATE.plusDays(1), 630));
+        // Archived as the day ended, while later bookings of the same day are still live
+        live.add(view(5, DATE, 1080));
+        archived.add(view(4, DATE, 540));
+        // Bookings of different machines at the same time are ordered by id
+        archived.add(view(3, DATE, 540));
+        archived.add(view(2, DATE.minusDays(3), 720));
+        archived.add(view(1, DATE.minusDays(10), 540));
+
+        List<Long> ids = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<LaundryBooking.Dto> page = historyService.findHistory("101", cursor, 2);
+            page.items().forEach(dto -> ids.add(dto.id()));
+            pageSizes.add(page.items().size());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertThat(ids).containsExactly(7L, 6L, 5L, 4L, 3L, 2L, 1L);
+        assertThat(pageSizes).containsExactly(2, 2, 2, 1);
+        verify(archiveRepository).findViewsByBooker("101", DATE, 540, 4L, Limit.of(3));
+    }
+
+    @Test
+    void bookingsArchivedBetweenBothQueriesAreListedOnce() {
+        live.add(view(2, DATE, 630));
+        live.add(view(1, DATE, 540));
+        archived.add(view(1, DATE, 540));
+
+        CursorPage<LaundryBooking.Dto> page = historyService.findHistory("101", null, 20);
+
+        assertThat(page.items()).extracting(LaundryBooking.Dto::id).containsExactly(2L, 1L);
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void malformedCursorsAreRejectedBeforeQuerying() {
+        String cursor = Cursor.of(DATE, 540).encode();
+
+        assertThatThrownBy(() -> historyService.findHistory("101", cursor, 20))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(bookingRepository, archiveRepository);
+    }
+
+    /**
+     * Answers like the keyset queries of both repositories: rows before the position, newest first.
+     */
+    private static Answer<List<LaundryBookingView>> keysetQuery(List<LaundryBookingView> table) {
+        return invocation -> {
+            LocalDate afterDate = invocation.getArgument(1);
+            LaundryBookingView after = afterDate == null ? null
+                    : view(invocation.<Long>getArgument(3), afterDate, invocation.getArgument(2));
+            return table.stream()
+                    .filter(row -> after == null || NEWEST_FIRST.compare(row, after) > 0)
+                    .sorted(NEWEST_FIRST)
+                    .limit(invocation.<Limit>getArgument(4).max())
+                    .toList();
+        };
+    }
+
+    private static LaundryBookingView view(long id, LocalDate date, int slotStart) {
+        return new View(id, date, slotStart);
+    }
+
+    private record View(Long getId, LocalDate getDate, Integer getSlotStart) implements LaundryBookingView {
+        @Override
+        public String getBookerRoomNumber() {
+            return "101";
+        }
+
+        @Override
+        public String getMachineName() {
+            return "Washer 1";
+        }
+
+        @Override
+        public LaundryMachine.MachineType getMachineType() {
+            return LaundryMachine.MachineType.WASHER;
+        }
+
+        @Override
+        public Integer getSlotDuration() {
+            return 90;
+        }
+
+        @Override
+        public Date getCreatedAt() {
+            return new Date(0);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package de.clickism.guckelsberg.laundry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static de.clickism.guckelsberg.laundry.LaundryFixtures.DATE;
+import static de.clickism.guckelsberg.laundry.LaundryFixtures.washer;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LaundryBookingLocksTest {
+    private static final MachineDay DAY = new MachineDay("Washer 1", DATE);
+    private static final MachineDay NEXT_DAY = new MachineDay("Washer 1", DATE.plusDays(1));
+
+    private final LaundryBookingLocks locks = new LaundryBookingLocks(Duration.ofMillis(50));
+    private final ExecutorService otherThread = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        otherThread.shutdownNow();
+    }
+
+    @Test
+    void slotsRunningPastMidnightLockTheNextDay() {
+        assertThat(LaundryBookingLocks.daysOf(washer(), DATE, 1350)).containsExactly(DAY);
+        assertThat(LaundryBookingLocks.daysOf(washer(), DATE, 1380)).containsExactly(DAY, NEXT_DAY);
+    }
+
+    @Test
+    void lockingRequiresTransaction() {
+        assertThatThrownBy(() -> locks.lockUntilCompletion(List.of(DAY)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void locksAreHeldUntilTransactionCompletes() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        locks.lockUntilCompletion(List.of(DAY));
+
+        assertThatThrownBy(() -> lockInOtherTransaction(List.of(DAY)).get())
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(BookingConflictException.class);
+        // Other days are not affected
+        lockInOtherTransaction(List.of(NEXT_DAY)).get();
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertThatNoException().isThrownBy(() -> lockInOtherTransaction(List.of(DAY)).get());
+    }
+
+    @Test
+    void failedLockReleasesDaysAlreadyLocked() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        locks.lockUntilCompletion(List.of(NEXT_DAY));
+
+        // Locks the first day, then times out on the second
+        assertThatThrownBy(() -> lockInOtherTransaction(List.of(NEXT_DAY, DAY)).get())
+                .hasCauseInstanceOf(BookingConflictException.class);
+        lockInOtherTransaction(List.of(DAY)).get();
+    }
+
+    private Future<?> lockInOtherTransaction(List<MachineDay> days) {
+        return otherThread.submit(() -> {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                locks.lockUntilCompletion(days);
+                complete(TransactionSynchronization.STATUS_COMMITTED);
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        });
+    }
+
+    private static void complete(int status) {
+        TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(), status);
+    }
+}
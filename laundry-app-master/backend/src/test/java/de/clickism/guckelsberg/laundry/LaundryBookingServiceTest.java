@@ -0,0 +1,199 @@
+package de.clickism.guckelsberg.laundry;
+
+import de.clickism.guckelsberg.events.DomainEvent;
+import de.clickism.guckelsberg.events.DomainEventPublisher;
+import de.clickism.guckelsberg.laundry.LaundryBookingService.BatchBookingResponse;
+import de.clickism.guckelsberg.laundry.LaundryBookingService.BatchItemResult;
+import de.clickism.guckelsberg.laundry.LaundryBookingService.BatchItemStatus;
+import de.clickism.guckelsberg.metrics.StageMetrics;
+import de.clickism.guckelsberg.user.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static de.clickism.guckelsberg.laundry.LaundryFixtures.dryer;
+import static de.clickism.guckelsberg.laundry.LaundryFixtures.resident;
+import static de.clickism.guckelsberg.laundry.LaundryFixtures.washer;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LaundryBookingServiceTest {
+    private static final LocalDate TOMORROW = LocalDate.now().plusDays(1);
+
+    @Mock
+    private LaundryBookingRepository bookingRepository;
+    @Mock
+    private LaundryMachineRepository machineRepository;
+    @Mock
+    private LaundrySlotOverrideService overrideService;
+    @Mock
+    private LaundryQuotaLedger quotaLedger;
+    @Mock
+    private DomainEventPublisher events;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private final User user = resident("101");
+    private final List<LaundryQuotaUsage> quotas = new ArrayList<>();
+    private LaundryBookingService bookingService;
+
+    @BeforeEach
+    void setUp() {
+        StageMetrics stageMetrics = new StageMetrics(new SimpleMeterRegistry());
+        bookingService = new LaundryBookingService(
+                bookingRepository,
+                machineRepository,
+                new LimitsChecker(quotaLedger, stageMetrics),
+                overrideService,
+                new LaundryOccupancyIndex(bookingRepository),
+                new LaundryBookingLocks(Duration.ofMillis(50)),
+                quotaLedger,
+                events,
+                jdbcTemplate,
+                stageMetrics
+        );
+        lenient().when(machineRepository.findAllById(any())).thenReturn(List.of(washer(), dryer()));
+        lenient().when(quotaLedger.lockWeeks(eq(user), any())).thenReturn(quotas);
+        for (LaundryMachine.MachineType type : LaundryMachine.MachineType.values()) {
+            quotas.add(usage(LaundryQuotaLedger.weekStart(TOMORROW), type, 0));
+        }
+        lenient().when(jdbcTemplate.batchUpdate(
+                any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class)
+        )).thenAnswer(invocation -> {
+            BatchPreparedStatementSetter setter = invocation.getArgument(1);
+            KeyHolder keyHolder = invocation.getArgument(2);
+            for (int i = 0; i < setter.getBatchSize(); i++) {
+                keyHolder.getKeyList().add(Map.of("id", 100L + i));
+            }
+            int[] counts = new int[setter.getBatchSize()];
+            Arrays.fill(counts, 1);
+            return counts;
+        });
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void rejectsOversizedBatchesUpFront() {
+        List<LaundryBooking.CreateDto> dtos = Collections.nCopies(LaundryBookingService.MAX_BATCH_SIZE + 1,
+                new LaundryBooking.CreateDto("Washer 1", TOMORROW, 540));
+
+        assertThatThrownBy(() -> bookingService.createBatchBooking(dtos, user))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(machineRepository, jdbcTemplate);
+    }
+
+    @Test
+    void itemsOverlappingEarlierItemsOfTheBatchAreRejected() {
+        // Extended slots may start between the regular ones
+        when(overrideService.isSlotExplicitlyAllowed(any(), eq(TOMORROW), eq(585))).thenReturn(true);
+
+        BatchBookingResponse response = bookingService.createBatchBooking(List.of(
+                new LaundryBooking.CreateDto("Washer 1", TOMORROW, 540),
+                new LaundryBooking.CreateDto("Washer 1", TOMORROW, 540),
+                new LaundryBooking.CreateDto("Washer 1", TOMORROW, 585),
+                new LaundryBooking.CreateDto("Dryer 1", TOMORROW, 540)
+        ), user);
+
+        assertThat(response.results()).extracting(BatchItemResult::status).containsExactly(
+                BatchItemStatus.ACCEPTED, BatchItemStatus.REJECTED, BatchItemStatus.REJECTED, BatchItemStatus.ACCEPTED);
+        assertThat(response.results().get(1).reason()).contains("already booked or is overlapping");
+        assertThat(response.accepted()).isEqualTo(2);
+        verify(events, times(2)).publish(any(DomainEvent.BookingCreated.class));
+    }
+
+    @Test
+    void quotaCountsTheItemsAcceptedBeforeInTheBatch() {
+        user.setMaxWasherMinutesPerWeek(180L);
+
+        BatchBookingResponse response = bookingService.createBatchBooking(List.of(
+                new LaundryBooking.CreateDto("Washer 1", TOMORROW, 540),
+                new LaundryBooking.CreateDto("Washer 1", TOMORROW, 630),
+                new LaundryBooking.CreateDto("Washer 1", TOMORROW, 720)
+        ), user);
+
+        assertThat(response.results()).extracting(BatchItemResult::status).containsExactly(
+                BatchItemStatus.ACCEPTED, BatchItemStatus.ACCEPTED, BatchItemStatus.REJECTED);
+        assertThat(response.results().get(2).reason()).contains("You already booked 3.0 hours");
+        assertThat(quotas).filteredOn(usage -> usage.getMachineType() == LaundryMachine.MachineType.WASHER)
+                .extracting(LaundryQuotaUsage::getUsedMinutes)
+                .containsExactly(180L);
+    }
+
+    @Test
+    void invalidItemsAreRejectedBeforeTheirDaysAreTouched() {
+        BatchBookingResponse response = bookingService.createBatchBooking(List.of(
+                new LaundryBooking.CreateDto("Washer 1", LocalDate.now().minusDays(30), 540),
+                new LaundryBooking.CreateDto("Washer 1", TOMORROW, 540),
+                new LaundryBooking.CreateDto("Unknown", TOMORROW, 540)
+        ), user);
+
+        assertThat(response.results()).extracting(BatchItemResult::status).containsExactly(
+                BatchItemStatus.REJECTED, BatchItemStatus.ACCEPTED, BatchItemStatus.REJECTED);
+        verify(bookingRepository).findByMachine_NameInAndDateBetween(Set.of("Washer 1"), TOMORROW.minusDays(1), TOMORROW.plusDays(1));
+        verify(quotaLedger).lockWeeks(user, Set.of(LaundryQuotaLedger.weekStart(TOMORROW)));
+    }
+
+    @Test
+    void acceptedItemsAreInsertedInOrderAndGetTheirGeneratedKeys() throws Exception {
+        BatchBookingResponse response = bookingService.createBatchBooking(List.of(
+                new LaundryBooking.CreateDto("Washer 1", TOMORROW, 540),
+                new LaundryBooking.CreateDto("Washer 1", TOMORROW, 540),
+                new LaundryBooking.CreateDto("Dryer 1", TOMORROW, 720)
+        ), user);
+
+        assertThat(response.results()).extracting(BatchItemResult::id).containsExactly(100L, null, 101L);
+        ArgumentCaptor<BatchPreparedStatementSetter> setter = ArgumentCaptor.forClass(BatchPreparedStatementSetter.class);
+        verify(jdbcTemplate).batchUpdate(any(PreparedStatementCreator.class), setter.capture(), any(KeyHolder.class));
+        assertThat(setter.getValue().getBatchSize()).isEqualTo(2);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        setter.getValue().setValues(statement, 1);
+        verify(statement).setString(1, "101");
+        verify(statement).setString(2, "Dryer 1");
+        verify(statement).setObject(3, TOMORROW);
+        verify(statement).setInt(5, 720);
+        verify(statement).setInt(6, 900);
+    }
+
+    private static LaundryQuotaUsage usage(LocalDate weekStart, LaundryMachine.MachineType type, long usedMinutes) {
+        LaundryQuotaUsage usage = new LaundryQuotaUsage();
+        usage.setRoomNumber("101");
+        usage.setWeekStart(weekStart);
+        usage.setMachineType(type);
+        usage.setUsedMinutes(usedMinutes);
+        return usage;
+    }
+}
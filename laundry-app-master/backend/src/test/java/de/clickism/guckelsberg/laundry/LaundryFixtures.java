@@ -0,0 +1,38 @@
+package de.clickism.guckelsberg.laundry;
+
+import de.clickism.guckelsberg.user.User;
+
+import java.time.LocalDate;
+import java.util.Date;
+
+/**
+ * Machines, residents and bookings shared by the tests. Every call returns a new instance.
+ */
+public class LaundryFixtures {
+    public static final LocalDate DATE = LocalDate.of(2025, 3, 10); // A Monday
+
+    public static LaundryMachine washer() {
+        return new LaundryMachine("Washer 1", LaundryMachine.MachineType.WASHER, 90);
+    }
+
+    public static LaundryMachine dryer() {
+        return new LaundryMachine("Dryer 1", LaundryMachine.MachineType.DRYER, 180);
+    }
+
+    public static User resident(String roomNumber) {
+        User user = new User();
+        user.setRoomNumber(roomNumber);
+        return user;
+    }
+
+    public static LaundryBooking booking(User booker, LaundryMachine machine, LocalDate date, int slotStart) {
+        return new LaundryBooking(null, booker, machine, date, new Date(), slotStart);
+    }
+
+    /**
+     * A booking of {@link #washer()} by room 101.
+     */
+    public static LaundryBooking booking(LocalDate date, int slotStart) {
+        return booking(resident("101"), washer(), date, slotStart);
+    }
+}
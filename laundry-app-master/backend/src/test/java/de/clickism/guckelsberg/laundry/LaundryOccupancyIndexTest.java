@@ -0,0 +1,66 @@
+package de.clickism.guckelsberg.laundry;
+
+import de.clickism.guckelsberg.events.DomainEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static de.clickism.guckelsberg.laundry.LaundryFixtures.DATE;
+import static de.clickism.guckelsberg.laundry.LaundryFixtures.booking;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LaundryOccupancyIndexTest {
+    @Mock
+    private LaundryBookingRepository bookingRepository;
+    @InjectMocks
+    private LaundryOccupancyIndex index;
+
+    @Test
+    void loadsEachDayOnceIncludingBookingsOfThePreviousNight() {
+        when(bookingRepository.findByMachine_NameAndDateBetween("Washer 1", DATE.minusDays(1), DATE))
+                .thenReturn(List.of(booking(DATE.minusDays(1), 1380)));
+
+        assertThat(index.isOccupied("Washer 1", DATE, 0, 90)).isTrue();
+        assertThat(index.isOccupied("Washer 1", DATE, 30, 120)).isFalse();
+        verify(bookingRepository).findByMachine_NameAndDateBetween("Washer 1", DATE.minusDays(1), DATE);
+    }
+
+    @Test
+    void committedBookingsUpdateLoadedDays() {
+        when(bookingRepository.findByMachine_NameAndDateBetween(anyString(), any(), any())).thenReturn(List.of());
+        assertThat(index.isOccupied("Washer 1", DATE, 540, 630)).isFalse();
+        assertThat(index.isOccupied("Washer 1", DATE.plusDays(1), 0, 90)).isFalse();
+
+        LaundryBooking overnight = booking(DATE, 1380);
+        index.onBookingCreated(new DomainEvent.BookingCreated(booking(DATE, 540)));
+        index.onBookingCreated(new DomainEvent.BookingCreated(overnight));
+        assertThat(index.isOccupied("Washer 1", DATE, 540, 630)).isTrue();
+        assertThat(index.isOccupied("Washer 1", DATE.plusDays(1), 0, 90)).isTrue();
+
+        index.onBookingDeleted(new DomainEvent.BookingDeleted(overnight));
+        assertThat(index.isOccupied("Washer 1", DATE.plusDays(1), 0, 90)).isFalse();
+    }
+
+    @Test
+    void preloadedDaysAreNotLoadedAgain() {
+        when(bookingRepository.findByMachine_NameInAndDateBetween(List.of("Washer 1"), DATE.minusDays(1), DATE.plusDays(1)))
+                .thenReturn(List.of(booking(DATE, 1380)));
+
+        index.preload(List.of("Washer 1"), DATE, DATE.plusDays(1));
+
+        assertThat(index.isOccupied("Washer 1", DATE, 1380, 1440)).isTrue();
+        assertThat(index.isOccupied("Washer 1", DATE.plusDays(1), 0, 30)).isTrue();
+        assertThat(index.isOccupied("Washer 1", DATE.plusDays(1), 30, 120)).isFalse();
+        verify(bookingRepository, never()).findByMachine_NameAndDateBetween(anyString(), any(), any());
+    }
+}
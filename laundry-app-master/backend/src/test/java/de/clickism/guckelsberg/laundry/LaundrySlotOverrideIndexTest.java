@@ -0,0 +1,81 @@
+package de.clickism.guckelsberg.laundry;
+
+import de.clickism.guckelsberg.events.DomainEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static de.clickism.guckelsberg.laundry.LaundryFixtures.washer;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LaundrySlotOverrideIndexTest {
+    private static final LocalDate TOMORROW = LocalDate.now().plusDays(1);
+
+    @Mock
+    private LaundrySlotOverrideRepository overrideRepository;
+    @InjectMocks
+    private LaundrySlotOverrideIndex index;
+
+    @Test
+    void resolvesIndexedOverridesWithoutQueries() {
+        when(overrideRepository.findByEndDateGreaterThanEqual(any()))
+                .thenReturn(List.of(override(1L, LaundrySlotOverride.Status.BLOCKED, TOMORROW, 540, 630)));
+
+        assertThat(index.isBlocked("Washer 1", TOMORROW, 540)).isTrue();
+        assertThat(index.isBlocked("Washer 1", TOMORROW, 630)).isTrue();
+        assertThat(index.isBlocked("Washer 1", TOMORROW, 720)).isFalse();
+        assertThat(index.isBlocked("Washer 1", TOMORROW.plusDays(1), 540)).isFalse();
+        assertThat(index.isExtended("Washer 1", TOMORROW, 540)).isFalse();
+        assertThat(index.isBlocked("Dryer 1", TOMORROW, 540)).isFalse();
+        verify(overrideRepository, never()).findActiveForMachineOnDate(any(), any());
+    }
+
+    @Test
+    void committedChangesReplaceTheOverride() {
+        when(overrideRepository.findByEndDateGreaterThanEqual(any()))
+                .thenReturn(List.of(override(1L, LaundrySlotOverride.Status.BLOCKED, TOMORROW, null, null)));
+        assertThat(index.isBlocked("Washer 1", TOMORROW, 540)).isTrue();
+
+        LaundrySlotOverride moved = override(1L, LaundrySlotOverride.Status.BLOCKED, TOMORROW.plusDays(1), null, null);
+        index.onOverrideChanged(DomainEvent.OverrideChanged.updated(moved, TOMORROW, TOMORROW));
+        assertThat(index.isBlocked("Washer 1", TOMORROW, 540)).isFalse();
+        assertThat(index.isBlocked("Washer 1", TOMORROW.plusDays(1), 540)).isTrue();
+
+        index.onOverrideChanged(DomainEvent.OverrideChanged.deleted(moved));
+        assertThat(index.isBlocked("Washer 1", TOMORROW.plusDays(1), 540)).isFalse();
+    }
+
+    @Test
+    void pastDaysAreLookedUpInTheTable() {
+        LocalDate past = LocalDate.now().minusDays(10);
+        when(overrideRepository.findByEndDateGreaterThanEqual(any())).thenReturn(List.of());
+        when(overrideRepository.findActiveForMachineOnDate("Washer 1", past))
+                .thenReturn(List.of(override(2L, LaundrySlotOverride.Status.EXTENDED, past, 1350, 1350)));
+
+        assertThat(index.isExtended("Washer 1", past, 1350)).isTrue();
+        assertThat(index.isBlocked("Washer 1", past, 1350)).isFalse();
+    }
+
+    private static LaundrySlotOverride override(Long id, LaundrySlotOverride.Status status, LocalDate date,
+                                                Integer startSlot, Integer endSlot) {
+        LaundrySlotOverride override = new LaundrySlotOverride();
+        override.setId(id);
+        override.setMachine(washer());
+        override.setStatus(status);
+        override.setStartDate(date);
+        override.setEndDate(date);
+        override.setStartSlot(startSlot);
+        override.setEndSlot(endSlot);
+        return override;
+    }
+}
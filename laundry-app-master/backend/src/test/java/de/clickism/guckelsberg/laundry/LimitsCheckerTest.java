@@ -0,0 +1,104 @@
+package de.clickism.guckelsberg.laundry;
+
+import de.clickism.guckelsberg.metrics.StageMetrics;
+import de.clickism.guckelsberg.user.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static de.clickism.guckelsberg.laundry.LaundryFixtures.resident;
+import static de.clickism.guckelsberg.laundry.LaundryFixtures.washer;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LimitsCheckerTest {
+    @Mock
+    private LaundryQuotaUsageStore usageStore;
+    @Mock
+    private LaundryBookingRepository bookingRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final User user = resident("101");
+    private LaundryQuotaLedger ledger;
+    private LimitsChecker limitsChecker;
+
+    @BeforeEach
+    void setUp() {
+        ledger = new LaundryQuotaLedger(usageStore, bookingRepository);
+        limitsChecker = new LimitsChecker(ledger, new StageMetrics(meterRegistry));
+    }
+
+    @Test
+    void rejectsPastBookingsBeforeTouchingTheLedger() {
+        LaundryBooking booking = booking(LocalDate.now().minusDays(1));
+
+        assertThatThrownBy(() -> limitsChecker.checkLimits(booking))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Cannot book a slot in the past");
+        verifyNoInteractions(usageStore);
+    }
+
+    @Test
+    void rejectsBookingsTooFarAheadBeforeTouchingTheLedger() {
+        LaundryBooking booking = booking(LocalDate.now().plusDays(LimitsChecker.MAX_BOOKING_DAYS_AHEAD + 1));
+
+        assertThatThrownBy(() -> limitsChecker.checkLimits(booking))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("days in advance");
+        verifyNoInteractions(usageStore);
+    }
+
+    @Test
+    void reservesMinutesWithinTheUsersQuota() {
+        user.setMaxWasherMinutesPerWeek(180L);
+        LaundryBooking booking = booking(LocalDate.now().plusDays(1));
+        LocalDate weekStart = LaundryQuotaLedger.weekStart(booking.getDate());
+        when(usageStore.tryAdd("101", weekStart, LaundryMachine.MachineType.WASHER, 90, 180)).thenReturn(1);
+
+        assertThatNoException().isThrownBy(() -> limitsChecker.checkLimits(booking));
+        verify(usageStore).initialize("101", weekStart, weekStart.plusDays(6), "WASHER");
+    }
+
+    @Test
+    void rejectsBookingsExceedingTheQuotaWithTheMinutesUsed() {
+        LaundryBooking booking = booking(LocalDate.now().plusDays(1));
+        LocalDate weekStart = LaundryQuotaLedger.weekStart(booking.getDate());
+        long maxMinutes = LimitsChecker.DEFAULT_MAX_WASHER_MINUTES_PER_USER_PER_WEEK;
+        when(usageStore.tryAdd("101", weekStart, LaundryMachine.MachineType.WASHER, 90, maxMinutes)).thenReturn(0);
+        // Weeks without a ledger row fall back to the bookings
+        when(usageStore.findByRoomNumberAndWeekStartAndMachineType("101", weekStart, LaundryMachine.MachineType.WASHER))
+                .thenReturn(Optional.empty());
+        when(bookingRepository.sumSlotMinutes(user, weekStart, weekStart.plusDays(6), LaundryMachine.MachineType.WASHER))
+                .thenReturn(maxMinutes);
+
+        assertThatThrownBy(() -> limitsChecker.checkLimits(booking))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("You already booked 9.0 hours");
+        assertThat(meterRegistry.get("app.laundry.booking.rejected").tag("reason", "quota").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void releasedMinutesGoBackToTheBookingsWeek() {
+        LaundryBooking booking = booking(LaundryFixtures.DATE.plusDays(6));
+
+        ledger.release(booking);
+
+        verify(usageStore).subtract("101", LaundryFixtures.DATE, LaundryMachine.MachineType.WASHER, 90);
+    }
+
+    private LaundryBooking booking(LocalDate date) {
+        return LaundryFixtures.booking(user, washer(), date, 540);
+    }
+}
@@ -0,0 +1,31 @@
+package de.clickism.guckelsberg.paging;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CursorPageTest {
+
+    @Test
+    void extraRowOnlySignalsTheNextPage() {
+        CursorPage<String> page = CursorPage.of(List.of(5, 4, 3), 2, Cursor::of, String::valueOf);
+
+        assertThat(page.items()).containsExactly("5", "4");
+        assertThat(Cursor.decode(page.nextCursor(), 1).getInt(0)).isEqualTo(4);
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        assertThat(CursorPage.of(List.of(5, 4), 2, Cursor::of, String::valueOf).nextCursor()).isNull();
+        assertThat(CursorPage.of(List.<Integer>of(), 2, Cursor::of, String::valueOf).items()).isEmpty();
+    }
+
+    @Test
+    void sizesAreClamped() {
+        assertThat(CursorPage.clampSize(0)).isEqualTo(1);
+        assertThat(CursorPage.clampSize(20)).isEqualTo(20);
+        assertThat(CursorPage.clampSize(1000)).isEqualTo(CursorPage.MAX_SIZE);
+    }
+}
@@ -0,0 +1,48 @@
+package de.clickism.guckelsberg.paging;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorTest {
+
+    @Test
+    void encodedCursorsDecodeToTheirValues() {
+        String encoded = Cursor.of(LocalDate.of(2025, 3, 10), 540, 42L, "Room 1/2?").encode();
+
+        Cursor cursor = Cursor.decode(encoded, 4);
+
+        assertThat(encoded).matches("[A-Za-z0-9_-]+");
+        assertThat(cursor.getDate(0)).isEqualTo(LocalDate.of(2025, 3, 10));
+        assertThat(cursor.getInt(1)).isEqualTo(540);
+        assertThat(cursor.getLong(2)).isEqualTo(42L);
+        assertThat(cursor.getString(3)).isEqualTo("Room 1/2?");
+    }
+
+    @Test
+    void missingCursorStandsForTheFirstPage() {
+        assertThat(Cursor.decode(null, 1)).isNull();
+        assertThat(Cursor.decode("", 1)).isNull();
+    }
+
+    @Test
+    void malformedCursorsAreRejected() {
+        String twoValues = Cursor.of("a", "b").encode();
+        assertThatThrownBy(() -> Cursor.decode(twoValues, 3)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Cursor.decode("not base64!", 1)).isInstanceOf(IllegalArgumentException.class);
+
+        Cursor cursor = Cursor.decode(encode("x\u001f" + Long.MAX_VALUE + "\u001f2025-13-01"), 3);
+        assertThatThrownBy(() -> cursor.getLong(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> cursor.getInt(1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> cursor.getDate(2)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,60 @@
+package de.clickism.guckelsberg.ratelimit;
+
+import de.clickism.guckelsberg.metrics.StageMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitInterceptorTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RateLimitInterceptor interceptor = new RateLimitInterceptor(
+            meterRegistry,
+            new StageMetrics(meterRegistry),
+            1, Duration.ofSeconds(15),
+            120, Duration.ofMinutes(1),
+            2, Duration.ofMinutes(5),
+            3
+    );
+
+    @Test
+    void loginsAreLimitedPerRoomNumberAndAddress() {
+        assertThat(interceptor.tryAcquireLogin("101", from("10.0.0.1"))).isZero();
+        assertThat(interceptor.tryAcquireLogin(" 101 ", from("10.0.0.1"))).isZero();
+
+        assertThat(interceptor.tryAcquireLogin("101", from("10.0.0.1"))).isPositive();
+        assertThat(interceptor.tryAcquireLogin("101", from("10.0.0.2"))).isZero();
+        assertThat(meterRegistry.get("app.rate-limit.rejected").tag("group", "LOGIN").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void loginsAreLimitedPerAddressAcrossRoomNumbers() {
+        assertThat(interceptor.tryAcquireLogin("101", from("10.0.0.1"))).isZero();
+        assertThat(interceptor.tryAcquireLogin("102", from("10.0.0.1"))).isZero();
+        assertThat(interceptor.tryAcquireLogin("103", from("10.0.0.1"))).isZero();
+
+        assertThat(interceptor.tryAcquireLogin("104", from("10.0.0.1"))).isPositive();
+        assertThat(interceptor.tryAcquireLogin("104", from("10.0.0.2"))).isZero();
+    }
+
+    @Test
+    void loginsRejectedPerRoomNumberDoNotUseUpTheAddress() {
+        assertThat(interceptor.tryAcquireLogin("101", from("10.0.0.1"))).isZero();
+        assertThat(interceptor.tryAcquireLogin("101", from("10.0.0.1"))).isZero();
+        assertThat(interceptor.tryAcquireLogin("101", from("10.0.0.1"))).isPositive();
+        assertThat(interceptor.tryAcquireLogin("101", from("10.0.0.1"))).isPositive();
+
+        assertThat(interceptor.tryAcquireLogin("102", from("10.0.0.1"))).isZero();
+        assertThat(interceptor.tryAcquireLogin("103", from("10.0.0.1"))).isPositive();
+    }
+
+    private static MockHttpServletRequest from(String address) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/auth/login");
+        request.setRemoteAddr(address);
+        return request;
+    }
+}
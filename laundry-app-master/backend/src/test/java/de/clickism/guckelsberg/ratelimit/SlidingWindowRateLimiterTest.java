@@ -0,0 +1,102 @@
+package de.clickism.guckelsberg.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlidingWindowRateLimiterTest {
+    private static final long WINDOW = 1000;
+
+    private final SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(2, Duration.ofMillis(WINDOW));
+
+    @Test
+    void permitsFreeUpOnceTheyLeaveTheWindow() {
+        assertThat(limiter.tryAcquire("101", 0)).isZero();
+        assertThat(limiter.tryAcquire("101", 400)).isZero();
+
+        assertThat(limiter.tryAcquire("101", 600)).isEqualTo(400);
+        assertThat(limiter.tryAcquire("102", 600)).isZero();
+        assertThat(limiter.tryAcquire("101", 1000)).isZero();
+        assertThat(limiter.tryAcquire("101", 1100)).isEqualTo(300);
+    }
+
+    @Test
+    void permitsTakenWithAnEarlierClockAreKeptSorted() {
+        assertThat(limiter.tryAcquire("101", 500)).isZero();
+        assertThat(limiter.tryAcquire("101", 100)).isZero();
+
+        // The oldest permit, not the first taken, frees up first
+        assertThat(limiter.tryAcquire("101", 600)).isEqualTo(500);
+        assertThat(limiter.tryAcquire("101", 1100)).isZero();
+    }
+
+    @Test
+    void releasedPermitsCanBeTakenAgain() {
+        assertThat(limiter.tryAcquire("101", 0)).isZero();
+        assertThat(limiter.tryAcquire("101", 100)).isZero();
+
+        limiter.release("101", 100);
+        // Permits that were never taken are ignored
+        limiter.release("101", 200);
+        limiter.release("102", 100);
+
+        assertThat(limiter.tryAcquire("101", 200)).isZero();
+        assertThat(limiter.tryAcquire("101", 300)).isEqualTo(700);
+    }
+
+    @Test
+    void idleKeysAreEvictedWithoutForgettingActivePermits() {
+        limiter.tryAcquire("101", 0);
+        limiter.tryAcquire("101", 0);
+        limiter.tryAcquire("102", 900);
+        limiter.tryAcquire("102", 900);
+
+        limiter.evictIdle(1500);
+
+        assertThat(limiter.tryAcquire("101", 1500)).isZero();
+        assertThat(limiter.tryAcquire("102", 1500)).isEqualTo(400);
+    }
+
+    @Test
+    void concurrentRequestsNeverExceedTheLimit() throws Exception {
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(50, Duration.ofMillis(WINDOW));
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> acquired = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                int offset = thread;
+                acquired.add(executor.submit(() -> {
+                    start.await();
+                    int permits = 0;
+                    for (int i = 0; i < 100; i++) {
+                        // Clocks differ slightly between threads
+                        if (limiter.tryAcquire("101", 500 + (i + offset) % 7) == 0) {
+                            permits++;
+                        }
+                    }
+                    return permits;
+                }));
+            }
+            start.countDown();
+
+            int total = 0;
+            for (Future<Integer> future : acquired) {
+                total += future.get(10, TimeUnit.SECONDS);
+            }
+            assertThat(total).isEqualTo(50);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
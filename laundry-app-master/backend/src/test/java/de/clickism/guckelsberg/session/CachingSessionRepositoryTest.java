@@ -0,0 +1,116 @@
+package de.clickism.guckelsberg.session;
+
+import de.clickism.guckelsberg.session.CachingSessionRepository.CachedSession;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.session.FindByIndexNameSessionRepository;
+import org.springframework.session.MapSession;
+import org.springframework.session.Session;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CachingSessionRepositoryTest {
+    @Mock
+    private FindByIndexNameSessionRepository<Session> delegate;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SessionCache cache;
+    private CachingSessionRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        cache = new SessionCache(jdbcTemplate, new SimpleMeterRegistry(), "SPRING_SESSION", 100, Duration.ofMinutes(30));
+        repository = new CachingSessionRepository(delegate, cache);
+    }
+
+    @Test
+    void sessionsAreLoadedOnceAndThenServedFromTheCache() {
+        when(delegate.findById("a")).thenReturn(stored("a"));
+
+        assertThat(repository.findById("a").<String>getAttribute("room")).isEqualTo("101");
+        assertThat(repository.findById("a").<String>getAttribute("room")).isEqualTo("101");
+
+        verify(delegate, times(1)).findById("a");
+    }
+
+    @Test
+    void touchesAreWrittenBehind() {
+        when(delegate.findById("a")).thenReturn(stored("a"));
+        repository.findById("a");
+        CachedSession session = repository.findById("a");
+
+        Instant accessed = Instant.now().plusSeconds(5);
+        session.setLastAccessedTime(accessed);
+        repository.save(session);
+
+        verify(delegate, never()).save(any());
+        assertThat(repository.findById("a").getLastAccessedTime()).isEqualTo(accessed);
+        cache.flush();
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void changedIdsEvictTheOldId() {
+        when(delegate.findById("a")).thenReturn(stored("a"));
+        repository.findById("a");
+        CachedSession session = repository.findById("a");
+
+        String newId = session.changeSessionId();
+        repository.save(session);
+
+        verify(delegate).save(any());
+        assertThat(cache.get("a")).isNull();
+        assertThat(repository.findById(newId).getId()).isEqualTo(newId);
+        verify(delegate, never()).findById(newId);
+    }
+
+    @Test
+    void sessionsDeletedElsewhereStartOverOnTheirNextChange() {
+        when(delegate.findById("a")).thenReturn(stored("a")).thenReturn(null);
+        when(delegate.createSession()).thenReturn(new MapSession("b"));
+        repository.findById("a");
+        CachedSession session = repository.findById("a");
+
+        session.setAttribute("theme", "dark");
+        repository.save(session);
+
+        assertThat(session.getId()).isEqualTo("b");
+        assertThat(session.getAttributeNames()).containsExactly("theme");
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("b")).isNotNull();
+    }
+
+    @Test
+    void deletedSessionsAreEvicted() {
+        when(delegate.findById("a")).thenReturn(stored("a"));
+        repository.findById("a");
+
+        repository.deleteById("a");
+
+        verify(delegate).deleteById("a");
+        assertThat(cache.get("a")).isNull();
+    }
+
+    private static MapSession stored(String id) {
+        MapSession session = new MapSession(id);
+        session.setAttribute("room", "101");
+        return session;
+    }
+}
@@ -0,0 +1,180 @@
+package de.clickism.guckelsberg.session;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.session.MapSession;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SessionCacheTest {
+    private static final Duration MAX_INACTIVE = Duration.ofMinutes(30);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Set<String> table = new HashSet<>();
+    private final List<List<Object>> checkedIds = new ArrayList<>();
+    private SessionCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = cache(10, Duration.ofMinutes(30));
+        lenient().when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class)))
+                .thenAnswer(invocation -> {
+                    Object[] ids = Arrays.copyOfRange(invocation.getArguments(), 2, invocation.getArguments().length);
+                    checkedIds.add(List.of(ids));
+                    return Arrays.stream(ids).map(String.class::cast).filter(table::contains).toList();
+                });
+    }
+
+    @Test
+    void sweepOnlyChecksSessionsUsedSinceThePreviousSweep() throws InterruptedException {
+        cache.put(session("a"));
+        cache.put(session("b"));
+        table.addAll(Set.of("a", "b"));
+
+        Thread.sleep(5);
+        cache.sweep();
+        Thread.sleep(5);
+        assertThat(cache.get("a")).isNotNull();
+        cache.sweep();
+
+        assertThat(checkedIds).hasSize(2);
+        assertThat(checkedIds.get(0)).containsExactlyInAnyOrder("a", "b");
+        assertThat(checkedIds.get(1)).containsExactly("a");
+    }
+
+    @Test
+    void sessionsDeletedElsewhereAreSwept() {
+        cache.put(session("a"));
+        cache.put(session("b"));
+        table.add("b");
+
+        cache.sweep();
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("b")).isNotNull();
+        assertThat(meterRegistry.get("app.sessions.cache.swept").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void sessionsIdleDuringTheLastSweepAreCheckedOnTheirNextLookup() throws InterruptedException {
+        cache.put(session("a"));
+        cache.put(session("b"));
+        table.addAll(Set.of("a", "b"));
+        Thread.sleep(5);
+        cache.sweep();
+        Thread.sleep(5);
+        cache.sweep();
+        table.remove("a");
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("b")).isNotNull();
+        // Once checked, the session is served without another check until the next sweep
+        assertThat(cache.get("b")).isNotNull();
+
+        assertThat(checkedIds).hasSize(3);
+        assertThat(checkedIds.get(0)).containsExactlyInAnyOrder("a", "b");
+        assertThat(checkedIds.subList(1, 3)).containsExactly(List.of("a"), List.of("b"));
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void snapshotsAreReloadedOnceDueForRevalidation() throws InterruptedException {
+        cache = cache(10, Duration.ofMillis(20));
+        cache.put(session("a"));
+        assertThat(cache.get("a")).isNotNull();
+
+        Thread.sleep(30);
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void leastRecentlyUsedSessionsAreEvictedOverTheMaximumSize() throws InterruptedException {
+        for (int i = 0; i < 10; i++) {
+            cache.put(session("s" + i));
+            Thread.sleep(2);
+        }
+        assertThat(cache.get("s0")).isNotNull();
+
+        cache.put(session("s10"));
+
+        assertThat(cache.size()).isEqualTo(10);
+        assertThat(cache.get("s1")).isNull();
+        assertThat(cache.get("s0")).isNotNull();
+        assertThat(cache.get("s10")).isNotNull();
+    }
+
+    @Test
+    void copiesDoNotChangeTheCachedSnapshot() {
+        MapSession session = session("a");
+        session.setAttribute("room", "101");
+        cache.put(session);
+
+        cache.get("a").setAttribute("room", "102");
+        session.setAttribute("room", "103");
+
+        assertThat(cache.get("a").<String>getAttribute("room")).isEqualTo("101");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedFlushesAreRetriedWithTheLatestAccess() {
+        cache.put(session("a"));
+        Instant first = Instant.now();
+        Instant second = first.plusSeconds(5);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(new int[]{1});
+
+        cache.touch("a", first, MAX_INACTIVE);
+        cache.flush();
+        cache.touch("a", second, MAX_INACTIVE);
+        cache.flush();
+        cache.flush();
+
+        ArgumentCaptor<List<Object[]>> batches = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), batches.capture());
+        Object[] written = batches.getAllValues().get(1).getFirst();
+        assertThat(written).containsExactly(second.toEpochMilli(), second.plus(MAX_INACTIVE).toEpochMilli(),
+                "a", second.toEpochMilli());
+        assertThat(cache.get("a").getLastAccessedTime()).isEqualTo(second);
+    }
+
+    private SessionCache cache(int maxSize, Duration revalidateAfter) {
+        return new SessionCache(jdbcTemplate, meterRegistry, "SPRING_SESSION", maxSize, revalidateAfter);
+    }
+
+    private static MapSession session(String id) {
+        MapSession session = new MapSession(id);
+        session.setMaxInactiveInterval(MAX_INACTIVE);
+        return session;
+    }
+}
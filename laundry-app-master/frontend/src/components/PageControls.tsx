@@ -1,15 +1,35 @@
 import styles from "./PageControls.module.css";
 import {FaChevronLeft, FaChevronRight} from "react-icons/fa";
 import {Button} from "./Button.tsx";
+import {useState} from "react";
 
-export function PageControls({page, setPage, array}: {
+/**
+ * Keeps the cursor of each visited page of a cursor paginated query, and goes back to the first page
+ * whenever the filters, given as a key, change.
+ */
+export function usePageCursors(filterKey: string = '') {
+  // Cursor of each visited page, the first page has none
+  const [state, setState] = useState<{ filterKey: string, cursors: (string | null)[] }>({filterKey, cursors: [null]});
+  const cursors = state.filterKey === filterKey ? state.cursors : [null];
+  const page = cursors.length - 1;
+  const setPage = (newPage: number, nextCursor: string | null) => {
+    if (newPage < page) {
+      setState({filterKey, cursors: cursors.slice(0, newPage + 1)});
+    } else if (nextCursor) {
+      setState({filterKey, cursors: [...cursors, nextCursor]});
+    }
+  };
+  return {cursor: cursors[page], page, setPage};
+}
+
+export function PageControls({page, setPage, hasNext}: {
   page: number,
   setPage: (page: number) => void,
-  array: unknown[],
+  hasNext: boolean,
 }) {
   return (
     <>
-      {(array.length >= 20 || page !== 0) && (
+      {(hasNext || page !== 0) && (
         <div className={styles.pageControls}>
           <Button
             disabled={page === 0}
@@ -23,7 +43,7 @@ export function PageControls({page, setPage, array}: {
             Page {page + 1}
           </Button>
           <Button
-            disabled={array.length < 20}
+            disabled={!hasNext}
             onClick={() => setPage(page + 1)}
           >
             <div className="flex-text">
@@ -1,6 +1,7 @@
 import Navbar from "./Navbar.tsx";
 import * as React from "react";
 import styles from './Layout.module.css';
+import {useAvailabilityEvents} from "../../events.ts";
 
 function Footer() {
   return (
@@ -11,6 +12,7 @@ function Footer() {
 }
 
 export default function Layout({children}: { children: React.ReactNode }) {
+  useAvailabilityEvents();
   return (
     <div className={styles.layout}>
       <Navbar/>
@@ -0,0 +1,139 @@
+import {useEffect} from "react";
+import {type QueryClient, useQueryClient} from "@tanstack/react-query";
+import {useUserData} from "./features/user/queries.ts";
+import type {Role} from "./features/user/models.ts";
+import {toLocalDate} from "./utils.ts";
+
+const API_BASE_URL = import.meta.env.VITE_API_URL || '';
+
+/**
+ * Polling interval for data that is also kept fresh by availability events.
+ * Polling only acts as a fallback for missed events.
+ */
+export const EVENT_BACKED_REFETCH_INTERVAL = 1000 * 60 * 5;
+
+type EventType = 'BOOKING_CREATED' | 'BOOKING_DELETED' | 'OVERRIDE_CHANGED'
+  | 'ROOFTOP_BOOKING_CHANGED' | 'ROOFTOP_REQUEST_CHANGED';
+
+type AvailabilityEvent = {
+  type: EventType,
+  id: number,
+  machineName: string | null,
+  startDate: string,
+  endDate: string,
+  status: string | null,
+  // Whether the change was made to a booking or request of the current user
+  own: boolean,
+}
+
+type Recipient = {
+  laundryAdmin: boolean,
+  rooftopAdmin: boolean,
+}
+
+const EVENT_TYPES: EventType[] = [
+  'BOOKING_CREATED', 'BOOKING_DELETED', 'OVERRIDE_CHANGED', 'ROOFTOP_BOOKING_CHANGED', 'ROOFTOP_REQUEST_CHANGED'
+];
+
+function shiftDays(date: string, days: number): string {
+  const shifted = new Date(`${date}T00:00:00`);
+  shifted.setDate(shifted.getDate() + days);
+  return toLocalDate(shifted);
+}
+
+function invalidate(qc: QueryClient, key: string, matches: (queryKey: readonly unknown[]) => boolean = () => true) {
+  void qc.invalidateQueries({queryKey: [key], predicate: query => matches(query.queryKey)});
+}
+
+/**
+ * Refetches only the queries the event affects: queries of other days or machines are left alone,
+ * and personal data such as the dashboard only when the change was the user's own.
+ */
+function onEvent(qc: QueryClient, event: AvailabilityEvent, recipient: Recipient) {
+  const {startDate, endDate, own} = event;
+  const today = toLocalDate(new Date());
+  // ISO dates compare like the dates they represent
+  const within = (date: unknown, from = startDate, to = endDate) =>
+    typeof date === 'string' && from <= date && date <= to;
+  const overlaps = (from: unknown, to: unknown) =>
+    typeof from === 'string' && typeof to === 'string' && from <= endDate && startDate <= to;
+  switch (event.type) {
+    case 'BOOKING_CREATED':
+    case 'BOOKING_DELETED':
+      // Bookings by date include the bookings of the day before and after
+      invalidate(qc, 'laundryBookingsByDate', key => within(key[1], shiftDays(startDate, -1), shiftDays(endDate, 1)));
+      invalidate(qc, 'laundryAvailability', key => overlaps(key[1], key[2]));
+      if (endDate >= today) {
+        invalidate(qc, 'laundryBookingsAfterToday');
+      }
+      if (own) {
+        invalidate(qc, 'userLaundryBookingsInTheFuture');
+      }
+      if (own || (recipient.laundryAdmin && within(today))) {
+        invalidate(qc, 'dashboardSummary');
+      }
+      break;
+    case 'OVERRIDE_CHANGED':
+      invalidate(qc, 'laundryOverrides', key => within(key[1]));
+      invalidate(qc, 'laundryOverridesRange', key =>
+        overlaps(key[1], key[2]) && (key[3] === 'ALL' || key[3] === event.machineName));
+      invalidate(qc, 'laundryAvailability', key => overlaps(key[1], key[2]));
+      break;
+    case 'ROOFTOP_BOOKING_CHANGED':
+      invalidate(qc, 'rooftopBookingsByMonth', key =>
+        typeof key[1] === 'string' && within(key[1].slice(0, 7), startDate.slice(0, 7), endDate.slice(0, 7)));
+      if (own) {
+        invalidate(qc, 'myRooftopBookings');
+      }
+      if (recipient.rooftopAdmin) {
+        invalidate(qc, 'adminRooftopBookings');
+      }
+      if (own || recipient.rooftopAdmin) {
+        invalidate(qc, 'dashboardSummary');
+      }
+      break;
+    case 'ROOFTOP_REQUEST_CHANGED':
+      // Only sent to the requester and to rooftop admins
+      if (own) {
+        invalidate(qc, 'rooftopRequests');
+      }
+      if (recipient.rooftopAdmin) {
+        invalidate(qc, 'adminRooftopRequests');
+      }
+      invalidate(qc, 'dashboardSummary');
+      break;
+  }
+}
+
+function recipientOf(role: Role): Recipient {
+  return {
+    laundryAdmin: role === 'LAUNDRY_ADMIN' || role === 'MASTER_ADMIN',
+    rooftopAdmin: role === 'ROOFTOP_ADMIN' || role === 'MASTER_ADMIN',
+  };
+}
+
+/**
+ * Subscribes to availability events from today on while the user is logged in and refetches affected queries.
+ */
+export function useAvailabilityEvents() {
+  const qc = useQueryClient();
+  const {data: user} = useUserData();
+  const role = user?.role;
+  // A different user logging in needs a subscription of its own
+  const roomNumber = user?.roomNumber;
+
+  useEffect(() => {
+    if (!role) {
+      return;
+    }
+    const recipient = recipientOf(role);
+    const params = new URLSearchParams({from: toLocalDate(new Date())});
+    const source = new EventSource(`${API_BASE_URL}/api/events?${params}`, {withCredentials: true});
+    for (const type of EVENT_TYPES) {
+      source.addEventListener(type, message => {
+        onEvent(qc, JSON.parse((message as MessageEvent<string>).data) as AvailabilityEvent, recipient);
+      });
+    }
+    return () => source.close();
+  }, [qc, role, roomNumber]);
+}
@@ -2,16 +2,21 @@ import {useState} from "react";
 import {useAdminRooftopBookings} from "../../rooftop/queries.ts";
 import {Loading} from "../../../components/Loading.tsx";
 import {formatDateRelativeToToday} from "../../../utils.ts";
+import {PageControls, usePageCursors} from "../../../components/PageControls.tsx";
+
+const PAGE_SIZE = 20;
 
 export function ManageBookings() {
   const [from, setFrom] = useState<string>('');
   const [to, setTo] = useState<string>('');
   const [bookerRoom, setBookerRoom] = useState('');
-  const {data: bookings, isLoading, isError} = useAdminRooftopBookings({
+  const {cursor, page, setPage} = usePageCursors(`${from}|${to}|${bookerRoom}`);
+  const {data, isLoading, isError} = useAdminRooftopBookings(cursor, PAGE_SIZE, {
     from: from ? new Date(from) : undefined,
     to: to ? new Date(to) : undefined,
     bookerRoom: bookerRoom || undefined,
   });
+  const bookings = data?.items;
 
   return (
     <div style={{display: 'flex', flexDirection: 'column', gap: '1rem'}}>
@@ -50,6 +55,14 @@ export function ManageBookings() {
         <div>No bookings match the current filters.</div>
       )}
 
+      {data && (
+        <PageControls
+          page={page}
+          setPage={newPage => setPage(newPage, data.nextCursor)}
+          hasNext={data.nextCursor !== null}
+        />
+      )}
+
       {bookings && bookings.length > 0 && (
         <div style={{overflowX: 'auto'}}>
           <table style={{width: '100%', borderCollapse: 'collapse'}}>
@@ -9,14 +9,17 @@ import {Loading} from "../../../components/Loading.tsx";
 import {Card} from "../../../components/Card.tsx";
 import {Button} from "../../../components/Button.tsx";
 import {formatDateRelativeToToday, toLocalDate} from "../../../utils.ts";
+import {PageControls, usePageCursors} from "../../../components/PageControls.tsx";
 
 const statusOptions: RooftopBookingRequest['status'][] = ['REQUESTED', 'APPROVED', 'REJECTED', 'CANCELLED'];
+const PAGE_SIZE = 20;
 
 export function ManageRequests() {
   const today = useMemo(() => new Date(), []);
   const [status, setStatus] = useState<RooftopBookingRequest['status']>('REQUESTED');
   const [bookerFilter, setBookerFilter] = useState('');
-  const {data: requests, isLoading, isError} = usePendingBookingRequests({
+  const {cursor, page, setPage} = usePageCursors(`${status}|${bookerFilter}`);
+  const {data, isLoading, isError} = usePendingBookingRequests(cursor, PAGE_SIZE, {
     status,
     from: status === 'REQUESTED' ? today : undefined,
     bookerRoom: bookerFilter || undefined,
@@ -28,9 +31,10 @@ export function ManageRequests() {
   if (isLoading) {
     return <Loading/>;
   }
-  if (isError || !requests) {
+  if (isError || !data) {
     return <div>Error loading requests.</div>;
   }
+  const requests = data.items;
 
   const handleApprove = async (id: number) => {
     try {
@@ -77,11 +81,14 @@ export function ManageRequests() {
             onChange={event => setBookerFilter(event.target.value)}
           />
         </label>
-        <div style={{display: 'flex', alignItems: 'flex-end', gap: '0.5rem'}}>
-          <strong>{`Matches: ${requests.length}`}</strong>
-        </div>
       </div>
 
+      <PageControls
+        page={page}
+        setPage={newPage => setPage(newPage, data.nextCursor)}
+        hasNext={data.nextCursor !== null}
+      />
+
       {requests.length === 0 && (
         <div>No requests match the current filters.</div>
       )}
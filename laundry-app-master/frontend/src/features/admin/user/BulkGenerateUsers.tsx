@@ -95,7 +95,8 @@ export function BulkGenerateUsers() {
   const [result, setResult] = useState<BulkGenerationResponse | null>(null);
   const [csvUrl, setCsvUrl] = useState<string | null>(null);
 
-  const {mutateAsync: bulkGenerate, isPending} = useBulkGenerateUsers();
+  const [progress, setProgress] = useState(0);
+  const {mutateAsync: bulkGenerate, isPending} = useBulkGenerateUsers(setProgress);
 
   useEffect(() => {
     return () => {
@@ -130,6 +131,7 @@ export function BulkGenerateUsers() {
     event.preventDefault();
     setMessage(undefined);
     setResult(null);
+    setProgress(0);
     if (csvUrl) {
       URL.revokeObjectURL(csvUrl);
       setCsvUrl(null);
@@ -330,7 +332,7 @@ export function BulkGenerateUsers() {
 
         <div className={styles.actions}>
           <Button type="submit" variant="primary" disabled={isPending}>
-            {isPending ? 'Generating…' : 'Generate accounts'}
+            {isPending ? `Generating… ${progress}/${totalRooms}` : 'Generate accounts'}
           </Button>
           {csvUrl && (
             <Button type="button" onClick={handleDownload}>
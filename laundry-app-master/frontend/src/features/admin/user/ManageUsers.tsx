@@ -1,41 +1,34 @@
-import {useAllUsers, useDeleteUser} from "../../user/queries.ts";
+import {useDeleteUser, useUserCounts, useUsers} from "../../user/queries.ts";
 import {Loading} from "../../../components/Loading.tsx";
 import {Card} from "../../../components/Card.tsx";
 import {Button} from "../../../components/Button.tsx";
-import {useMemo, useState} from "react";
+import {useState} from "react";
 import {Separator} from "../../../components/Separator.tsx";
 import Popup from "reactjs-popup";
 import {UserForm} from "./UserForm.tsx";
 import {ROLES, type Role} from "../../user/models.ts";
+import {PageControls, usePageCursors} from "../../../components/PageControls.tsx";
+
+const PAGE_SIZE = 50;
 
 export function ManageUsers() {
-  const {data: users, isLoading, isError} = useAllUsers();
-  const {mutateAsync: deleteUser} = useDeleteUser();
   const [search, setSearch] = useState('');
   const [roleFilter, setRoleFilter] = useState<'ALL' | Role>('ALL');
+  const {cursor, page, setPage} = usePageCursors(`${search}|${roleFilter}`);
+  const {data, isLoading, isError} = useUsers(cursor, PAGE_SIZE, {
+    role: roleFilter === 'ALL' ? undefined : roleFilter,
+    search: search || undefined,
+  });
+  const {data: countsByRole} = useUserCounts();
+  const {mutateAsync: deleteUser} = useDeleteUser();
   if (isLoading) {
     return <Loading/>;
   }
-  if (isError || !users) {
+  if (isError || !data) {
     return <div>Error loading users</div>;
   }
-  const countsByRole = useMemo(() => {
-    const record = new Map<Role, number>();
-    for (const role of ROLES) {
-      record.set(role, 0);
-    }
-    for (const user of users) {
-      record.set(user.role, (record.get(user.role) ?? 0) + 1);
-    }
-    return record;
-  }, [users]);
-
-  const filteredUsers = useMemo(() => {
-    return users
-      .filter(user => (search ? user.roomNumber.toLowerCase().includes(search.toLowerCase()) : true))
-      .filter(user => roleFilter === 'ALL' || user.role === roleFilter)
-      .sort((a, b) => a.roomNumber.localeCompare(b.roomNumber, undefined, {numeric: true, sensitivity: 'base'}));
-  }, [users, search, roleFilter]);
+  const users = data.items;
+  const total = countsByRole ? ROLES.reduce((sum, role) => sum + (countsByRole[role] ?? 0), 0) : undefined;
   return (
     <>
       <h2>Users</h2>
@@ -68,20 +61,25 @@ export function ManageUsers() {
         </div>
       </div>
       <div style={{marginTop: '0.5rem', display: 'flex', flexWrap: 'wrap', gap: '0.5rem'}}>
-        <strong>Total: {users.length}</strong>
+        <strong>Total: {total ?? '…'}</strong>
         {ROLES.map(role => (
           <span key={role} style={{background: 'var(--clr-surface-tonal-a20)', padding: '0.2rem 0.6rem', borderRadius: '999px'}}>
-            {role}: {countsByRole.get(role) ?? 0}
+            {role}: {countsByRole?.[role] ?? '…'}
           </span>
         ))}
       </div>
       <Separator/>
+      <PageControls
+        page={page}
+        setPage={newPage => setPage(newPage, data.nextCursor)}
+        hasNext={data.nextCursor !== null}
+      />
       <div style={{
         display: 'grid',
         gridTemplateColumns: 'repeat(auto-fit, minmax(250px, 1fr))',
         gap: '1rem'
       }}>
-        {filteredUsers
+        {users
           .map(user => (
             <Card
               key={user.roomNumber}
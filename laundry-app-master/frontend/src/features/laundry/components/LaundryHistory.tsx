@@ -1,22 +1,26 @@
-import {PageControls} from "../../../components/PageControls.tsx";
-import {useState} from "react";
+import {PageControls, usePageCursors} from "../../../components/PageControls.tsx";
 import {useUserBookings} from "../queries.ts";
 import {Loading} from "../../../components/Loading.tsx";
 import {Card} from "../../../components/Card.tsx";
 import {iconOfMachineType, prettifySlot} from "../models.tsx";
 
 export function LaundryHistory() {
-  const [page, setPage] = useState(0);
-  const {data: bookings, isLoading, isError} = useUserBookings(page, 20);
+  const {cursor, page, setPage} = usePageCursors();
+  const {data, isLoading, isError} = useUserBookings(cursor, 20);
   if (isLoading) {
     return <Loading/>;
   }
-  if (isError || !bookings) {
+  if (isError || !data) {
     return <>Error loading bookings.</>;
   }
+  const bookings = data.items;
   return (
     <div>
-      <PageControls page={page} setPage={setPage} array={bookings}/>
+      <PageControls
+        page={page}
+        setPage={newPage => setPage(newPage, data.nextCursor)}
+        hasNext={data.nextCursor !== null}
+      />
       <div style={{
         display: 'flex',
         flexDirection: 'column',
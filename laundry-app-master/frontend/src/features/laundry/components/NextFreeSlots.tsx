@@ -1,10 +1,10 @@
-import {type Booking, type Machine, type MachineType, SLOTS,} from "../models.tsx";
+import {BASE_SLOT_DURATION, type DayAvailability, type Machine, type MachineType, SLOTS,} from "../models.tsx";
 import styles from "./NextFreeSlots.module.css";
 import {useState} from "react";
 import {toLocalDate} from "../../../utils.ts";
 import {WindowedView} from "../../../components/WindowedView.tsx";
 import {isSlotInPast, isSlotOngoing} from "../utils.ts";
-import {useBookingsAfterToday, useCreateBooking, useMachines} from "../queries.ts";
+import {useCreateBooking, useLaundryAvailability, useMachines} from "../queries.ts";
 import {Loading} from "../../../components/Loading.tsx";
 import {BookingCard} from "./BookingCard.tsx";
 import {Button} from "../../../components/Button.tsx";
@@ -17,29 +17,21 @@ type TimeSlot = {
   date: Date,
 }
 
-function keyOf(timeSlot: TimeSlot) {
-  return `${timeSlot.machine.name}+${timeSlot.slot}+${toLocalDate(timeSlot.date)}`;
-}
+// Extended slots can be booked like free ones
+const BOOKABLE_STATES = new Set(['F', 'E']);
 
-// TODO: Not working with previous day buffers
 function getFreeSlotsForMachineType(
   machineType: MachineType,
   machines: Machine[],
-  bookings: Booking[],
+  availability: DayAvailability[],
   excludeOngoing: boolean = false,
 ) {
+  const grids = new Map<string, string>();
+  for (const day of availability) {
+    grids.set(`${day.machineName}+${day.date}`, day.slots);
+  }
   const today = new Date();
   today.setHours(0, 0, 0, 0);
-  const slotToBooking = new Map<string, Booking>();
-  if (bookings) {
-    for (const booking of bookings) {
-      slotToBooking.set(keyOf({
-        machine: booking.machine,
-        slot: booking.slotStart,
-        date: new Date(booking.date)
-      }), booking);
-    }
-  }
   const freeSlots: TimeSlot[] = [];
   for (let day = 0; day < DAYS_TO_CHECK; day++) {
     const date = new Date(today.getTime() + day * 24 * 60 * 60 * 1000);
@@ -48,8 +40,9 @@ function getFreeSlotsForMachineType(
         if (machine.type !== machineType) continue;
         if (excludeOngoing && isSlotOngoing(slot, date)) continue;
         if (isSlotInPast(slot, date)) continue;
-        const key = keyOf({machine, slot, date});
-        if (!slotToBooking.has(key)) {
+        // The grid already accounts for buffers, blocked slots and bookings from the day before
+        const grid = grids.get(`${machine.name}+${toLocalDate(date)}`);
+        if (grid && BOOKABLE_STATES.has(grid[slot / BASE_SLOT_DURATION])) {
           freeSlots.push({machine, slot, date});
         }
       }
@@ -58,10 +51,10 @@ function getFreeSlotsForMachineType(
   return freeSlots;
 }
 
-function NextFreeSlotList({machineType, machines, bookings, excludeOngoing}: {
+function NextFreeSlotList({machineType, machines, availability, excludeOngoing}: {
   machineType: MachineType,
   machines: Machine[],
-  bookings: Booking[],
+  availability: DayAvailability[],
   excludeOngoing: boolean,
 }) {
   const {mutateAsync: createBooking} = useCreateBooking();
@@ -79,7 +72,7 @@ function NextFreeSlotList({machineType, machines, bookings, excludeOngoing}: {
   };
   return (
     <div className={styles.nextFreeSlot}>
-      {getFreeSlotsForMachineType(machineType, machines, bookings, excludeOngoing)
+      {getFreeSlotsForMachineType(machineType, machines, availability, excludeOngoing)
         .slice(0, 4)
         .map((slot, i) => (
           <BookingCard
@@ -104,16 +97,18 @@ function NextFreeSlotList({machineType, machines, bookings, excludeOngoing}: {
 
 export default function NextFreeSlots() {
   const {data: machines, ...machinesQuery} = useMachines();
-  const {data: bookings, ...bookingsQuery} = useBookingsAfterToday();
+  const lastDay = new Date();
+  lastDay.setDate(lastDay.getDate() + DAYS_TO_CHECK - 1);
+  const {data: availability, ...availabilityQuery} = useLaundryAvailability(new Date(), lastDay);
   const [excludeOngoing] = useState(true);
-  if (machinesQuery.isLoading || bookingsQuery.isLoading) {
+  if (machinesQuery.isLoading || availabilityQuery.isLoading) {
     return <Loading/>;
   }
   if (machinesQuery.isError || !machines) {
     return <div>Error loading machines.</div>;
   }
-  if (bookingsQuery.isError || !bookings) {
-    return <div>Error loading bookings.</div>;
+  if (availabilityQuery.isError || !availability) {
+    return <div>Error loading availability.</div>;
   }
   return (
     <>
@@ -124,7 +119,7 @@ export default function NextFreeSlots() {
             body: <NextFreeSlotList
               machineType={'WASHER'}
               machines={machines}
-              bookings={bookings}
+              availability={availability}
               excludeOngoing={excludeOngoing}
             />
           },
@@ -133,7 +128,7 @@ export default function NextFreeSlots() {
             body: <NextFreeSlotList
               machineType={'DRYER'}
               machines={machines}
-              bookings={bookings}
+              availability={availability}
               excludeOngoing={excludeOngoing}
             />
           }
@@ -17,6 +17,30 @@ export type Booking = {
   createdAt: Date,
 }
 
+export type BatchItemResult = {
+  machineName: string;
+  date: string;
+  slotStart: number;
+  status: 'ACCEPTED' | 'REJECTED';
+  id: number | null;
+  reason: string | null;
+}
+
+export type BatchBookingResponse = {
+  results: BatchItemResult[];
+  accepted: number;
+  rejected: number;
+}
+
+/**
+ * One character per base slot of the day: F(ree), B(ooked), X (blocked) or E(xtended).
+ */
+export type DayAvailability = {
+  machineName: string;
+  date: string;
+  slots: string;
+}
+
 export type BookingData = {
   date: string | Date;
   slotStart: number;
@@ -1,11 +1,19 @@
 import {type QueryClient, useMutation, useQuery, useQueryClient} from "@tanstack/react-query";
-import {type Booking, type Machine, type LaundrySlotOverride} from "./models.tsx";
-import {fetchJsonWithCredentialsOrThrow, fetchWithCredentials, toLocalDate} from "../../utils.ts";
+import {
+  type BatchBookingResponse,
+  type Booking,
+  type DayAvailability,
+  type Machine,
+  type LaundrySlotOverride
+} from "./models.tsx";
+import {type CursorPage, fetchJsonWithCredentialsOrThrow, fetchWithCredentials, toLocalDate} from "../../utils.ts";
+import {EVENT_BACKED_REFETCH_INTERVAL} from "../../events.ts";
 
 async function invalidateBookings(qc: QueryClient) {
   await qc.invalidateQueries({queryKey: ['laundryBookingsByDate']});
   await qc.invalidateQueries({queryKey: ['laundryBookingsAfterToday']});
   await qc.invalidateQueries({queryKey: ['userLaundryBookingsInTheFuture']});
+  await qc.invalidateQueries({queryKey: ['laundryAvailability']});
 }
 
 export function useCreateBooking() {
@@ -52,12 +60,24 @@ export function useCreateBatchBookings() {
         },
         body: JSON.stringify(bookingsData),
       });
-      if (!res.ok) {
-        const text = await res.text();
+      const text = await res.text();
+      if (!res.headers.get('Content-Type')?.includes('application/json')) {
         throw new Error(`Failed to book all slots: ${text} (${res.status})`);
       }
+      const response = JSON.parse(text) as BatchBookingResponse;
+      if (response.rejected > 0) {
+        const reasons = response.results
+          .filter(result => result.status === 'REJECTED')
+          .map(result => result.reason)
+          .join(' ');
+        throw new Error(response.accepted > 0
+          ? `Booked ${response.accepted} of ${response.results.length} slots. ${reasons}`
+          : `Failed to book all slots: ${reasons}`);
+      }
+      return response;
     },
-    onSuccess: async () => await invalidateBookings(qc)
+    // Some slots may have been booked even if others were rejected
+    onSettled: async () => await invalidateBookings(qc)
   });
 }
 
@@ -83,7 +103,7 @@ export const useBookingsAfterToday = () => {
     queryFn: () => fetchJsonWithCredentialsOrThrow<Booking[]>('/api/laundry/bookings/today'),
     staleTime: 1000 * 30,
     refetchOnMount: true,
-    refetchInterval: 1000 * 30,
+    refetchInterval: EVENT_BACKED_REFETCH_INTERVAL,
   });
 }
 
@@ -96,10 +116,14 @@ export const useUserBookingsInTheFuture = () => {
   });
 }
 
-export const useUserBookings = (page: number, size: number) => {
-  return useQuery<Booking[]>({
-    queryKey: ['userLaundryBookings', page, size],
-    queryFn: () => fetchJsonWithCredentialsOrThrow<Booking[]>(`/api/laundry/bookings/all/me?page=${page}&size=${size}`),
+export const useUserBookings = (cursor: string | null, size: number) => {
+  const params = new URLSearchParams({size: String(size)});
+  if (cursor) {
+    params.set('cursor', cursor);
+  }
+  return useQuery<CursorPage<Booking>>({
+    queryKey: ['userLaundryBookings', cursor, size],
+    queryFn: () => fetchJsonWithCredentialsOrThrow<CursorPage<Booking>>(`/api/laundry/bookings/all/me?${params}`),
     staleTime: 1000 * 30,
     refetchOnMount: true,
   });
@@ -112,7 +136,21 @@ export const useBookingsByDate = (date: Date, includeBuffer: boolean = true) =>
     queryFn: () => fetchJsonWithCredentialsOrThrow(`/api/laundry/bookings/date/${localDate}?includeBuffer=${includeBuffer}`),
     staleTime: 1000 * 30,
     refetchOnMount: true,
-    refetchInterval: 1000 * 30,
+    refetchInterval: EVENT_BACKED_REFETCH_INTERVAL,
+  });
+}
+
+export function useLaundryAvailability(from: Date, to: Date = from) {
+  const fromDate = toLocalDate(from);
+  const toDate = toLocalDate(to);
+  return useQuery<DayAvailability[]>({
+    queryKey: ['laundryAvailability', fromDate, toDate],
+    queryFn: () => fetchJsonWithCredentialsOrThrow<DayAvailability[]>(
+      `/api/laundry/availability?from=${fromDate}&to=${toDate}`
+    ),
+    staleTime: 1000 * 30,
+    refetchOnMount: true,
+    refetchInterval: EVENT_BACKED_REFETCH_INTERVAL,
   });
 }
 
@@ -135,7 +173,7 @@ export function useLaundryOverrides(date: Date) {
     ),
     staleTime: 1000 * 30,
     refetchOnMount: true,
-    refetchInterval: 1000 * 60,
+    refetchInterval: EVENT_BACKED_REFETCH_INTERVAL,
   });
 }
 
@@ -220,6 +258,7 @@ export function useCreateOverride() {
     onSuccess: async () => {
       await qc.invalidateQueries({queryKey: ['laundryOverrides']});
       await qc.invalidateQueries({queryKey: ['laundryOverridesRange']});
+      await qc.invalidateQueries({queryKey: ['laundryAvailability']});
       await invalidateBookings(qc);
     }
   });
@@ -243,6 +282,7 @@ export function useUpdateOverride() {
     onSuccess: async () => {
       await qc.invalidateQueries({queryKey: ['laundryOverrides']});
       await qc.invalidateQueries({queryKey: ['laundryOverridesRange']});
+      await qc.invalidateQueries({queryKey: ['laundryAvailability']});
       await invalidateBookings(qc);
     }
   });
@@ -263,6 +303,7 @@ export function useDeleteOverride() {
     onSuccess: async () => {
       await qc.invalidateQueries({queryKey: ['laundryOverrides']});
       await qc.invalidateQueries({queryKey: ['laundryOverridesRange']});
+      await qc.invalidateQueries({queryKey: ['laundryAvailability']});
       await invalidateBookings(qc);
     }
   });
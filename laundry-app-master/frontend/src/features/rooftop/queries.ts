@@ -1,5 +1,6 @@
-import {useMutation, useQuery, useQueryClient} from "@tanstack/react-query";
-import {fetchJsonWithCredentialsOrThrow, fetchWithCredentials, toLocalDate} from "../../utils.ts";
+import {keepPreviousData, useMutation, useQuery, useQueryClient} from "@tanstack/react-query";
+import {type CursorPage, fetchJsonWithCredentialsOrThrow, fetchWithCredentials, toLocalDate, withPage} from "../../utils.ts";
+import {EVENT_BACKED_REFETCH_INTERVAL} from "../../events.ts";
 import type {RooftopBooking, RooftopBookingRequest, RooftopRequestDecision} from "./models.ts";
 
 export const useBookingsByMonth = (date: Date) => {
@@ -9,7 +10,7 @@ export const useBookingsByMonth = (date: Date) => {
     queryFn: () => fetchJsonWithCredentialsOrThrow(`/api/rooftop/bookings/month/${dateString}`),
     staleTime: 1000 * 30,
     refetchOnMount: true,
-    refetchInterval: 1000 * 30,
+    refetchInterval: EVENT_BACKED_REFETCH_INTERVAL,
   });
 }
 
@@ -30,11 +31,15 @@ export const useMyBookingRequests = (params?: {status?: RooftopBookingRequest['s
     queryFn: () => fetchJsonWithCredentialsOrThrow(`/api/rooftop/bookings/requests/me${suffix ? `?${suffix}` : ''}`),
     staleTime: 1000 * 30,
     refetchOnMount: true,
-    refetchInterval: 1000 * 60,
+    refetchInterval: EVENT_BACKED_REFETCH_INTERVAL,
   });
 }
 
-export const usePendingBookingRequests = (filters?: {from?: Date, to?: Date, bookerRoom?: string, status?: RooftopBookingRequest['status']}) => {
+export const usePendingBookingRequests = (
+  cursor: string | null,
+  size: number,
+  filters?: {from?: Date, to?: Date, bookerRoom?: string, status?: RooftopBookingRequest['status']}
+) => {
   const search = new URLSearchParams();
   if (filters?.status) {
     search.set('status', filters.status);
@@ -48,13 +53,15 @@ export const usePendingBookingRequests = (filters?: {from?: Date, to?: Date, boo
   if (filters?.bookerRoom) {
     search.set('bookerRoom', filters.bookerRoom);
   }
-  const suffix = search.toString();
-  return useQuery<RooftopBookingRequest[]>({
-    queryKey: ['adminRooftopRequests', suffix],
-    queryFn: () => fetchJsonWithCredentialsOrThrow(`/api/rooftop/bookings/requests${suffix ? `?${suffix}` : ''}`),
+  const params = withPage(search, cursor, size);
+  return useQuery<CursorPage<RooftopBookingRequest>>({
+    queryKey: ['adminRooftopRequests', params.toString()],
+    queryFn: () => fetchJsonWithCredentialsOrThrow<CursorPage<RooftopBookingRequest>>(`/api/rooftop/bookings/requests?${params}`),
     staleTime: 1000 * 30,
+    // Keeps the filters mounted while the next page or filter loads
+    placeholderData: keepPreviousData,
     refetchOnMount: true,
-    refetchInterval: 1000 * 30,
+    refetchInterval: EVENT_BACKED_REFETCH_INTERVAL,
   });
 }
 
@@ -140,21 +147,25 @@ export const useMyRooftopBookings = (params?: {from?: Date, to?: Date}) => {
   });
 }
 
-export const useAdminRooftopBookings = (params?: {from?: Date, to?: Date, bookerRoom?: string}) => {
+export const useAdminRooftopBookings = (
+  cursor: string | null,
+  size: number,
+  filters?: {from?: Date, to?: Date, bookerRoom?: string}
+) => {
   const search = new URLSearchParams();
-  if (params?.from) {
-    search.set('from', toLocalDate(params.from));
+  if (filters?.from) {
+    search.set('from', toLocalDate(filters.from));
   }
-  if (params?.to) {
-    search.set('to', toLocalDate(params.to));
+  if (filters?.to) {
+    search.set('to', toLocalDate(filters.to));
   }
-  if (params?.bookerRoom) {
-    search.set('bookerRoom', params.bookerRoom);
+  if (filters?.bookerRoom) {
+    search.set('bookerRoom', filters.bookerRoom);
   }
-  const suffix = search.toString();
-  return useQuery<RooftopBooking[]>({
-    queryKey: ['adminRooftopBookings', suffix],
-    queryFn: () => fetchJsonWithCredentialsOrThrow(`/api/rooftop/bookings${suffix ? `?${suffix}` : ''}`),
+  const params = withPage(search, cursor, size);
+  return useQuery<CursorPage<RooftopBooking>>({
+    queryKey: ['adminRooftopBookings', params.toString()],
+    queryFn: () => fetchJsonWithCredentialsOrThrow<CursorPage<RooftopBooking>>(`/api/rooftop/bookings?${params}`),
     staleTime: 1000 * 60,
     refetchOnMount: true,
   });
@@ -26,13 +26,16 @@ export type GeneratedUserCredential = {
   status: 'CREATED' | 'UPDATED' | 'SKIPPED_EXISTS' | 'PREVIEW',
 }
 
-export type BulkGenerationResponse = {
-  credentials: GeneratedUserCredential[],
+export type BulkGenerationSummary = {
   created: number,
   updated: number,
   skipped: number,
 }
 
+export type BulkGenerationResponse = BulkGenerationSummary & {
+  credentials: GeneratedUserCredential[],
+}
+
 export type BulkGenerationPayload = {
   rooms: string[],
   passwordLength?: number,
@@ -1,8 +1,10 @@
-import {type QueryClient, useMutation, useQuery, useQueryClient} from "@tanstack/react-query";
-import {fetchWithCredentials} from "../../utils.ts";
+import {keepPreviousData, type QueryClient, useMutation, useQuery, useQueryClient} from "@tanstack/react-query";
+import {type CursorPage, fetchJsonWithCredentialsOrThrow, fetchWithCredentials, withPage} from "../../utils.ts";
 import type {
   BulkGenerationPayload,
   BulkGenerationResponse,
+  BulkGenerationSummary,
+  GeneratedUserCredential,
   Role,
   User,
   UserData
@@ -50,17 +52,29 @@ export const useLogin = () => {
   });
 }
 
-export const useAllUsers = () => {
-  return useQuery({
-    queryKey: ['allUsers'],
-    queryFn: async () => {
-      const res = await fetchWithCredentials(`/api/users/all`);
-      if (!res.ok) {
-        throw new Error('Failed to fetch all users');
-      }
-      const data = await res.json() as User[];
-      return data;
-    },
+export const useUsers = (cursor: string | null, size: number, filters?: {role?: Role, search?: string}) => {
+  const search = new URLSearchParams();
+  if (filters?.role) {
+    search.set('role', filters.role);
+  }
+  if (filters?.search) {
+    search.set('search', filters.search);
+  }
+  const params = withPage(search, cursor, size);
+  return useQuery<CursorPage<User>>({
+    queryKey: ['allUsers', 'page', params.toString()],
+    queryFn: () => fetchJsonWithCredentialsOrThrow<CursorPage<User>>(`/api/users/all?${params}`),
+    staleTime: 1000 * 60,
+    // Keeps the filters mounted while the next page or search loads
+    placeholderData: keepPreviousData,
+  });
+}
+
+// Under the same key as the pages, so every user change refreshes both
+export const useUserCounts = () => {
+  return useQuery<Record<Role, number>>({
+    queryKey: ['allUsers', 'counts'],
+    queryFn: () => fetchJsonWithCredentialsOrThrow<Record<Role, number>>(`/api/users/counts`),
     staleTime: 1000 * 60,
   });
 }
@@ -127,22 +141,53 @@ export const useDeleteUser = () => {
   });
 }
 
-export const useBulkGenerateUsers = () => {
+/**
+ * Generates accounts in bulk. The server streams one credential per line as soon as its account is
+ * saved, followed by a summary line, so progress is reported while the passwords are being hashed.
+ */
+export const useBulkGenerateUsers = (onProgress?: (credentials: number) => void) => {
   return useMutation({
     mutationFn: async (payload: BulkGenerationPayload): Promise<BulkGenerationResponse> => {
       const res = await fetchWithCredentials(`/api/users/bulk/generate`, {
         method: 'POST',
         headers: {
           'Content-Type': 'application/json',
-          'Accept': 'application/json',
+          'Accept': 'application/x-ndjson',
         },
         body: JSON.stringify(payload),
       });
-      if (!res.ok) {
+      if (!res.ok || !res.body) {
         const message = await res.text();
         throw new Error(message || 'Failed to generate accounts');
       }
-      return await res.json() as BulkGenerationResponse;
+      const credentials: GeneratedUserCredential[] = [];
+      let summary = null as BulkGenerationSummary | null;
+      const handleLine = (line: string) => {
+        if (!line.trim()) {
+          return;
+        }
+        const entry = JSON.parse(line) as GeneratedUserCredential | BulkGenerationSummary;
+        if ('roomNumber' in entry) {
+          credentials.push(entry);
+          onProgress?.(credentials.length);
+        } else {
+          summary = entry;
+        }
+      };
+      const reader = res.body.getReader();
+      const decoder = new TextDecoder();
+      let buffered = '';
+      for (let chunk = await reader.read(); !chunk.done; chunk = await reader.read()) {
+        buffered += decoder.decode(chunk.value, {stream: true});
+        const lines = buffered.split('\n');
+        buffered = lines.pop() ?? '';
+        lines.forEach(handleLine);
+      }
+      handleLine(buffered + decoder.decode());
+      if (!summary) {
+        throw new Error(`Generation was interrupted after ${credentials.length} accounts.`);
+      }
+      return {credentials, ...summary};
     }
   });
 }
@@ -7,6 +7,8 @@ export async function fetchWithCredentials(url: string, options?: RequestInit &
   try {
     return await fetch(fullUrl, {
       credentials: 'include',
+      // Revalidate cached responses with their ETag, unchanged data then comes back as a bodiless 304
+      cache: 'no-cache',
       ...options,
       signal: controller.signal,
     });
@@ -24,6 +26,26 @@ export async function fetchJsonWithCredentialsOrThrow<T>(url: string, options?:
   return await (await res.json() as Promise<T>);
 }
 
+/**
+ * A page of a cursor paginated list. `nextCursor` is null on the last page.
+ */
+export type CursorPage<T> = {
+  items: T[];
+  nextCursor: string | null;
+};
+
+/**
+ * Adds the cursor and page size to the query string of a cursor paginated endpoint.
+ */
+export function withPage(search: URLSearchParams, cursor: string | null, size: number) {
+  const params = new URLSearchParams(search);
+  params.set('size', String(size));
+  if (cursor) {
+    params.set('cursor', cursor);
+  }
+  return params;
+}
+
 export default function isSameDay(date1: Date, date2: Date) {
   return date1.getFullYear() === date2.getFullYear() &&
     date1.getMonth() === date2.getMonth() &&